@@ -0,0 +1,65 @@
+package plus.jdk.milvus.benchmark;
+
+import io.milvus.client.MilvusServiceClient;
+import io.milvus.grpc.MutationResult;
+import io.milvus.param.ConnectParam;
+import io.milvus.param.R;
+import io.milvus.param.dml.InsertParam;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import plus.jdk.milvus.selector.MilvusSelector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试的公共环境, 所有测试都不需要 milvus 服务端
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class BenchmarkContext {
+
+    static final int DIMENSION = 128;
+
+    /**
+     * 解析实体时需要从 spring 容器中获取 {@link plus.jdk.milvus.global.VectorTypeHandler}
+     */
+    static AnnotationConfigApplicationContext startApplicationContext() {
+        return new AnnotationConfigApplicationContext(MilvusSelector.class);
+    }
+
+    /**
+     * channel 在第一次请求时才会建立, insert 直接返回成功, 不会发出请求
+     */
+    static MilvusServiceClient offlineClient() {
+        ConnectParam connectParam = ConnectParam.newBuilder().withHost("localhost").withPort(19530).build();
+        return new MilvusServiceClient(connectParam) {
+            @Override
+            public R<MutationResult> insert(InsertParam requestParam) {
+                return R.success(MutationResult.getDefaultInstance());
+            }
+        };
+    }
+
+    static List<Float> randomVector(Random random) {
+        List<Float> vector = new ArrayList<>(DIMENSION);
+        for (int i = 0; i < DIMENSION; i++) {
+            vector.add(random.nextFloat());
+        }
+        return vector;
+    }
+
+    static List<BenchmarkVector> randomEntities(int rows, Random random) {
+        List<BenchmarkVector> entities = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            BenchmarkVector entity = new BenchmarkVector();
+            entity.setId((long) i);
+            entity.setUserId(random.nextLong());
+            entity.setBlogText("blog text " + i);
+            entity.setBlogTextVector(randomVector(random));
+            entities.add(entity);
+        }
+        return entities;
+    }
+}
@@ -0,0 +1,29 @@
+package plus.jdk.milvus.benchmark;
+
+import io.milvus.grpc.DataType;
+import io.milvus.param.MetricType;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import plus.jdk.milvus.annotation.VectorCollectionColumn;
+import plus.jdk.milvus.annotation.VectorCollectionName;
+import plus.jdk.milvus.record.VectorModel;
+
+import java.util.List;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+@VectorCollectionName(name = "benchmark_vector", description = "基准测试使用的向量表")
+public class BenchmarkVector extends VectorModel<BenchmarkVector> {
+
+    @VectorCollectionColumn(name = "id", dataType = DataType.Int64, primary = true)
+    private Long id;
+
+    @VectorCollectionColumn(name = "user_id", dataType = DataType.Int64)
+    private Long userId;
+
+    @VectorCollectionColumn(name = "blog_text", dataType = DataType.VarChar, maxLength = 1024)
+    private String blogText;
+
+    @VectorCollectionColumn(name = "v_blog_text", dataType = DataType.FloatVector, vectorDimension = BenchmarkContext.DIMENSION, metricType = MetricType.COSINE)
+    private List<Float> blogTextVector;
+}
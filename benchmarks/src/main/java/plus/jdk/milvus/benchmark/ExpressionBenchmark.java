@@ -0,0 +1,77 @@
+package plus.jdk.milvus.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import plus.jdk.milvus.wrapper.LambdaQueryWrapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 查询表达式的拼装开销, 包括大 in 列表和多层嵌套的 and/or
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpressionBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int inSize;
+
+    @Param({"1", "8"})
+    private int depth;
+
+    private AnnotationConfigApplicationContext applicationContext;
+
+    private List<Long> ids;
+
+    private List<String> texts;
+
+    @Setup
+    public void setup() {
+        applicationContext = BenchmarkContext.startApplicationContext();
+        ids = new ArrayList<>(inSize);
+        texts = new ArrayList<>(inSize);
+        for (int i = 0; i < inSize; i++) {
+            ids.add(1000000000L + i);
+            texts.add("text-" + i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public String inLongList() {
+        LambdaQueryWrapper<BenchmarkVector> wrapper = new LambdaQueryWrapper<>();
+        return wrapper.in(BenchmarkVector::getUserId, ids).getExprSegment();
+    }
+
+    @Benchmark
+    public String inStringList() {
+        LambdaQueryWrapper<BenchmarkVector> wrapper = new LambdaQueryWrapper<>();
+        return wrapper.in(BenchmarkVector::getBlogText, texts).getExprSegment();
+    }
+
+    @Benchmark
+    public String nestedAndOr() {
+        LambdaQueryWrapper<BenchmarkVector> wrapper = new LambdaQueryWrapper<>();
+        nest(wrapper, depth);
+        return wrapper.getExprSegment();
+    }
+
+    private void nest(LambdaQueryWrapper<BenchmarkVector> wrapper, int level) {
+        wrapper.eq(BenchmarkVector::getId, (long) level)
+                .or()
+                .in(BenchmarkVector::getUserId, ids);
+        if (level > 1) {
+            wrapper.and(nested -> nest(nested, level - 1));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package plus.jdk.milvus.benchmark;
+
+import io.milvus.client.MilvusServiceClient;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import plus.jdk.milvus.global.MilvusClientService;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 写入前的序列化开销: 读取实体字段、经过 {@link plus.jdk.milvus.global.VectorTypeHandler} 序列化、
+ * 按列组装并切分批次, 请求由不联网的 client 直接返回成功
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InsertBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int rows;
+
+    private AnnotationConfigApplicationContext applicationContext;
+
+    private MilvusServiceClient milvusClient;
+
+    private MilvusClientService milvusClientService;
+
+    private List<BenchmarkVector> entities;
+
+    @Setup
+    public void setup() {
+        applicationContext = BenchmarkContext.startApplicationContext();
+        milvusClient = BenchmarkContext.offlineClient();
+        milvusClientService = new MilvusClientService(milvusClient);
+        entities = BenchmarkContext.randomEntities(rows, new Random(42));
+    }
+
+    @TearDown
+    public void tearDown() {
+        milvusClient.close();
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public boolean insertBatch() {
+        return milvusClientService.insertBatch(entities);
+    }
+}
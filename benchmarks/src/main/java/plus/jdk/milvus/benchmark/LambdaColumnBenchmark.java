@@ -0,0 +1,78 @@
+package plus.jdk.milvus.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import plus.jdk.milvus.annotation.VectorCollectionColumn;
+import plus.jdk.milvus.common.PropertyNamer;
+import plus.jdk.milvus.global.MilvusClientService;
+import plus.jdk.milvus.toolkit.LambdaUtils;
+import plus.jdk.milvus.toolkit.support.LambdaMeta;
+import plus.jdk.milvus.toolkit.support.ReflectLambdaMeta;
+import plus.jdk.milvus.toolkit.support.SFunction;
+import plus.jdk.milvus.wrapper.LambdaQueryWrapper;
+
+import java.lang.invoke.SerializedLambda;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * lambda 字段解析的开销
+ * <p>{@code uncached*} 为加入解析缓存之前的实现: 每次调用都反射 writeReplace 并查找字段注解</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LambdaColumnBenchmark {
+
+    private final SFunction<BenchmarkVector, ?> column = BenchmarkVector::getBlogText;
+
+    private AnnotationConfigApplicationContext applicationContext;
+
+    private MilvusClientService milvusClientService;
+
+    @Setup
+    public void setup() {
+        applicationContext = BenchmarkContext.startApplicationContext();
+        milvusClientService = new MilvusClientService(null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public LambdaMeta uncachedExtract() throws Exception {
+        Method method = column.getClass().getDeclaredMethod("writeReplace");
+        return new ReflectLambdaMeta((SerializedLambda) LambdaUtils.setAccessible(method).invoke(column), column.getClass().getClassLoader());
+    }
+
+    @Benchmark
+    public LambdaMeta cachedExtract() {
+        return LambdaUtils.extract(column);
+    }
+
+    @Benchmark
+    public String uncachedColumnName() throws Exception {
+        LambdaMeta lambdaMeta = uncachedExtract();
+        String attributeName = PropertyNamer.methodToProperty(lambdaMeta.getImplMethodName());
+        Field field = BenchmarkVector.class.getDeclaredField(attributeName);
+        return field.getDeclaredAnnotation(VectorCollectionColumn.class).name();
+    }
+
+    @Benchmark
+    public String cachedColumnName() {
+        return milvusClientService.getColumnName(column, BenchmarkVector.class);
+    }
+
+    @Benchmark
+    public String wrapperExpression() {
+        LambdaQueryWrapper<BenchmarkVector> wrapper = new LambdaQueryWrapper<>();
+        wrapper.setEntityClass(BenchmarkVector.class);
+        return wrapper.eq(BenchmarkVector::getUserId, 1L).eq(BenchmarkVector::getBlogText, "text").getExprSegment();
+    }
+}
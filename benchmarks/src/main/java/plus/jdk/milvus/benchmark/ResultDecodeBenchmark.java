@@ -0,0 +1,100 @@
+package plus.jdk.milvus.benchmark;
+
+import io.milvus.grpc.*;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import plus.jdk.milvus.global.ResultDecoder;
+import plus.jdk.milvus.metadata.CollectionHelper;
+import plus.jdk.milvus.metadata.EntityMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 将构造的 search/query 返回结果映射为实体的开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultDecodeBenchmark {
+
+    @Param({"10", "1000"})
+    private int rows;
+
+    @Param({"false", "true"})
+    private boolean withVector;
+
+    private AnnotationConfigApplicationContext applicationContext;
+
+    private EntityMapper<BenchmarkVector> entityMapper;
+
+    private QueryResults queryResults;
+
+    private SearchResultData searchResults;
+
+    @Setup
+    public void setup() {
+        applicationContext = BenchmarkContext.startApplicationContext();
+        entityMapper = CollectionHelper.getCollectionInfo(BenchmarkVector.class).getEntityMapper();
+        List<FieldData> fieldsData = fieldsData(new Random(42));
+        queryResults = QueryResults.newBuilder().addAllFieldsData(fieldsData).build();
+        List<Float> scores = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            scores.add(1f - (float) i / rows);
+        }
+        searchResults = SearchResultData.newBuilder()
+                .setNumQueries(1)
+                .setTopK(rows)
+                .addTopks(rows)
+                .addAllScores(scores)
+                .addAllFieldsData(fieldsData)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public List<BenchmarkVector> decodeQuery() {
+        return ResultDecoder.decodeQuery(entityMapper, queryResults);
+    }
+
+    @Benchmark
+    public List<BenchmarkVector> decodeSearch() {
+        return ResultDecoder.decodeSearch(entityMapper, searchResults);
+    }
+
+    private List<FieldData> fieldsData(Random random) {
+        LongArray.Builder ids = LongArray.newBuilder();
+        LongArray.Builder userIds = LongArray.newBuilder();
+        StringArray.Builder texts = StringArray.newBuilder();
+        FloatArray.Builder vectors = FloatArray.newBuilder();
+        for (int i = 0; i < rows; i++) {
+            ids.addData(i);
+            userIds.addData(random.nextLong());
+            texts.addData("blog text " + i);
+            if (withVector) {
+                vectors.addAllData(BenchmarkContext.randomVector(random));
+            }
+        }
+        List<FieldData> fieldsData = new ArrayList<>();
+        fieldsData.add(FieldData.newBuilder().setFieldName("id").setType(DataType.Int64)
+                .setScalars(ScalarField.newBuilder().setLongData(ids)).build());
+        fieldsData.add(FieldData.newBuilder().setFieldName("user_id").setType(DataType.Int64)
+                .setScalars(ScalarField.newBuilder().setLongData(userIds)).build());
+        fieldsData.add(FieldData.newBuilder().setFieldName("blog_text").setType(DataType.VarChar)
+                .setScalars(ScalarField.newBuilder().setStringData(texts)).build());
+        if (withVector) {
+            fieldsData.add(FieldData.newBuilder().setFieldName("v_blog_text").setType(DataType.FloatVector)
+                    .setVectors(VectorField.newBuilder().setDim(BenchmarkContext.DIMENSION).setFloatVector(vectors)).build());
+        }
+        return fieldsData;
+    }
+}
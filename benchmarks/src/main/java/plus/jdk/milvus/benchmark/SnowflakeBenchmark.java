@@ -0,0 +1,41 @@
+package plus.jdk.milvus.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import plus.jdk.milvus.toolkit.Snowflake;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多线程共用一个 {@link Snowflake} 时的发号开销, blockSize 为 1 时每次都 CAS 共享状态, 否则按线程预留 id 段
+ * <p>单个 workerId 每毫秒最多约 4096 个 id, 达到上限后测到的是等待时钟前进的时间, 不能反映分配本身的开销</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnowflakeBenchmark {
+
+    @Param({"1", "256"})
+    private int blockSize;
+
+    private Snowflake snowflake;
+
+    @Setup
+    public void setUp() {
+        snowflake = Snowflake.create(1, blockSize);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long nextIdSingleThread() {
+        return snowflake.nextId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long nextIdContended() {
+        return snowflake.nextId();
+    }
+}
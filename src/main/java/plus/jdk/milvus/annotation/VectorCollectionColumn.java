@@ -3,6 +3,7 @@ package plus.jdk.milvus.annotation;
 import io.milvus.grpc.DataType;
 import io.milvus.param.IndexType;
 import io.milvus.param.MetricType;
+import plus.jdk.milvus.enums.IdType;
 import plus.jdk.milvus.global.VectorTypeHandler;
 import plus.jdk.milvus.global.handler.UnknownTypeHandler;
 
@@ -23,6 +24,14 @@ public @interface VectorCollectionColumn {
      */
     boolean primary() default false;
 
+    /**
+     * 只对主键有效, {@link IdType#AUTO} 时由 milvus 生成主键(autoID),
+     * {@link IdType#ASSIGN_ID}、{@link IdType#ASSIGN_UUID} 时在写入前由客户端生成
+     *
+     * @return 主键生成方式, {@link IdType#NONE} 时跟随全局配置, 全局配置默认为 {@link IdType#AUTO}
+     */
+    IdType idType() default IdType.NONE;
+
     /**
      * @return 数据类型
      */
@@ -12,4 +12,8 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 public @interface VectorRepository {
 
+    /**
+     * @return 是否对该 repository 开启异步批量写入(write-behind), 开启后 insertBuffered 会先进入缓冲区再批量写入
+     */
+    boolean writeBehind() default false;
 }
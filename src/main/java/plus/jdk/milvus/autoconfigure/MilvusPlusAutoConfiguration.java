@@ -3,19 +3,27 @@ package plus.jdk.milvus.autoconfigure;
 import io.milvus.client.MilvusServiceClient;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import plus.jdk.milvus.annotation.EnableMilvusPlus;
 import plus.jdk.milvus.config.GlobalConfig;
 import plus.jdk.milvus.factory.MilvusPlusFactoryBean;
 import plus.jdk.milvus.global.MilvusClientService;
+import plus.jdk.milvus.global.WriteBehindInserter;
+import plus.jdk.milvus.global.cache.ResultCache;
 import plus.jdk.milvus.global.handler.AnnotationHandler;
+import plus.jdk.milvus.global.metrics.MilvusMetrics;
 import plus.jdk.milvus.incrementer.IdentifierGenerator;
+import plus.jdk.milvus.toolkit.GlobalConfigUtils;
 
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
 @Slf4j
@@ -25,6 +33,16 @@ import java.util.function.Consumer;
 @EnableConfigurationProperties(MilvusPlusProperties.class)
 public class MilvusPlusAutoConfiguration implements InitializingBean {
 
+    /**
+     * 自定义异步方法线程池的 bean 名称
+     */
+    public static final String ASYNC_EXECUTOR_BEAN_NAME = "milvusAsyncExecutor";
+
+    /**
+     * 自定义阻塞调用线程池的 bean 名称
+     */
+    public static final String BLOCKING_EXECUTOR_BEAN_NAME = "milvusBlockingExecutor";
+
     private final MilvusPlusProperties properties;
     private final ApplicationContext applicationContext;
 
@@ -50,10 +68,39 @@ public class MilvusPlusAutoConfiguration implements InitializingBean {
         GlobalConfig globalConfig = this.properties.getGlobalConfig();
         this.getBeanThen(AnnotationHandler.class, globalConfig::setAnnotationHandler);
         this.getBeanThen(IdentifierGenerator.class, globalConfig::setIdentifierGenerator);
+        GlobalConfigUtils.setGlobalConfig(globalConfig);
         factoryBean.setGlobalConfig(globalConfig);
         factoryBean.setProperties(properties);
         MilvusServiceClient client = factoryBean.getObject();
-        return new MilvusClientService(client);
+        MilvusClientService milvusClientService = new MilvusClientService(client, properties);
+        this.getBeanThen(ResultCache.class, milvusClientService::setResultCache);
+        this.getBeanThen(MilvusMetrics.class, milvusClientService::setMetrics);
+        if (this.applicationContext.containsBean(ASYNC_EXECUTOR_BEAN_NAME)) {
+            milvusClientService.setAsyncExecutor(this.applicationContext.getBean(ASYNC_EXECUTOR_BEAN_NAME, Executor.class));
+        }
+        if (this.applicationContext.containsBean(BLOCKING_EXECUTOR_BEAN_NAME)) {
+            milvusClientService.setBlockingExecutor(this.applicationContext.getBean(BLOCKING_EXECUTOR_BEAN_NAME, Executor.class));
+        }
+        return milvusClientService;
+    }
+
+    /**
+     * 只在开启了 write-behind 的 repository 第一次写入时创建, 没有使用 write-behind 时不会打开预写日志
+     */
+    @Bean
+    @Lazy
+    @ConditionalOnMissingBean
+    public WriteBehindInserter writeBehindInserter(MilvusClientService milvusClientService) {
+        return new WriteBehindInserter(milvusClientService, properties.getWriteBehind());
+    }
+
+    /**
+     * 对所有 repository 开启 write-behind 时在启动完成后创建, 以便立即在后台重新写入预写日志中上次未确认的数据
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "plus.jdk.milvus.write-behind", name = "enabled", havingValue = "true")
+    public SmartInitializingSingleton writeBehindInserterInitializer(ObjectProvider<WriteBehindInserter> writeBehindInserter) {
+        return writeBehindInserter::getIfAvailable;
     }
 
     /**
@@ -0,0 +1,35 @@
+package plus.jdk.milvus.autoconfigure;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import plus.jdk.milvus.global.metrics.MicrometerMilvusMetrics;
+import plus.jdk.milvus.global.metrics.MilvusMetrics;
+
+/**
+ * classpath 中存在 micrometer 且容器中有 MeterRegistry 时, 为 {@link plus.jdk.milvus.global.MilvusClientService}
+ * 注册 {@link MicrometerMilvusMetrics}; 可以通过 {@code plus.jdk.milvus.metrics.enabled=false} 关闭
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass(MeterRegistry.class)
+@ConditionalOnBean(MeterRegistry.class)
+@ConditionalOnProperty(prefix = "plus.jdk.milvus.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+@AutoConfigureAfter(name = {
+        "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration",
+        "org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration"
+})
+@AutoConfigureBefore(MilvusPlusAutoConfiguration.class)
+public class MilvusPlusMetricsAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(MilvusMetrics.class)
+    public MicrometerMilvusMetrics micrometerMilvusMetrics(MeterRegistry meterRegistry) {
+        return new MicrometerMilvusMetrics(meterRegistry);
+    }
+}
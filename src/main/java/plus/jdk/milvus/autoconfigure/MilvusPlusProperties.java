@@ -83,9 +83,290 @@ public class MilvusPlusProperties {
      */
     private Long keepAliveTime;
 
+    /**
+     * 批量写入时单次请求的最大字节数(估算值), 需小于服务端 gRPC 消息大小限制(默认 64MB)
+     */
+    private Long batchMaxBytes = 16L * 1024 * 1024;
+
+    /**
+     * 批量写入时单次请求的最大行数
+     */
+    private Integer batchMaxRows = 10000;
+
+    /**
+     * 异步方法(searchAsync、queryAsync 等)解析结果使用的线程数,
+     * 也可以通过名为 milvusAsyncExecutor 的 {@link java.util.concurrent.Executor} bean 指定线程池
+     */
+    private Integer asyncThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 阻塞的 sdk 调用(removeByIds 的并行删除、removeAsync、批量导入中拆分后的同步写入)使用的线程数,
+     * 与异步方法的线程池分开, 也可以通过名为 milvusBlockingExecutor 的 {@link java.util.concurrent.Executor} bean 指定线程池
+     */
+    private Integer blockingThreads = 8;
+
+    /**
+     * 异步批量写入(write-behind)配置
+     */
+    private WriteBehind writeBehind = new WriteBehind();
+
+    /**
+     * 合并并发检索配置
+     */
+    private SearchCoalesce searchCoalesce = new SearchCoalesce();
+
+    /**
+     * search/query 结果缓存配置
+     */
+    private Cache cache = new Cache();
+
+    /**
+     * 慢操作日志配置
+     */
+    private SlowLog slowLog = new SlowLog();
+
+    /**
+     * 按主键批量删除配置
+     */
+    private RemoveBatch removeBatch = new RemoveBatch();
+
+    /**
+     * 批量导入({@link plus.jdk.milvus.global.BulkWriter})配置
+     */
+    private BulkWrite bulkWrite = new BulkWrite();
+
+    /**
+     * 根据写入耗时和服务端限流自动调整批量写入、删除的批次大小和并发数
+     */
+    private AdaptiveBatch adaptiveBatch = new AdaptiveBatch();
+
     /**
      * 全局配置
      */
     @NestedConfigurationProperty
     private GlobalConfig globalConfig = GlobalConfigUtils.defaults();
+
+    @Data
+    public static class WriteBehind {
+
+        /**
+         * 是否对所有 repository 开启, 也可以通过 {@code @VectorRepository(writeBehind = true)} 单独开启
+         */
+        private boolean enabled = false;
+
+        /**
+         * 缓冲区行数达到该值时触发写入
+         */
+        private int maxRows = 1000;
+
+        /**
+         * 缓冲区数据量(估算值)达到该值时触发写入
+         */
+        private long maxBytes = 4L * 1024 * 1024;
+
+        /**
+         * 最长多少毫秒触发一次写入
+         */
+        private long flushInterval = 200L;
+
+        /**
+         * 每个 collection 最多缓冲(包括正在写入)的行数, 超过后写入线程会被阻塞
+         */
+        private int capacity = 10000;
+
+        /**
+         * 缓冲区已满时最多阻塞多少毫秒, 超时后抛出异常
+         */
+        private long offerTimeout = 1000L;
+
+        /**
+         * 执行写入的线程数
+         */
+        private int flushThreads = 1;
+
+        /**
+         * 应用关闭时等待缓冲区写完的最长毫秒数
+         */
+        private long shutdownTimeout = 10000L;
+
+        /**
+         * 缓冲区的预写日志
+         */
+        private Journal journal = new Journal();
+    }
+
+    @Data
+    public static class Journal {
+
+        /**
+         * 是否在数据进入缓冲区前先写入本地预写日志, 进程异常退出后未写入 milvus 的数据会在下次启动时重新写入
+         */
+        private boolean enabled = false;
+
+        /**
+         * 日志目录, 每个进程需要使用独立的目录
+         */
+        private String directory = "milvus-journal";
+
+        /**
+         * 单个段文件的字节数
+         */
+        private int segmentSize = 64 * 1024 * 1024;
+
+        /**
+         * 是否每次追加后都刷盘, 关闭时只能保证进程崩溃不丢数据, 不能保证机器掉电不丢数据
+         */
+        private boolean force = false;
+    }
+
+    @Data
+    public static class SearchCoalesce {
+
+        /**
+         * 是否将参数相同的并发单向量检索合并为一次请求
+         */
+        private boolean enabled = false;
+
+        /**
+         * 等待合并的时间窗口, 单位微秒
+         */
+        private long windowMicros = 1000L;
+
+        /**
+         * 一次请求最多合并多少个向量, 达到后立即发送
+         */
+        private int maxBatch = 16;
+    }
+
+    @Data
+    public static class Cache {
+
+        /**
+         * 是否缓存 search/query 结果, 通过当前客户端写入或删除数据时对应 collection 的缓存会失效
+         */
+        private boolean enabled = false;
+
+        /**
+         * 最多缓存多少个结果
+         */
+        private int maxSize = 10000;
+
+        /**
+         * 缓存过期时间, 单位毫秒
+         */
+        private long ttl = 5000L;
+    }
+
+    @Data
+    public static class SlowLog {
+
+        /**
+         * 是否打印耗时超过阈值的 insert/search/query/delete/load/createIndex 操作
+         */
+        private boolean enabled = false;
+
+        /**
+         * 慢操作阈值, 单位毫秒
+         */
+        private long threshold = 500L;
+
+        /**
+         * 每秒最多打印多少条慢日志, 超过的只计数
+         */
+        private int maxPerSecond = 10;
+
+        /**
+         * 每个向量最多打印前几个分量, 其余部分只输出 hash
+         */
+        private int vectorPreview = 4;
+    }
+
+    @Data
+    public static class RemoveBatch {
+
+        /**
+         * 单次删除请求最多包含多少个主键
+         */
+        private int maxKeys = 4096;
+
+        /**
+         * 单次删除请求的表达式最多多少个字符
+         */
+        private int maxExprLength = 64 * 1024;
+
+        /**
+         * 最多同时发送多少个删除请求
+         */
+        private int parallelism = 4;
+    }
+
+    @Data
+    public static class BulkWrite {
+
+        /**
+         * 最多同时进行的写入请求数
+         */
+        private int maxInFlight = 4;
+
+        /**
+         * 每批数据失败后最多重试多少次, 只有主键由客户端指定时才会重试
+         */
+        private int maxRetries = 2;
+
+        /**
+         * 第一次重试前等待的毫秒数, 之后每次翻倍
+         */
+        private long retryBackoff = 200L;
+    }
+
+    @Data
+    public static class AdaptiveBatch {
+
+        /**
+         * 是否开启, 开启后 {@link #getBatchMaxRows()}、{@link BulkWrite#getMaxInFlight()}、
+         * {@link RemoveBatch#getMaxKeys()} 和 {@link RemoveBatch#getParallelism()} 作为上限
+         */
+        private boolean enabled = false;
+
+        /**
+         * 目标耗时(毫秒), 单次请求耗时不超过该值时逐步增大批次和并发数
+         */
+        private long targetLatency = 500L;
+
+        /**
+         * 初始批次大小
+         */
+        private int initialSize = 1000;
+
+        /**
+         * 最小批次大小
+         */
+        private int minSize = 1;
+
+        /**
+         * 每次增大的行数
+         */
+        private int increment = 100;
+
+        /**
+         * 被限流或请求过大时批次大小(限流时还有并发数)乘以该系数
+         */
+        private double decreaseFactor = 0.5;
+
+        /**
+         * 请求过大后批次大小不再超过失败时的大小, 经过该毫秒数没有再出现请求过大时恢复原来的上限,
+         * 之后批次大小仍然按 increment 逐步增大
+         */
+        private long sizeLimitRecovery = 60000L;
+
+        /**
+         * 被限流或请求过大的批次最多重试多少次, 这类请求没有被执行, 重试不会重复写入
+         */
+        private int maxRetries = 3;
+
+        /**
+         * 被限流后第一次重试前等待的毫秒数, 之后每次翻倍
+         */
+        private long retryBackoff = 100L;
+    }
 }
@@ -0,0 +1,27 @@
+package plus.jdk.milvus.autoconfigure;
+
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import plus.jdk.milvus.global.MilvusClientService;
+import plus.jdk.milvus.global.ReactiveMilvusClientService;
+import reactor.core.publisher.Mono;
+
+/**
+ * classpath 中存在 reactor-core 时注册 {@link ReactiveMilvusClientService}
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass(Mono.class)
+@ConditionalOnBean(MilvusClientService.class)
+@AutoConfigureAfter(MilvusPlusAutoConfiguration.class)
+public class MilvusPlusReactiveAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ReactiveMilvusClientService reactiveMilvusClientService(MilvusClientService milvusClientService) {
+        return new ReactiveMilvusClientService(milvusClientService);
+    }
+}
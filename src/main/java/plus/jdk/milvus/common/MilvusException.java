@@ -1,16 +1,93 @@
 package plus.jdk.milvus.common;
 
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.milvus.exception.ServerException;
+import io.milvus.param.R;
+import lombok.Getter;
+
 public class MilvusException extends RuntimeException {
 
+    /**
+     * milvus 2.3 服务端状态码中的内存配额用尽、请求超过大小限制、磁盘配额用尽和限流, 见服务端 pkg/util/merr
+     */
+    private static final int SERVER_MEMORY_LIMIT_EXCEEDED = 3;
+
+    private static final int SERVER_REQUEST_LIMIT_EXCEEDED = 4;
+
+    private static final int SERVER_DISK_LIMIT_EXCEEDED = 7;
+
+    private static final int SERVER_RATE_LIMIT = 8;
+
+    /**
+     * sdk 返回的状态码, 见 {@link R.Status}, 不是由请求结果创建时为 null
+     */
+    @Getter
+    private final Integer status;
+
+    /**
+     * 服务端返回的状态码, 请求没有到达服务端或不是由请求结果创建时为 null
+     */
+    private final Integer serverStatus;
+
     public MilvusException(String message) {
-        super(message);
+        this(message, null, null, null);
     }
 
     public MilvusException(String message, Throwable t) {
-        super(message, t);
+        this(message, t, null, null);
     }
 
     public MilvusException(Throwable t) {
         super(t);
+        this.status = null;
+        this.serverStatus = null;
+    }
+
+    private MilvusException(String message, Throwable t, Integer status, Integer serverStatus) {
+        super(message, t);
+        this.status = status;
+        this.serverStatus = serverStatus;
+    }
+
+    /**
+     * 由失败的请求结果创建, 保留状态码、服务端状态码和 sdk 抛出的原始异常
+     *
+     * @param resultR 请求结果
+     * @return 异常
+     */
+    public static MilvusException of(R<?> resultR) {
+        Exception cause = resultR.getException();
+        String message = cause == null ? resultR.getMessage() : cause.getMessage();
+        Integer serverStatus = cause instanceof ServerException ? ((ServerException) cause).getStatus() : null;
+        return new MilvusException(message, cause, resultR.getStatus(), serverStatus);
+    }
+
+    /**
+     * @return 是否因为服务端限流或写入配额用尽被拒绝, 请求没有执行, 降低请求速率后可以重试
+     */
+    public boolean isRateLimited() {
+        return serverStatus != null && (serverStatus == SERVER_RATE_LIMIT
+                || serverStatus == SERVER_MEMORY_LIMIT_EXCEEDED || serverStatus == SERVER_DISK_LIMIT_EXCEEDED);
+    }
+
+    /**
+     * 服务端拒绝超过大小限制的请求, 或 gRPC 因为消息超过大小上限返回 {@link Status.Code#RESOURCE_EXHAUSTED};
+     * milvus 的限流通过响应中的状态码返回, 不会使用该 gRPC 状态
+     *
+     * @return 是否因为请求过大被拒绝, 请求没有执行, 拆分后可以重试
+     */
+    public boolean isRequestTooLarge() {
+        return serverStatus != null && serverStatus == SERVER_REQUEST_LIMIT_EXCEEDED
+                || grpcCode() == Status.Code.RESOURCE_EXHAUSTED;
+    }
+
+    private Status.Code grpcCode() {
+        for (Throwable t = getCause(); t != null; t = t.getCause()) {
+            if (t instanceof StatusRuntimeException) {
+                return ((StatusRuntimeException) t).getStatus().getCode();
+            }
+        }
+        return null;
     }
 }
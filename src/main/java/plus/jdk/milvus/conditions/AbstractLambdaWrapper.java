@@ -35,6 +35,10 @@ public abstract class AbstractLambdaWrapper<T extends VectorModel<? extends Vect
      * @throws MilvusException 获取不到列信息时抛出异常
      */
     protected ColumnCache getColumnCache(SFunction<T, ?> column) {
+        ColumnCache cache = LambdaUtils.getColumn(column, getEntityClass());
+        if (cache != null) {
+            return cache;
+        }
         LambdaMeta meta = LambdaUtils.extract(column);
         String fieldName = PropertyNamer.methodToProperty(meta.getImplMethodName());
         Class<?> instantiatedClass = meta.getInstantiatedClass();
@@ -264,7 +264,7 @@ public abstract class AbstractWrapper<T extends VectorModel<? extends VectorMode
      */
     protected C likeValue(boolean condition, ExprKeyword keyword, R column, Object val, ExprLike exprLike) {
         return maybeDo(condition, () -> appendExprSegments(columnToExprSegment(column), keyword,
-                () -> ExprUtils.concatLike(val, exprLike)));
+                () -> formatParam(ExprUtils.concatLike(val, exprLike))));
     }
 
     /**
@@ -46,9 +46,10 @@ public class GlobalConfig implements Serializable {
     @Data
     public static class MilvusConfig {
         /**
-         * 主键类型
+         * 主键类型, 默认由 milvus 生成主键(autoID); 设置为 {@link IdType#ASSIGN_ID}、{@link IdType#ASSIGN_UUID}
+         * 时在写入前由客户端生成, 只对新建的 collection 生效, 已经以 autoID 创建的 collection 不能改为由客户端生成主键
          */
-        private IdType idType = IdType.ASSIGN_ID;
+        private IdType idType = IdType.AUTO;
         /**
          * 表名前缀
          */
@@ -0,0 +1,145 @@
+package plus.jdk.milvus.global;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import plus.jdk.milvus.autoconfigure.MilvusPlusProperties;
+import plus.jdk.milvus.common.MilvusException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按 AIMD(加性增、乘性减)方式调整某个 collection 批量写入或删除的批次大小和并发数
+ * <p>请求耗时不超过目标耗时时, 批次用满的请求使批次大小增加 increment, 每次成功使并发数增加 1/并发数(约每轮增加 1);
+ * 被服务端限流时批次大小和并发数都乘以 decreaseFactor, 请求超过消息大小上限时只减小批次大小,
+ * 并且在 sizeLimitRecovery 内不再超过失败时的大小</p>
+ * <p>同时在途的多个请求一起被拒绝时只按一次处理: 距上次减小不到目标耗时的拒绝不再减小</p>
+ */
+@Slf4j
+public class AdaptiveBatchController {
+
+    @Getter
+    private final String operation;
+
+    @Getter
+    private final String collection;
+
+    private final MilvusPlusProperties.AdaptiveBatch config;
+
+    private final long targetNanos;
+
+    private final int maxConcurrency;
+
+    private final int maxSize;
+
+    private final long sizeLimitRecoveryNanos;
+
+    /**
+     * 批次大小上限, 请求过大时降低, 经过 sizeLimitRecovery 后恢复为 maxSize
+     */
+    private int sizeLimit;
+
+    private long sizeLimitLoweredNanos;
+
+    @Getter
+    private volatile int batchSize;
+
+    @Getter
+    private volatile int concurrency;
+
+    /**
+     * 带小数部分的并发数, 用于加性增加
+     */
+    private double concurrencyWindow = 1;
+
+    /**
+     * 被拒绝后减小的次数
+     */
+    @Getter
+    private volatile long decreaseCount;
+
+    private long lastDecreaseNanos;
+
+    public AdaptiveBatchController(String operation, String collection, MilvusPlusProperties.AdaptiveBatch config,
+                                   int maxSize, int maxConcurrency) {
+        this.operation = operation;
+        this.collection = collection;
+        this.config = config;
+        this.targetNanos = TimeUnit.MILLISECONDS.toNanos(config.getTargetLatency());
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.maxSize = Math.max(1, maxSize);
+        this.sizeLimitRecoveryNanos = TimeUnit.MILLISECONDS.toNanos(config.getSizeLimitRecovery());
+        this.sizeLimit = this.maxSize;
+        this.batchSize = clamp(config.getInitialSize());
+        this.concurrency = 1;
+        this.lastDecreaseNanos = System.nanoTime() - targetNanos;
+    }
+
+    /**
+     * @param size         请求的行数
+     * @param latencyNanos 请求耗时
+     */
+    public synchronized void onSuccess(int size, long latencyNanos) {
+        if (latencyNanos > targetNanos) {
+            return;
+        }
+        if (sizeLimit < maxSize && System.nanoTime() - sizeLimitLoweredNanos >= sizeLimitRecoveryNanos) {
+            sizeLimit = maxSize;
+        }
+        if (size >= batchSize) {
+            batchSize = clamp(batchSize + config.getIncrement());
+        }
+        concurrencyWindow = Math.min(maxConcurrency, concurrencyWindow + 1.0 / concurrencyWindow);
+        concurrency = (int) concurrencyWindow;
+    }
+
+    /**
+     * @param size  请求的行数
+     * @param error 请求失败的原因
+     * @return 是否为限流或请求过大, 这类请求没有被执行, 可以拆分或等待后重试
+     */
+    public synchronized boolean onRejected(int size, Throwable error) {
+        MilvusException exception = unwrap(error);
+        if (exception == null) {
+            return false;
+        }
+        boolean tooLarge = exception.isRequestTooLarge();
+        if (!tooLarge && !exception.isRateLimited()) {
+            return false;
+        }
+        long now = System.nanoTime();
+        if (tooLarge) {
+            sizeLimit = Math.max(config.getMinSize(), Math.min(sizeLimit, size - 1));
+            sizeLimitLoweredNanos = now;
+        }
+        if (now - lastDecreaseNanos < targetNanos) {
+            batchSize = clamp(batchSize);
+            return true;
+        }
+        lastDecreaseNanos = now;
+        batchSize = clamp((int) (Math.min(batchSize, size) * config.getDecreaseFactor()));
+        if (!tooLarge) {
+            concurrencyWindow = Math.max(1, concurrencyWindow * config.getDecreaseFactor());
+            concurrency = (int) concurrencyWindow;
+        }
+        decreaseCount++;
+        log.info("{} on collection '{}' was {}, batch size decreased to {} and concurrency to {}", operation, collection,
+                tooLarge ? "too large" : "rate limited", batchSize, concurrency);
+        return true;
+    }
+
+    private int clamp(int size) {
+        return Math.max(Math.min(config.getMinSize(), sizeLimit), Math.min(sizeLimit, size));
+    }
+
+    /**
+     * @return 异常链中的 {@link MilvusException}, 没有时为 null
+     */
+    static MilvusException unwrap(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof MilvusException) {
+                return (MilvusException) t;
+            }
+        }
+        return null;
+    }
+}
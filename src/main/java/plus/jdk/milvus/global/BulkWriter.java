@@ -0,0 +1,428 @@
+package plus.jdk.milvus.global;
+
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import plus.jdk.milvus.autoconfigure.MilvusPlusProperties;
+import plus.jdk.milvus.common.MilvusException;
+import plus.jdk.milvus.global.metrics.OperationSample;
+import plus.jdk.milvus.metadata.CollectionDefinition;
+import plus.jdk.milvus.metadata.ColumnDefinition;
+import plus.jdk.milvus.metadata.EntityMapper;
+import plus.jdk.milvus.record.VectorModel;
+import plus.jdk.milvus.toolkit.PayloadSizeUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 批量导入数据
+ * <p>调用线程按 {@link MilvusPlusProperties#getBatchMaxRows()} 和 {@link MilvusPlusProperties#getBatchMaxBytes()}
+ * 将数据切分为多批, 每批在异步线程池中按列组装后以异步请求写入, 最多同时进行 maxInFlight 个请求,
+ * 达到上限时调用线程等待, 内存中最多保留 maxInFlight + 1 批数据. 重试前的等待由定时任务完成, 不占用线程池中的线程</p>
+ * <p>主键由客户端指定时失败的批次会使用 upsert 重试, 部分写入的批次重试后不会产生重复的行;
+ * 主键由服务端生成时只重试被限流或请求过大等没有被执行的批次. 重试后仍失败的批次记录在 {@link Result#getFailures()} 中,
+ * 不影响其余批次</p>
+ * <p>开启自动调整批次大小时, 批次大小和同时进行的请求数由 {@link AdaptiveBatchController} 决定, 上述配置作为上限;
+ * 请求过大的批次改为同步写入, 按控制器拆分</p>
+ *
+ * @param <T> 实体类型
+ */
+@Slf4j
+public class BulkWriter<T extends VectorModel<?>> {
+
+    private final MilvusClientService milvusClientService;
+
+    private final CollectionDefinition collectionDefinition;
+
+    private final long maxBytes;
+
+    private int maxRows;
+
+    private int maxInFlight;
+
+    private int maxRetries;
+
+    private long retryBackoff;
+
+    private Consumer<ChunkResult<T>> listener;
+
+    BulkWriter(MilvusClientService milvusClientService, CollectionDefinition collectionDefinition, MilvusPlusProperties properties) {
+        this.milvusClientService = milvusClientService;
+        this.collectionDefinition = collectionDefinition;
+        this.maxBytes = properties.getBatchMaxBytes();
+        this.maxRows = properties.getBatchMaxRows();
+        this.maxInFlight = properties.getBulkWrite().getMaxInFlight();
+        this.maxRetries = properties.getBulkWrite().getMaxRetries();
+        this.retryBackoff = properties.getBulkWrite().getRetryBackoff();
+    }
+
+    /**
+     * @param maxRows 每批最多多少行
+     */
+    public BulkWriter<T> maxRows(int maxRows) {
+        this.maxRows = maxRows;
+        return this;
+    }
+
+    /**
+     * @param maxInFlight 最多同时进行的写入请求数
+     */
+    public BulkWriter<T> maxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    /**
+     * @param maxRetries 每批数据失败后最多重试多少次
+     */
+    public BulkWriter<T> maxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+        return this;
+    }
+
+    /**
+     * @param retryBackoff 第一次重试前等待的毫秒数, 之后每次翻倍
+     */
+    public BulkWriter<T> retryBackoff(long retryBackoff) {
+        this.retryBackoff = retryBackoff;
+        return this;
+    }
+
+    /**
+     * @param listener 每批数据完成(成功或最终失败)后在完成写入的线程(异步线程池或阻塞调用线程池)中回调, 不应长时间阻塞
+     */
+    public BulkWriter<T> listener(Consumer<ChunkResult<T>> listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    public Result<T> write(Stream<? extends T> source) throws MilvusException {
+        return write(source.iterator());
+    }
+
+    /**
+     * 写入所有数据, 所有批次完成后返回
+     *
+     * @param source 数据, 在调用线程中遍历
+     * @return 写入结果
+     * @throws MilvusException 等待时被中断
+     */
+    public Result<T> write(Iterator<? extends T> source) throws MilvusException {
+        if (maxInFlight < 1 || maxRows < 1) {
+            throw new MilvusException("maxInFlight and maxRows must be greater than 0");
+        }
+        Run run = new Run();
+        List<T> chunk = new ArrayList<>();
+        long chunkBytes = 0;
+        try {
+            while (source.hasNext()) {
+                T vectorModel = source.next();
+                long bytes = estimate(vectorModel);
+                int rowLimit = run.controller == null ? maxRows : Math.min(maxRows, run.controller.getBatchSize());
+                if (!chunk.isEmpty() && (chunk.size() >= rowLimit || chunkBytes + bytes > maxBytes)) {
+                    run.submit(chunk);
+                    chunk = new ArrayList<>();
+                    chunkBytes = 0;
+                }
+                chunk.add(vectorModel);
+                chunkBytes += bytes;
+            }
+            if (!chunk.isEmpty()) {
+                run.submit(chunk);
+            }
+            run.awaitAll();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MilvusException("interrupted while bulk writing into " + collectionDefinition.getName(), e);
+        }
+        return new Result<>(run.chunks, run.writtenRows.get(), run.failedRows.get(), System.nanoTime() - run.startNanos,
+                new ArrayList<>(run.failures));
+    }
+
+    private long estimate(T vectorModel) {
+        EntityMapper<?> entityMapper = collectionDefinition.getEntityMapper();
+        long bytes = 0;
+        for (int i = 0; i < collectionDefinition.getColumns().size(); i++) {
+            bytes += PayloadSizeUtils.estimate(entityMapper.getValue(vectorModel, i));
+        }
+        return bytes;
+    }
+
+    /**
+     * 一次 {@link #write(Iterator)} 的状态
+     */
+    private class Run {
+
+        private final long startNanos = System.nanoTime();
+
+        private final Executor executor = milvusClientService.getAsyncExecutor();
+
+        /**
+         * 未开启自动调整批次大小时为 null
+         */
+        private final AdaptiveBatchController controller = milvusClientService.batchController(OperationSample.INSERT, collectionDefinition);
+
+        /**
+         * 主键是否由客户端指定, 此时任何失败都可以使用 upsert 重试
+         */
+        private final boolean retryable;
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final Condition inFlightChanged = lock.newCondition();
+
+        private int inFlight;
+
+        private final AtomicLong writtenRows = new AtomicLong();
+
+        private final AtomicLong failedRows = new AtomicLong();
+
+        private final ConcurrentLinkedQueue<ChunkResult<T>> failures = new ConcurrentLinkedQueue<>();
+
+        private int chunks;
+
+        private Run() {
+            ColumnDefinition primaryColumn = collectionDefinition.getPrimaryColumn();
+            this.retryable = primaryColumn != null && !primaryColumn.autoId();
+        }
+
+        private void submit(List<T> vectorModels) throws InterruptedException {
+            lock.lock();
+            try {
+                while (inFlight >= (controller == null ? maxInFlight : Math.min(maxInFlight, controller.getConcurrency()))) {
+                    inFlightChanged.await();
+                }
+                inFlight++;
+            } finally {
+                lock.unlock();
+            }
+            send(new Chunk(chunks++, vectorModels));
+        }
+
+        private void awaitAll() throws InterruptedException {
+            lock.lock();
+            try {
+                while (inFlight > 0) {
+                    inFlightChanged.await();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void send(Chunk chunk) {
+            chunk.attempts++;
+            chunk.attemptStartNanos = System.nanoTime();
+            // 重试时部分数据可能已经写入, 使用 upsert 覆盖
+            boolean upsert = chunk.attempts > 1 && retryable;
+            try {
+                CompletableFuture
+                        .supplyAsync(() -> milvusClientService.writeAsync(collectionDefinition, chunk.vectorModels, upsert), executor)
+                        .thenCompose(future -> future)
+                        .whenComplete((result, error) -> onComplete(chunk, error));
+            } catch (Exception e) {
+                onComplete(chunk, e);
+            }
+        }
+
+        private void onComplete(Chunk chunk, Throwable error) {
+            int rows = chunk.vectorModels.size();
+            boolean rejected = false;
+            if (controller != null) {
+                if (error == null) {
+                    controller.onSuccess(rows, System.nanoTime() - chunk.attemptStartNanos);
+                } else {
+                    rejected = controller.onRejected(rows, error);
+                }
+            }
+            if (rejected && chunk.attempts <= maxRetries && AdaptiveBatchController.unwrap(error).isRequestTooLarge()) {
+                writeSplit(chunk);
+                return;
+            }
+            if (error != null && (retryable || rejected) && chunk.attempts <= maxRetries) {
+                long backoff = retryBackoff << (chunk.attempts - 1);
+                log.warn("bulk write of chunk {} ({} rows) into '{}' failed, retry in {} ms", chunk.index,
+                        chunk.vectorModels.size(), collectionDefinition.getName(), backoff, error);
+                // 定时发起重试, 等待期间不占用线程; send 只提交异步任务, 不会阻塞定时线程
+                try {
+                    milvusClientService.getScheduler().schedule(() -> send(chunk), backoff, TimeUnit.MILLISECONDS);
+                } catch (Exception e) {
+                    finish(chunk, e);
+                }
+                return;
+            }
+            finish(chunk, error);
+        }
+
+        /**
+         * 请求过大的批次在阻塞调用线程池中同步写入, 由 {@link MilvusClientService#insertBatch(List)} 按控制器拆分
+         */
+        private void writeSplit(Chunk chunk) {
+            chunk.attempts++;
+            try {
+                milvusClientService.getBlockingExecutor().execute(() -> {
+                    try {
+                        if (retryable) {
+                            milvusClientService.upsertBatch(chunk.vectorModels);
+                        } else {
+                            milvusClientService.insertBatch(chunk.vectorModels);
+                        }
+                        finish(chunk, null);
+                    } catch (Exception e) {
+                        finish(chunk, e);
+                    }
+                });
+            } catch (Exception e) {
+                finish(chunk, e);
+            }
+        }
+
+        private void finish(Chunk chunk, Throwable error) {
+            try {
+                int rows = chunk.vectorModels.size();
+                ChunkResult<T> result = new ChunkResult<>(chunk.index, rows, chunk.attempts, System.nanoTime() - chunk.startNanos,
+                        error, error == null ? Collections.emptyList() : chunk.vectorModels);
+                if (error == null) {
+                    writtenRows.addAndGet(rows);
+                } else {
+                    log.error("bulk write of chunk {} ({} rows) into '{}' failed after {} attempts", chunk.index, rows,
+                            collectionDefinition.getName(), chunk.attempts, error);
+                    failedRows.addAndGet(rows);
+                    failures.add(result);
+                }
+                if (listener != null) {
+                    listener.accept(result);
+                }
+            } catch (Exception e) {
+                log.warn("bulk write listener failed", e);
+            } finally {
+                lock.lock();
+                try {
+                    inFlight--;
+                    inFlightChanged.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    private class Chunk {
+
+        private final int index;
+
+        private final List<T> vectorModels;
+
+        private final long startNanos = System.nanoTime();
+
+        private int attempts;
+
+        private long attemptStartNanos;
+
+        private Chunk(int index, List<T> vectorModels) {
+            this.index = index;
+            this.vectorModels = vectorModels;
+        }
+    }
+
+    /**
+     * 一批数据的写入结果
+     */
+    @Getter
+    @ToString
+    public static class ChunkResult<T> {
+
+        /**
+         * 批次序号, 从 0 开始
+         */
+        private final int index;
+
+        private final int rows;
+
+        /**
+         * 请求次数, 包括重试
+         */
+        private final int attempts;
+
+        /**
+         * 从第一次请求到完成的耗时
+         */
+        private final long nanos;
+
+        /**
+         * 最后一次失败的原因, 成功时为 null
+         */
+        private final Throwable error;
+
+        /**
+         * 失败时为该批数据, 可以用于重新写入; 成功时为空
+         */
+        @ToString.Exclude
+        private final List<T> vectorModels;
+
+        private ChunkResult(int index, int rows, int attempts, long nanos, Throwable error, List<T> vectorModels) {
+            this.index = index;
+            this.rows = rows;
+            this.attempts = attempts;
+            this.nanos = nanos;
+            this.error = error;
+            this.vectorModels = vectorModels;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    /**
+     * 一次 {@link #write(Iterator)} 的结果
+     */
+    @Getter
+    @ToString
+    public static class Result<T> {
+
+        private final int chunks;
+
+        private final long writtenRows;
+
+        private final long failedRows;
+
+        private final long elapsedNanos;
+
+        /**
+         * 最终失败的批次
+         */
+        private final List<ChunkResult<T>> failures;
+
+        private Result(int chunks, long writtenRows, long failedRows, long elapsedNanos, List<ChunkResult<T>> failures) {
+            this.chunks = chunks;
+            this.writtenRows = writtenRows;
+            this.failedRows = failedRows;
+            this.elapsedNanos = elapsedNanos;
+            this.failures = failures;
+        }
+
+        public boolean isSuccess() {
+            return failures.isEmpty();
+        }
+
+        /**
+         * @return 每秒成功写入的行数
+         */
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : writtenRows * 1e9 / elapsedNanos;
+        }
+    }
+}
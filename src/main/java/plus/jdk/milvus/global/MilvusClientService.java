@@ -1,7 +1,11 @@
 package plus.jdk.milvus.global;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.gson.Gson;
 import io.milvus.client.MilvusServiceClient;
+import io.milvus.common.clientenum.ConsistencyLevelEnum;
 import io.milvus.grpc.*;
 import io.milvus.param.R;
 import io.milvus.param.RpcStatus;
@@ -10,47 +14,368 @@ import io.milvus.param.dml.DeleteParam;
 import io.milvus.param.dml.InsertParam;
 import io.milvus.param.dml.QueryParam;
 import io.milvus.param.dml.SearchParam;
+import io.milvus.param.dml.UpsertParam;
 import io.milvus.param.index.CreateIndexParam;
 import io.milvus.param.index.DropIndexParam;
-import io.milvus.response.QueryResultsWrapper;
-import io.milvus.response.SearchResultsWrapper;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.util.ReflectionUtils;
+import org.springframework.beans.factory.DisposableBean;
 import plus.jdk.milvus.annotation.VectorCollectionColumn;
+import plus.jdk.milvus.autoconfigure.MilvusPlusProperties;
 import plus.jdk.milvus.common.MilvusException;
 import plus.jdk.milvus.common.PropertyNamer;
 import plus.jdk.milvus.conditions.query.QueryWrapper;
+import plus.jdk.milvus.enums.IdType;
+import plus.jdk.milvus.global.cache.LocalResultCache;
+import plus.jdk.milvus.global.cache.ResultCache;
+import plus.jdk.milvus.global.metrics.MilvusMetrics;
+import plus.jdk.milvus.global.metrics.OperationSample;
+import plus.jdk.milvus.global.metrics.SlowOperationLogger;
+import plus.jdk.milvus.incrementer.IdentifierGenerator;
 import plus.jdk.milvus.metadata.CollectionDefinition;
 import plus.jdk.milvus.metadata.CollectionHelper;
 import plus.jdk.milvus.metadata.ColumnDefinition;
+import plus.jdk.milvus.metadata.EntityMapper;
 import plus.jdk.milvus.model.IIndexExtra;
 import plus.jdk.milvus.model.Page;
 import plus.jdk.milvus.record.VectorModel;
 import plus.jdk.milvus.toolkit.CollectionUtils;
+import plus.jdk.milvus.toolkit.GlobalConfigUtils;
 import plus.jdk.milvus.toolkit.LambdaUtils;
+import plus.jdk.milvus.toolkit.PayloadSizeUtils;
+import plus.jdk.milvus.toolkit.VectorUtils;
+import plus.jdk.milvus.toolkit.support.ColumnCache;
 import plus.jdk.milvus.toolkit.support.LambdaMeta;
 import plus.jdk.milvus.toolkit.support.SFunction;
 import plus.jdk.milvus.wrapper.LambdaQueryWrapper;
 import plus.jdk.milvus.wrapper.LambdaSearchWrapper;
 
 import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Slf4j
-public class MilvusClientService {
+public class MilvusClientService implements DisposableBean {
 
 
     private final MilvusServiceClient milvusClient;
 
+    private final MilvusPlusProperties properties;
+
     private final Gson gson = new Gson();
 
+    /**
+     * 合并并发检索, 未开启时为 null
+     */
+    private final SearchCoalescer searchCoalescer;
+
+    /**
+     * 异步方法解析结果使用的线程池, 未设置时按 {@link MilvusPlusProperties#getAsyncThreads()} 创建
+     */
+    private volatile Executor asyncExecutor;
+
+    /**
+     * 执行阻塞的 sdk 调用(removeByIds 的并行删除、removeAsync 等)使用的线程池,
+     * 与异步线程池分开, 避免阻塞调用占满异步方法解析结果的线程; 未设置时按 {@link MilvusPlusProperties#getBlockingThreads()} 创建
+     */
+    private volatile Executor blockingExecutor;
+
+    /**
+     * 延迟执行重试等任务, 不占用线程等待, 第一次使用时创建
+     */
+    private volatile ScheduledExecutorService scheduler;
+
+    /**
+     * 由本类创建的线程池, 销毁时关闭; 通过 setter 设置的线程池由调用方管理
+     */
+    private final List<ExecutorService> ownedExecutors = new ArrayList<>();
+
+    /**
+     * search/query 结果缓存, 未开启时为 null
+     */
+    private ResultCache resultCache;
+
+    /**
+     * 操作指标, 默认不记录
+     */
+    private volatile MilvusMetrics metrics = MilvusMetrics.NOOP;
+
+    /**
+     * 慢操作日志, 未开启时为 null
+     */
+    private final SlowOperationLogger slowOperationLogger;
+
+    /**
+     * 每个 collection 写入和删除的批次大小控制器, key 为 {@code 操作:collection}
+     */
+    private final Map<String, AdaptiveBatchController> batchControllers = new ConcurrentHashMap<>();
+
     public MilvusClientService(MilvusServiceClient milvusClient) {
+        this(milvusClient, new MilvusPlusProperties());
+    }
+
+    public MilvusClientService(MilvusServiceClient milvusClient, MilvusPlusProperties properties) {
         this.milvusClient = milvusClient;
+        this.properties = properties;
+        MilvusPlusProperties.SearchCoalesce searchCoalesce = properties.getSearchCoalesce();
+        this.searchCoalescer = searchCoalesce.isEnabled()
+                ? new SearchCoalescer(searchCoalesce.getWindowMicros(), searchCoalesce.getMaxBatch()) : null;
+        MilvusPlusProperties.Cache cache = properties.getCache();
+        this.resultCache = cache.isEnabled() ? new LocalResultCache(cache.getMaxSize(), cache.getTtl()) : null;
+        this.slowOperationLogger = properties.getSlowLog().isEnabled() ? new SlowOperationLogger(properties.getSlowLog()) : null;
+    }
+
+    /**
+     * 设置 search/query 结果缓存, 为 null 时关闭缓存
+     *
+     * @param resultCache 结果缓存
+     */
+    public void setResultCache(ResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * 设置操作指标的记录方式, 为 null 时不记录
+     *
+     * @param metrics 指标记录
+     */
+    public void setMetrics(MilvusMetrics metrics) {
+        this.metrics = metrics == null ? MilvusMetrics.NOOP : metrics;
+    }
+
+    public MilvusMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 执行一次操作并记录指标, 操作中的 rpc 需要通过 {@link OperationSample#rpc} 执行以单独统计耗时
+     */
+    private <V> V measure(OperationSample sample, Supplier<V> operation) {
+        V value;
+        try {
+            value = operation.get();
+        } catch (RuntimeException | Error e) {
+            record(sample, e);
+            throw e;
+        }
+        record(sample, null);
+        return value;
+    }
+
+    private void record(OperationSample sample, Throwable error) {
+        try {
+            metrics.record(sample.finish(error));
+            if (slowOperationLogger != null) {
+                slowOperationLogger.log(sample);
+            }
+        } catch (Exception e) {
+            log.warn("record milvus metrics failed, {}", sample, e);
+        }
+    }
+
+    /**
+     * @param operation            {@link OperationSample#INSERT} 或 {@link OperationSample#DELETE}, upsert 与 insert 共用
+     * @param collectionDefinition collection 信息
+     * @return 控制器, 未开启自动调整批次大小时为 null
+     */
+    AdaptiveBatchController batchController(String operation, CollectionDefinition collectionDefinition) {
+        MilvusPlusProperties.AdaptiveBatch adaptiveBatch = properties.getAdaptiveBatch();
+        if (!adaptiveBatch.isEnabled()) {
+            return null;
+        }
+        return batchControllers.computeIfAbsent(operation + ':' + collectionDefinition.getName(), key -> {
+            boolean delete = OperationSample.DELETE.equals(operation);
+            AdaptiveBatchController controller = new AdaptiveBatchController(operation, collectionDefinition.getName(), adaptiveBatch,
+                    delete ? properties.getRemoveBatch().getMaxKeys() : properties.getBatchMaxRows(),
+                    delete ? properties.getRemoveBatch().getParallelism() : properties.getBulkWrite().getMaxInFlight());
+            try {
+                metrics.bind(controller);
+            } catch (Exception e) {
+                log.warn("bind adaptive batch metrics of '{}' failed", key, e);
+            }
+            return controller;
+        });
+    }
+
+    /**
+     * 被限流的请求重试前等待, 每次翻倍
+     */
+    private void backoff(int attempt, MilvusException e) throws MilvusException {
+        try {
+            TimeUnit.MILLISECONDS.sleep(properties.getAdaptiveBatch().getRetryBackoff() << (attempt - 1));
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    private void invalidateCache(CollectionDefinition collectionDefinition) {
+        if (resultCache != null) {
+            resultCache.invalidate(collectionDefinition.getName());
+        }
+    }
+
+    /**
+     * 设置异步方法使用的线程池
+     *
+     * @param asyncExecutor 线程池
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    Executor getAsyncExecutor() {
+        if (asyncExecutor != null) {
+            return asyncExecutor;
+        }
+        synchronized (this) {
+            if (asyncExecutor == null) {
+                asyncExecutor = own(newDaemonPool(properties.getAsyncThreads(), "milvus-async-"));
+            }
+            return asyncExecutor;
+        }
+    }
+
+    /**
+     * 设置执行阻塞的 sdk 调用使用的线程池
+     *
+     * @param blockingExecutor 线程池
+     */
+    public void setBlockingExecutor(Executor blockingExecutor) {
+        this.blockingExecutor = blockingExecutor;
+    }
+
+    Executor getBlockingExecutor() {
+        if (blockingExecutor != null) {
+            return blockingExecutor;
+        }
+        synchronized (this) {
+            if (blockingExecutor == null) {
+                blockingExecutor = own(newDaemonPool(properties.getBlockingThreads(), "milvus-blocking-"));
+            }
+            return blockingExecutor;
+        }
+    }
+
+    /**
+     * @return 单线程的定时任务线程池, 任务本身不能阻塞
+     */
+    ScheduledExecutorService getScheduler() {
+        if (scheduler != null) {
+            return scheduler;
+        }
+        synchronized (this) {
+            if (scheduler == null) {
+                ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                    Thread thread = new Thread(runnable, "milvus-scheduler");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                executor.setRemoveOnCancelPolicy(true);
+                scheduler = own(executor);
+            }
+            return scheduler;
+        }
+    }
+
+    private <E extends ExecutorService> E own(E executor) {
+        ownedExecutors.add(executor);
+        return executor;
+    }
+
+    /**
+     * 关闭本类创建的线程池, 已提交的任务继续执行完, 之后提交的任务会被拒绝
+     */
+    @Override
+    public synchronized void destroy() {
+        for (ExecutorService executor : ownedExecutors) {
+            executor.shutdown();
+        }
+        ownedExecutors.clear();
+    }
+
+    private static ExecutorService newDaemonPool(Integer threads, String namePrefix) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, threads == null ? 1 : threads), runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 将 sdk 返回的 {@link ListenableFuture} 转换为 {@link CompletableFuture}, 结果在异步线程池中解析
+     * <p>取消返回的 future 时会同时取消底层的 gRPC 请求; 从发起请求到收到响应的时间计为 rpc 耗时</p>
+     */
+    private <D, V> CompletableFuture<V> toCompletableFuture(OperationSample sample, Supplier<ListenableFuture<R<D>>> call,
+                                                            Function<D, V> mapper) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        future.whenComplete((value, e) -> record(sample, e));
+        long rpcStart = System.nanoTime();
+        ListenableFuture<R<D>> listenableFuture;
+        try {
+            listenableFuture = call.get();
+        } catch (Exception e) {
+            sample.addRpcNanos(System.nanoTime() - rpcStart);
+            future.completeExceptionally(e);
+            return future;
+        }
+        future.whenComplete((value, e) -> {
+            if (future.isCancelled()) {
+                listenableFuture.cancel(true);
+            }
+        });
+        Futures.addCallback(listenableFuture, new FutureCallback<R<D>>() {
+            @Override
+            public void onSuccess(R<D> resultR) {
+                sample.addRpcNanos(System.nanoTime() - rpcStart);
+                try {
+                    if (resultR.getStatus() != R.Status.Success.getCode() || resultR.getException() != null) {
+                        future.completeExceptionally(MilvusException.of(resultR));
+                        return;
+                    }
+                    future.complete(mapper.apply(resultR.getData()));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                sample.addRpcNanos(System.nanoTime() - rpcStart);
+                future.completeExceptionally(e instanceof MilvusException ? e : new MilvusException(e.getMessage(), e));
+            }
+        }, getAsyncExecutor());
+        return future;
     }
 
     public String getColumnName(SFunction<?, ?> column, Class<?> clazz) throws MilvusException {
+        ColumnCache columnCache = LambdaUtils.getColumn(column, clazz);
+        if (columnCache != null) {
+            return columnCache.getColumn();
+        }
         LambdaMeta lambdaMeta = LambdaUtils.extract(column);
         String attributeName = PropertyNamer.methodToProperty(lambdaMeta.getImplMethodName());
         Field field;
@@ -74,15 +399,168 @@ public class MilvusClientService {
     }
 
     private boolean remove(CollectionDefinition collection, String expression) {
+        try {
+            delete(collection, expression);
+        } finally {
+            invalidateCache(collection);
+        }
+        return true;
+    }
+
+    /**
+     * @return 删除的行数
+     */
+    private long delete(CollectionDefinition collection, String expression) throws MilvusException {
         if (StringUtils.isEmpty(expression)) {
             throw new MilvusException("expression is null");
         }
-        DeleteParam.Builder builder = DeleteParam.newBuilder().withCollectionName(collection.getName()).withExpr(expression);
-        R<MutationResult> resultR = milvusClient.delete(builder.build());
-        if (resultR.getStatus() != R.Status.Success.getCode() || resultR.getException() != null) {
-            throw new MilvusException(resultR.getException().getMessage());
+        OperationSample sample = new OperationSample(OperationSample.DELETE, collection.getName()).expression(expression);
+        return measure(sample, () -> {
+            DeleteParam.Builder builder = DeleteParam.newBuilder().withCollectionName(collection.getName()).withExpr(expression);
+            R<MutationResult> resultR = sample.rpc(() -> milvusClient.delete(builder.build()));
+            if (resultR.getStatus() != R.Status.Success.getCode() || resultR.getException() != null) {
+                throw MilvusException.of(resultR);
+            }
+            long deleteCount = resultR.getData() == null ? 0L : resultR.getData().getDeleteCnt();
+            sample.rows(deleteCount);
+            return deleteCount;
+        });
+    }
+
+    /**
+     * 按主键批量删除
+     * <p>主键按 {@link MilvusPlusProperties.RemoveBatch} 中的主键个数和表达式长度切分为多次 {@code pk in [...]} 删除,
+     * 最多同时发送 parallelism 个请求; 调用线程也会参与发送, 其余请求在阻塞调用线程池中发送.
+     * 线程池繁忙时由调用线程发送剩余的请求.
+     * 开启自动调整批次大小时主键个数和并发数由 {@link AdaptiveBatchController} 决定</p>
+     * <p>某一次删除失败后不再发送剩余的请求, 已发送的请求不会回滚</p>
+     *
+     * @param pks   主键
+     * @param clazz 实体类型
+     * @param <T>   实体类型
+     * @return 删除的行数
+     * @throws MilvusException 删除失败时抛出
+     */
+    public <T extends VectorModel<?>> long removeByIds(Collection<?> pks, Class<T> clazz) throws MilvusException {
+        if (CollectionUtils.isEmpty(pks)) {
+            return 0L;
         }
-        return true;
+        CollectionDefinition collection = CollectionHelper.getCollectionInfo(clazz);
+        ColumnDefinition primaryColumn = collection.getPrimaryColumn();
+        if (primaryColumn == null) {
+            throw new MilvusException(String.format("collection '%s' has no primary key", collection.getName()));
+        }
+        MilvusPlusProperties.RemoveBatch removeBatch = properties.getRemoveBatch();
+        AdaptiveBatchController controller = batchController(OperationSample.DELETE, collection);
+        int maxKeys = controller == null ? removeBatch.getMaxKeys() : Math.min(removeBatch.getMaxKeys(), controller.getBatchSize());
+        int parallelism = controller == null ? removeBatch.getParallelism() : Math.min(removeBatch.getParallelism(), controller.getConcurrency());
+        List<List<Object>> chunks = primaryKeyChunks(primaryColumn.getName(), pks, maxKeys, removeBatch.getMaxExprLength());
+        AtomicInteger nextChunk = new AtomicInteger();
+        AtomicLong deleteCount = new AtomicLong();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        // 调用线程先到达, 参与删除的异步线程在领取请求前注册, 全部结束后调用线程才返回
+        Phaser phaser = new Phaser(1);
+        Runnable worker = () -> {
+            int index;
+            while (failure.get() == null && (index = nextChunk.getAndIncrement()) < chunks.size()) {
+                try {
+                    deleteCount.addAndGet(deleteChunk(collection, primaryColumn.getName(), chunks.get(index), controller));
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        };
+        try {
+            int helpers = Math.min(parallelism, chunks.size()) - 1;
+            for (int i = 0; i < helpers; i++) {
+                getBlockingExecutor().execute(() -> {
+                    if (phaser.register() < 0) {
+                        return;
+                    }
+                    try {
+                        worker.run();
+                    } finally {
+                        phaser.arriveAndDeregister();
+                    }
+                });
+            }
+            worker.run();
+            phaser.arriveAndAwaitAdvance();
+        } finally {
+            invalidateCache(collection);
+        }
+        RuntimeException e = failure.get();
+        if (e != null) {
+            throw new MilvusException(String.format("remove by ids from '%s' failed after %d rows were deleted, %s",
+                    collection.getName(), deleteCount.get(), e.getMessage()), e);
+        }
+        return deleteCount.get();
+    }
+
+    /**
+     * 将主键切分为多批, 每批对应一个 {@code pk in [...]} 表达式
+     */
+    private static List<List<Object>> primaryKeyChunks(String columnName, Collection<?> pks, int maxKeys, int maxExprLength) {
+        List<List<Object>> chunks = new ArrayList<>();
+        List<Object> chunk = new ArrayList<>();
+        int length = columnName.length() + 8;
+        for (Object pk : pks) {
+            // 字符串主键需要加引号和逗号
+            int keyLength = String.valueOf(pk).length() + 3;
+            if (!chunk.isEmpty() && (chunk.size() >= maxKeys || length + keyLength > maxExprLength)) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                length = columnName.length() + 8;
+            }
+            chunk.add(pk);
+            length += keyLength;
+        }
+        chunks.add(chunk);
+        return chunks;
+    }
+
+    /**
+     * 删除一批主键, 开启自动调整批次大小时被限流的请求等待后重试, 请求过大时拆分为两半重试
+     */
+    private long deleteChunk(CollectionDefinition collection, String columnName, List<Object> pks,
+                             AdaptiveBatchController controller) throws MilvusException {
+        String expression = new QueryWrapper<>().in(columnName, pks).getExprSegment();
+        if (controller == null) {
+            return delete(collection, expression);
+        }
+        for (int attempt = 1; ; attempt++) {
+            long start = System.nanoTime();
+            try {
+                long deleteCount = delete(collection, expression);
+                controller.onSuccess(pks.size(), System.nanoTime() - start);
+                return deleteCount;
+            } catch (MilvusException e) {
+                if (!controller.onRejected(pks.size(), e) || attempt > properties.getAdaptiveBatch().getMaxRetries()) {
+                    throw e;
+                }
+                if (e.isRequestTooLarge()) {
+                    if (pks.size() <= 1) {
+                        throw e;
+                    }
+                    int middle = pks.size() / 2;
+                    return deleteChunk(collection, columnName, pks.subList(0, middle), controller)
+                            + deleteChunk(collection, columnName, pks.subList(middle, pks.size()), controller);
+                }
+                backoff(attempt, e);
+            }
+        }
+    }
+
+    /**
+     * 异步删除, sdk 没有提供异步删除接口, 在阻塞调用线程池中执行
+     *
+     * @param pk    主键
+     * @param clazz 实体类型
+     * @param <T>   实体类型
+     * @return 删除结果
+     */
+    public <T extends VectorModel<?>> CompletableFuture<Boolean> removeAsync(Object pk, Class<T> clazz) {
+        return CompletableFuture.supplyAsync(() -> remove(pk, clazz), getBlockingExecutor());
     }
 
     public <T extends VectorModel<?>> boolean batchRemove(LambdaQueryWrapper<T> wrapper) throws MilvusException {
@@ -93,50 +571,427 @@ public class MilvusClientService {
 
 
     public <T extends VectorModel<?>> Boolean insert(T vectorModel) throws MilvusException {
-        CollectionDefinition collectionDefinition = CollectionHelper.getCollectionInfo(vectorModel.getClass());
-        InsertParam.Builder builder = InsertParam.newBuilder();
-        List<InsertParam.Field> dataFields = new ArrayList<>();
-        for (ColumnDefinition columnDefinition : collectionDefinition.getColumns()) {
-            ReflectionUtils.makeAccessible(columnDefinition.getField());
-            String columnName = columnDefinition.getName();
-            Object value = ReflectionUtils.getField(columnDefinition.getField(), vectorModel);
-            if (value == null) {
+        return insertBatch(Collections.singletonList(vectorModel));
+    }
+
+    /**
+     * 异步写入, 写入成功后会将主键回填到实体中
+     *
+     * @param vectorModel 需要写入的实体
+     * @param <T>         实体类型
+     * @return 写入结果
+     */
+    public <T extends VectorModel<?>> CompletableFuture<Boolean> insertAsync(T vectorModel) {
+        CollectionDefinition collectionDefinition;
+        try {
+            collectionDefinition = CollectionHelper.getCollectionInfo(vectorModel.getClass());
+        } catch (Exception e) {
+            CompletableFuture<Boolean> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+        return writeAsync(collectionDefinition, Collections.singletonList(vectorModel), false);
+    }
+
+    /**
+     * 在当前线程组装数据, 以一次异步请求写入, 不按数据量切分
+     *
+     * @param collectionDefinition collection 信息
+     * @param vectorModels         需要写入的实体
+     * @param upsert               是否使用 upsert
+     * @param <T>                  实体类型
+     * @return 写入结果, 成功后主键已回填到实体中
+     */
+    <T extends VectorModel<?>> CompletableFuture<Boolean> writeAsync(CollectionDefinition collectionDefinition, List<T> vectorModels, boolean upsert) {
+        InsertParam insertParam;
+        OperationSample sample = new OperationSample(upsert ? OperationSample.UPSERT : OperationSample.INSERT, collectionDefinition.getName())
+                .rows(vectorModels.size());
+        try {
+            assignPrimaryKeys(collectionDefinition, vectorModels);
+            if (upsert) {
+                checkUpsertPrimaryKeys(collectionDefinition, vectorModels);
+            }
+            InsertColumns columns = buildInsertColumns(collectionDefinition, vectorModels);
+            sample.payloadBytes(Arrays.stream(columns.rowBytes).sum());
+            insertParam = buildInsertParam(collectionDefinition, columns, 0, vectorModels.size(), upsert);
+        } catch (Exception e) {
+            CompletableFuture<Boolean> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+        return toCompletableFuture(sample, () -> upsert
+                ? milvusClient.upsertAsync((UpsertParam) insertParam) : milvusClient.insertAsync(insertParam), mutationResult -> {
+            invalidateCache(collectionDefinition);
+            if (mutationResult != null) {
+                fillPrimaryKeys(collectionDefinition, vectorModels, mutationResult.getIDs());
+            }
+            return true;
+        });
+    }
+
+    /**
+     * 创建批量导入数据的 {@link BulkWriter}
+     *
+     * @param clazz 实体类型
+     * @param <T>   实体类型
+     * @return 使用全局配置的 BulkWriter, 可以在写入前修改
+     */
+    public <T extends VectorModel<?>> BulkWriter<T> bulkWriter(Class<T> clazz) {
+        return new BulkWriter<>(this, CollectionHelper.getCollectionInfo(clazz), properties);
+    }
+
+    /**
+     * 批量写入, 按列组装数据, 并按 {@link MilvusPlusProperties#getBatchMaxBytes()} 和
+     * {@link MilvusPlusProperties#getBatchMaxRows()} 切分为多次请求
+     * <p>写入成功后会将服务端返回的主键回填到每个实体中</p>
+     *
+     * @param vectorModels 需要写入的实体, 必须属于同一个 collection
+     * @param <T>          实体类型
+     * @return 是否成功
+     * @throws MilvusException 写入失败时抛出
+     */
+    public <T extends VectorModel<?>> boolean insertBatch(List<T> vectorModels) throws MilvusException {
+        return writeBatch(vectorModels, false, null);
+    }
+
+    /**
+     * 与 {@link #insertBatch(List)} 相同, 每次请求成功后以该请求写入的实体在 vectorModels 中的范围 [from, to) 回调,
+     * 请求按顺序发送; 失败时之前回调过的部分已经写入, 调用方只需要重试剩余的部分, 不会重复写入
+     *
+     * @param vectorModels   需要写入的实体, 必须属于同一个 collection
+     * @param onChunkWritten 参数为写入成功的起止位置
+     * @param <T>            实体类型
+     * @throws MilvusException 写入失败时抛出
+     */
+    <T extends VectorModel<?>> void insertBatch(List<T> vectorModels, BiConsumer<Integer, Integer> onChunkWritten) throws MilvusException {
+        writeBatch(vectorModels, false, onChunkWritten);
+    }
+
+    public <T extends VectorModel<?>> Boolean upsert(T vectorModel) throws MilvusException {
+        return upsertBatch(Collections.singletonList(vectorModel));
+    }
+
+    /**
+     * 批量插入或更新, 主键已存在的行会被整行替换, 一次请求内完成, 不会出现行暂时不存在的情况
+     * <p>与 {@link #insertBatch(List)} 使用相同的按列组装和切分逻辑; 主键必须由客户端指定,
+     * 未设置主键且主键生成方式为 {@link IdType#ASSIGN_ID} 或 {@link IdType#ASSIGN_UUID} 时会先生成主键</p>
+     *
+     * @param vectorModels 需要写入的实体, 必须属于同一个 collection
+     * @param <T>          实体类型
+     * @return 是否成功
+     * @throws MilvusException 主键由服务端生成或写入失败时抛出
+     */
+    public <T extends VectorModel<?>> boolean upsertBatch(List<T> vectorModels) throws MilvusException {
+        return writeBatch(vectorModels, true, null);
+    }
+
+    private <T extends VectorModel<?>> boolean writeBatch(List<T> vectorModels, boolean upsert,
+                                                          BiConsumer<Integer, Integer> onChunkWritten) throws MilvusException {
+        if (CollectionUtils.isEmpty(vectorModels)) {
+            return true;
+        }
+        CollectionDefinition collectionDefinition = CollectionHelper.getCollectionInfo(vectorModels.get(0).getClass());
+        String operation = upsert ? OperationSample.UPSERT : OperationSample.INSERT;
+        OperationSample sample = new OperationSample(operation, collectionDefinition.getName()).rows(vectorModels.size());
+        return measure(sample, () -> {
+            assignPrimaryKeys(collectionDefinition, vectorModels);
+            if (upsert) {
+                checkUpsertPrimaryKeys(collectionDefinition, vectorModels);
+            }
+            InsertColumns columns = buildInsertColumns(collectionDefinition, vectorModels);
+            sample.payloadBytes(Arrays.stream(columns.rowBytes).sum());
+            try {
+                sendChunks(sample, collectionDefinition, columns, vectorModels, upsert, onChunkWritten);
+            } finally {
+                invalidateCache(collectionDefinition);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * 写入已经按列组装好的数据, 与 {@link #insertBatch(List)} 使用相同的切分逻辑, 不回填主键
+     * <p>用于重新写入预写日志中的数据, 每一列的值都已经过类型处理器序列化并转换为 sdk 接受的类型</p>
+     *
+     * @param collectionDefinition collection 信息
+     * @param names                列名
+     * @param values               与列名对应的每一列的值, 行数相同
+     * @param upsert               是否使用 upsert
+     * @throws MilvusException 写入失败时抛出
+     */
+    void writeColumns(CollectionDefinition collectionDefinition, List<String> names, List<List<Object>> values, boolean upsert) throws MilvusException {
+        int rowCount = values.isEmpty() ? 0 : values.get(0).size();
+        if (rowCount == 0) {
+            return;
+        }
+        String operation = upsert ? OperationSample.UPSERT : OperationSample.INSERT;
+        OperationSample sample = new OperationSample(operation, collectionDefinition.getName()).rows(rowCount);
+        measure(sample, () -> {
+            InsertColumns columns = new InsertColumns(rowCount);
+            columns.names.addAll(names);
+            columns.values.addAll(values);
+            for (List<Object> column : values) {
+                for (int i = 0; i < rowCount; i++) {
+                    columns.rowBytes[i] += PayloadSizeUtils.estimate(column.get(i));
+                }
+            }
+            sample.payloadBytes(Arrays.stream(columns.rowBytes).sum());
+            try {
+                sendChunks(sample, collectionDefinition, columns, null, upsert, null);
+            } finally {
+                invalidateCache(collectionDefinition);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * 按 {@link MilvusPlusProperties#getBatchMaxBytes()} 和 {@link MilvusPlusProperties#getBatchMaxRows()} 切分后依次写入
+     *
+     * @param vectorModels   与每一行对应的实体, 用于回填主键, 为 null 时不回填
+     * @param onChunkWritten 每次请求成功后以写入的行的范围回调, 可以为 null
+     */
+    private <T extends VectorModel<?>> void sendChunks(OperationSample sample, CollectionDefinition collectionDefinition,
+                                                       InsertColumns columns, List<T> vectorModels, boolean upsert,
+                                                       BiConsumer<Integer, Integer> onChunkWritten) throws MilvusException {
+        AdaptiveBatchController controller = batchController(OperationSample.INSERT, collectionDefinition);
+        long maxBytes = properties.getBatchMaxBytes();
+        int maxRows = properties.getBatchMaxRows();
+        int rowCount = columns.rowBytes.length;
+        int from = 0;
+        long chunkBytes = 0;
+        for (int i = 0; i < rowCount; i++) {
+            long rowBytes = columns.rowBytes[i];
+            int rowLimit = controller == null ? maxRows : Math.min(maxRows, controller.getBatchSize());
+            if (i > from && (chunkBytes + rowBytes > maxBytes || i - from >= rowLimit)) {
+                sendChunk(sample, controller, collectionDefinition, columns, vectorModels, from, i, upsert, onChunkWritten);
+                from = i;
+                chunkBytes = 0;
+            }
+            chunkBytes += rowBytes;
+        }
+        sendChunk(sample, controller, collectionDefinition, columns, vectorModels, from, rowCount, upsert, onChunkWritten);
+    }
+
+    /**
+     * 主键生成方式为 {@link IdType#ASSIGN_ID} 或 {@link IdType#ASSIGN_UUID} 时, 为未设置主键的实体生成主键
+     * <p>主键在写入前就已确定, 重试时主键保持不变; insert 不检查主键是否已存在, 重复 insert 仍会产生主键相同的多行,
+     * 需要幂等的重试时使用 {@link #upsertBatch(List)}</p>
+     *
+     * @param collectionDefinition collection 信息
+     * @param vectorModels         实体
+     * @param <T>                  实体类型
+     */
+    <T extends VectorModel<?>> void assignPrimaryKeys(CollectionDefinition collectionDefinition, List<T> vectorModels) throws MilvusException {
+        ColumnDefinition primaryColumn = collectionDefinition.getPrimaryColumn();
+        if (primaryColumn == null || (primaryColumn.getIdType() != IdType.ASSIGN_ID && primaryColumn.getIdType() != IdType.ASSIGN_UUID)) {
+            return;
+        }
+        EntityMapper<T> entityMapper = collectionDefinition.getEntityMapper();
+        int primaryIndex = entityMapper.getPrimaryIndex();
+        Class<?> fieldType = entityMapper.getFieldType(primaryIndex);
+        IdentifierGenerator identifierGenerator = GlobalConfigUtils.getIdentifierGenerator(collectionDefinition.getEntityType());
+        for (T vectorModel : vectorModels) {
+            if (!identifierGenerator.assignId(entityMapper.getValue(vectorModel, primaryIndex))) {
                 continue;
             }
+            Object id;
+            if (primaryColumn.getIdType() == IdType.ASSIGN_UUID) {
+                id = identifierGenerator.nextUUID(vectorModel);
+            } else {
+                Number number = identifierGenerator.nextId(vectorModel);
+                if (fieldType == String.class) {
+                    id = number.toString();
+                } else if (fieldType == Long.class || fieldType == long.class) {
+                    id = number.longValue();
+                } else {
+                    throw new MilvusException(String.format("primary key '%s' must be Long or String when idType is ASSIGN_ID", primaryColumn.getName()));
+                }
+            }
+            entityMapper.setValue(vectorModel, primaryIndex, id);
+        }
+    }
+
+    /**
+     * upsert 按主键匹配行, 每个实体都必须带有主键
+     */
+    private <T extends VectorModel<?>> void checkUpsertPrimaryKeys(CollectionDefinition collectionDefinition, List<T> vectorModels) throws MilvusException {
+        ColumnDefinition primaryColumn = collectionDefinition.getPrimaryColumn();
+        if (primaryColumn == null) {
+            throw new MilvusException(String.format("collection '%s' has no primary key", collectionDefinition.getName()));
+        }
+        if (primaryColumn.autoId()) {
+            throw new MilvusException(String.format("upsert is not supported when primary key '%s' is generated by server", primaryColumn.getName()));
+        }
+        EntityMapper<T> entityMapper = collectionDefinition.getEntityMapper();
+        int primaryIndex = entityMapper.getPrimaryIndex();
+        for (T vectorModel : vectorModels) {
+            if (entityMapper.getValue(vectorModel, primaryIndex) == null) {
+                throw new MilvusException(String.format("primary key '%s' must be set for upsert", primaryColumn.getName()));
+            }
+        }
+    }
+
+    private <T extends VectorModel<?>> InsertColumns buildInsertColumns(CollectionDefinition collectionDefinition, List<T> vectorModels) {
+        InsertColumns columns = new InsertColumns(vectorModels.size());
+        EntityMapper<T> entityMapper = collectionDefinition.getEntityMapper();
+        List<ColumnDefinition> columnDefinitions = collectionDefinition.getColumns();
+        for (int index = 0; index < columnDefinitions.size(); index++) {
+            ColumnDefinition columnDefinition = columnDefinitions.get(index);
             VectorTypeHandler<Object> vectorTypeHandler = columnDefinition.getVectorTypeHandler();
-            List<Object> dataVector = vectorTypeHandler.serialize(value);
-            dataFields.add(new InsertParam.Field(columnName, dataVector));
+            List<Object> dataVector = new ArrayList<>(vectorModels.size());
+            int nullCount = 0;
+            for (int i = 0; i < vectorModels.size(); i++) {
+                Object value = entityMapper.getValue(vectorModels.get(i), index);
+                if (value == null) {
+                    nullCount++;
+                    continue;
+                }
+                addSerialized(dataVector, vectorTypeHandler.serialize(value), columnDefinition.vectorColumn());
+                columns.rowBytes[i] += PayloadSizeUtils.estimate(value);
+            }
+            if (nullCount == vectorModels.size()) {
+                continue;
+            }
+            if (nullCount > 0) {
+                throw new MilvusException(String.format("column '%s' must be set for every entity in a batch", columnDefinition.getName()));
+            }
+            columns.names.add(columnDefinition.getName());
+            columns.values.add(dataVector);
         }
+        return columns;
+    }
+
+    /**
+     * 向量字段中的 {@code float[]}、{@code byte[]} 等转换为 sdk 接受的类型
+     */
+    private static void addSerialized(List<Object> target, List<?> serialized, boolean vectorColumn) {
+        if (!vectorColumn) {
+            target.addAll(serialized);
+            return;
+        }
+        for (Object vector : serialized) {
+            target.add(VectorUtils.toSdkVector(vector));
+        }
+    }
+
+    /**
+     * 写入一批数据, 开启自动调整批次大小时被限流的批次等待后重试, 请求过大的批次拆分为两半重试
+     * <p>这两类请求都没有被服务端执行, 重试不会重复写入</p>
+     */
+    private <T extends VectorModel<?>> void sendChunk(OperationSample sample, AdaptiveBatchController controller,
+                                                      CollectionDefinition collectionDefinition, InsertColumns columns,
+                                                      List<T> vectorModels, int from, int to, boolean upsert,
+                                                      BiConsumer<Integer, Integer> onChunkWritten) throws MilvusException {
+        if (controller == null) {
+            writeChunk(sample, collectionDefinition, columns, vectorModels, from, to, upsert, onChunkWritten);
+            return;
+        }
+        for (int attempt = 1; ; attempt++) {
+            long start = System.nanoTime();
+            try {
+                writeChunk(sample, collectionDefinition, columns, vectorModels, from, to, upsert, onChunkWritten);
+                controller.onSuccess(to - from, System.nanoTime() - start);
+                return;
+            } catch (MilvusException e) {
+                if (!controller.onRejected(to - from, e) || attempt > properties.getAdaptiveBatch().getMaxRetries()) {
+                    throw e;
+                }
+                if (e.isRequestTooLarge()) {
+                    if (to - from <= 1) {
+                        throw e;
+                    }
+                    int middle = (from + to) >>> 1;
+                    sendChunk(sample, controller, collectionDefinition, columns, vectorModels, from, middle, upsert, onChunkWritten);
+                    sendChunk(sample, controller, collectionDefinition, columns, vectorModels, middle, to, upsert, onChunkWritten);
+                    return;
+                }
+                backoff(attempt, e);
+            }
+        }
+    }
+
+    private <T extends VectorModel<?>> void writeChunk(OperationSample sample, CollectionDefinition collectionDefinition, InsertColumns columns,
+                                                       List<T> vectorModels, int from, int to, boolean upsert,
+                                                       BiConsumer<Integer, Integer> onChunkWritten) throws MilvusException {
+        InsertParam insertParam = buildInsertParam(collectionDefinition, columns, from, to, upsert);
+        R<MutationResult> resultR = sample.rpc(() -> upsert
+                ? milvusClient.upsert((UpsertParam) insertParam) : milvusClient.insert(insertParam));
+        if (resultR.getStatus() != R.Status.Success.getCode() || resultR.getException() != null) {
+            throw MilvusException.of(resultR);
+        }
+        if (resultR.getData() != null && vectorModels != null) {
+            fillPrimaryKeys(collectionDefinition, vectorModels.subList(from, to), resultR.getData().getIDs());
+        }
+        if (onChunkWritten != null) {
+            onChunkWritten.accept(from, to);
+        }
+    }
+
+    private InsertParam buildInsertParam(CollectionDefinition collectionDefinition, InsertColumns columns, int from, int to, boolean upsert) {
+        List<InsertParam.Field> dataFields = new ArrayList<>(columns.names.size());
+        for (int i = 0; i < columns.names.size(); i++) {
+            dataFields.add(new InsertParam.Field(columns.names.get(i), columns.values.get(i).subList(from, to)));
+        }
+        InsertParam.Builder builder = upsert ? UpsertParam.newBuilder() : InsertParam.newBuilder();
         if (!StringUtils.isEmpty(collectionDefinition.getDatabase())) {
             builder.withDatabaseName(collectionDefinition.getDatabase());
         }
         builder.withCollectionName(collectionDefinition.getName());
         builder.withFields(dataFields);
-        InsertParam insertParam = builder.build();
-        R<MutationResult> resultR = milvusClient.insert(insertParam);
-        if (resultR.getStatus() != R.Status.Success.getCode() || resultR.getException() != null) {
-            throw new MilvusException(resultR.getException().getMessage());
+        return builder.build();
+    }
+
+    private <T extends VectorModel<?>> void fillPrimaryKeys(CollectionDefinition collectionDefinition, List<T> vectorModels, IDs ids) {
+        EntityMapper<T> entityMapper = collectionDefinition.getEntityMapper();
+        int primaryIndex = entityMapper.getPrimaryIndex();
+        if (primaryIndex < 0) {
+            return;
         }
-        if (resultR.getData() != null && !resultR.getData().getIDs().getIntId().getDataList().isEmpty()) {
-            ColumnDefinition column = collectionDefinition.getPrimaryColumn();
-            ReflectionUtils.makeAccessible(column.getField());
-            Object id = resultR.getData().getIDs().getIntId().getDataList().get(0);
-            ReflectionUtils.setField(column.getField(), vectorModel, id);
+        List<?> idList = ids.hasStrId() ? ids.getStrId().getDataList() : ids.getIntId().getDataList();
+        if (idList.size() != vectorModels.size()) {
+            throw new MilvusException(String.format("milvus returned %d ids for %d entities written to collection '%s'",
+                    idList.size(), vectorModels.size(), collectionDefinition.getName()));
+        }
+        for (int i = 0; i < vectorModels.size(); i++) {
+            entityMapper.setValue(vectorModels.get(i), primaryIndex, idList.get(i));
+        }
+    }
+
+    /**
+     * 按列组装好的待写入数据
+     */
+    private static class InsertColumns {
+
+        private final List<String> names = new ArrayList<>();
+
+        private final List<List<Object>> values = new ArrayList<>();
+
+        /**
+         * 每一行估算的字节数
+         */
+        private final long[] rowBytes;
+
+        private InsertColumns(int rowCount) {
+            this.rowBytes = new long[rowCount];
         }
-        return true;
     }
 
     public <T extends VectorModel<?>> void loadCollection(Class<T> clazz) throws MilvusException {
         CollectionDefinition collectionDefinition = CollectionHelper.getCollectionInfo(clazz);
-        LoadCollectionParam.Builder builder = LoadCollectionParam.newBuilder();
-        builder.withCollectionName(collectionDefinition.getName());
-        if (!StringUtils.isEmpty(collectionDefinition.getDatabase())) {
-            builder.withDatabaseName(collectionDefinition.getDatabase());
-        }
-        R<RpcStatus> resultR = milvusClient.loadCollection(builder.build());
-        if (resultR.getStatus() != R.Status.Success.getCode() || resultR.getException() != null) {
-            throw new MilvusException(resultR.getException().getMessage());
-        }
+        OperationSample sample = new OperationSample(OperationSample.LOAD, collectionDefinition.getName());
+        measure(sample, () -> {
+            LoadCollectionParam.Builder builder = LoadCollectionParam.newBuilder();
+            builder.withCollectionName(collectionDefinition.getName());
+            if (!StringUtils.isEmpty(collectionDefinition.getDatabase())) {
+                builder.withDatabaseName(collectionDefinition.getDatabase());
+            }
+            R<RpcStatus> resultR = sample.rpc(() -> milvusClient.loadCollection(builder.build()));
+            if (resultR.getStatus() != R.Status.Success.getCode() || resultR.getException() != null) {
+                throw MilvusException.of(resultR);
+            }
+            return null;
+        });
     }
 
     public <T extends VectorModel<?>> void releaseCollection(Class<T> clazz) throws MilvusException {
@@ -152,7 +1007,7 @@ public class MilvusClientService {
         }
         R<RpcStatus> resultR = milvusClient.dropCollection(builder.build());
         if (resultR.getStatus() != R.Status.Success.getCode() || resultR.getException() != null) {
-            throw new MilvusException(resultR.getException().getMessage());
+            throw MilvusException.of(resultR);
         }
     }
 
@@ -164,7 +1019,7 @@ public class MilvusClientService {
         }
         R<Boolean> resultR = milvusClient.hasCollection(builder.build());
         if (resultR.getStatus() != R.Status.Success.getCode() || resultR.getException() != null) {
-            throw new MilvusException(resultR.getException().getMessage());
+            throw MilvusException.of(resultR);
         }
         return resultR.getData();
     }
@@ -175,7 +1030,7 @@ public class MilvusClientService {
         DropIndexParam.Builder builder = DropIndexParam.newBuilder().withCollectionName(collectionDefinition.getName()).withIndexName(indexName);
         R<RpcStatus> resultR = milvusClient.dropIndex(builder.build());
         if (resultR.getStatus() != R.Status.Success.getCode() || resultR.getException() != null) {
-            throw new MilvusException(resultR.getException().getMessage());
+            throw MilvusException.of(resultR);
         }
         return true;
     }
@@ -189,7 +1044,7 @@ public class MilvusClientService {
         }
         R<GetLoadStateResponse> resultR = milvusClient.getLoadState(builder.build());
         if (resultR.getStatus() != R.Status.Success.getCode() || resultR.getException() != null) {
-            throw new MilvusException(resultR.getException().getMessage());
+            throw MilvusException.of(resultR);
         }
         return resultR.getData().getState();
     }
@@ -200,30 +1055,34 @@ public class MilvusClientService {
         builder.withCollectionName(collectionDefinition.getName());
         R<GetLoadingProgressResponse> resultR = milvusClient.getLoadingProgress(builder.build());
         if (resultR.getStatus() != R.Status.Success.getCode() || resultR.getException() != null) {
-            throw new MilvusException(resultR.getException().getMessage());
+            throw MilvusException.of(resultR);
         }
         return resultR.getData().getProgress();
     }
 
     public <T extends VectorModel<?>> boolean createIndex(Class<T> clazz, String indexName, SFunction<?, ?> column, IIndexExtra extra) throws MilvusException {
         CollectionDefinition collectionDefinition = CollectionHelper.getCollectionInfo(clazz);
-        CreateIndexParam.Builder builder = CreateIndexParam.newBuilder();
-        builder.withCollectionName(collectionDefinition.getName());
-        String columnName = getColumnName(column, clazz);
-        ColumnDefinition columnDefinition = collectionDefinition.getColumnByColumnName(columnName);
-        builder.withFieldName(columnName);
-        builder.withIndexName(indexName);
-        builder.withIndexType(columnDefinition.getIndexType());
-        builder.withMetricType(columnDefinition.getMetricType());
-        if (extra != null) {
-            builder.withExtraParam(new Gson().toJson(extra));
-        }
-        builder.withSyncMode(Boolean.FALSE);
-        R<RpcStatus> resultR = milvusClient.createIndex(builder.build());
-        if (resultR.getStatus() != R.Status.Success.getCode() || resultR.getException() != null) {
-            throw new MilvusException(resultR.getException().getMessage());
-        }
-        return true;
+        OperationSample sample = new OperationSample(OperationSample.CREATE_INDEX, collectionDefinition.getName());
+        return measure(sample, () -> {
+            CreateIndexParam.Builder builder = CreateIndexParam.newBuilder();
+            builder.withCollectionName(collectionDefinition.getName());
+            String columnName = getColumnName(column, clazz);
+            ColumnDefinition columnDefinition = collectionDefinition.getColumnByColumnName(columnName);
+            builder.withFieldName(columnName);
+            builder.withIndexName(indexName);
+            builder.withIndexType(columnDefinition.getIndexType());
+            builder.withMetricType(columnDefinition.getMetricType());
+            if (extra != null) {
+                sample.extra(extra);
+                builder.withExtraParam(gson.toJson(extra));
+            }
+            builder.withSyncMode(Boolean.FALSE);
+            R<RpcStatus> resultR = sample.rpc(() -> milvusClient.createIndex(builder.build()));
+            if (resultR.getStatus() != R.Status.Success.getCode() || resultR.getException() != null) {
+                throw MilvusException.of(resultR);
+            }
+            return true;
+        });
     }
 
     public <T extends VectorModel<?>> boolean createCollection(Class<T> clazz) throws MilvusException {
@@ -254,7 +1113,7 @@ public class MilvusClientService {
                 fieldBuilder.withMaxLength(column.getMaxLength());
             }
             if (Boolean.TRUE.equals(primary)) {
-                fieldBuilder.withAutoID(true);
+                fieldBuilder.withAutoID(column.autoId());
             }
             if (column.canBePartitionKey()) {
                 fieldBuilder.withPartitionKey(column.getPartitionKey());
@@ -263,37 +1122,166 @@ public class MilvusClientService {
         }
         R<RpcStatus> resultR = milvusClient.createCollection(builder.build());
         if (resultR.getStatus() != R.Status.Success.getCode() || resultR.getException() != null) {
-            throw new MilvusException(resultR.getException().getMessage());
+            throw MilvusException.of(resultR);
         }
         return true;
     }
 
-    private <T extends VectorModel<?>> T createInstance(Class<T> clazz) throws MilvusException {
+    public <T extends VectorModel<?>> List<T> search(LambdaSearchWrapper<T> wrapper) throws MilvusException {
+        return this.search(wrapper, wrapper.getEntityClass());
+    }
+
+    public <T extends VectorModel<?>> List<T> search(LambdaSearchWrapper<T> wrapper, Class<T> clazz) throws MilvusException {
+        CollectionDefinition collectionDefinition = CollectionHelper.getCollectionInfo(clazz);
+        OperationSample sample = new OperationSample(OperationSample.SEARCH, collectionDefinition.getName()).topK(wrapper.getTopK());
+        return measure(sample, () -> {
+            ColumnDefinition vectorColumn = collectionDefinition.getColumnByColumnName(getColumnName(wrapper.getVectorColumn(), clazz));
+            List<?> vectors = serializeVectors(wrapper, vectorColumn);
+            describeSearch(sample, wrapper, vectors);
+            List<T> results;
+            if (resultCache == null) {
+                results = search(sample, wrapper, collectionDefinition, vectorColumn, vectors);
+            } else {
+                List<Object> key = Arrays.asList("search", searchSignature(wrapper, collectionDefinition, vectorColumn), snapshot(vectors));
+                results = collectionDefinition.<T>getEntityMapper().copyAll(resultCache.get(collectionDefinition.getName(), key,
+                        () -> search(sample, wrapper, collectionDefinition, vectorColumn, vectors)));
+            }
+            sample.resultSize(results.size());
+            return results;
+        });
+    }
+
+    private <T extends VectorModel<?>> List<T> search(OperationSample sample, LambdaSearchWrapper<T> wrapper, CollectionDefinition collectionDefinition,
+                                                      ColumnDefinition vectorColumn, List<?> vectors) throws MilvusException {
+        if (searchCoalescer != null && wrapper.getVectorValues() == null && vectors.size() <= properties.getSearchCoalesce().getMaxBatch()) {
+            String key = searchSignature(wrapper, collectionDefinition, vectorColumn);
+            // 合并后的请求可能由其他线程发起, 等待合并窗口和解析合并结果的时间也计入 rpc 耗时
+            return sample.rpc(() -> searchCoalescer.search(key, vectors, mergedVectors -> {
+                SearchParam searchParam = buildSearchParam(wrapper, collectionDefinition, vectorColumn, mergedVectors);
+                return ResultDecoder.decodeSearchGroups(collectionDefinition.<T>getEntityMapper(), doSearch(searchParam));
+            }));
+        }
+        SearchParam searchParam = buildSearchParam(wrapper, collectionDefinition, vectorColumn, vectors);
+        SearchResultData searchResultData = sample.rpc(() -> doSearch(searchParam));
+        return ResultDecoder.decodeSearch(collectionDefinition.getEntityMapper(), searchResultData);
+    }
+
+    /**
+     * 使用多个向量在一次请求中检索
+     *
+     * @param wrapper 检索条件, 通过 {@link LambdaSearchWrapper#vectors} 指定多个向量
+     * @param <T>     实体类型
+     * @return 每个向量的检索结果, 顺序与输入的向量一致
+     * @throws MilvusException 检索失败时抛出
+     */
+    public <T extends VectorModel<?>> List<List<T>> searchBatch(LambdaSearchWrapper<T> wrapper) throws MilvusException {
+        Class<T> clazz = wrapper.getEntityClass();
+        CollectionDefinition collectionDefinition = CollectionHelper.getCollectionInfo(clazz);
+        OperationSample sample = new OperationSample(OperationSample.SEARCH, collectionDefinition.getName()).topK(wrapper.getTopK());
+        return measure(sample, () -> {
+            ColumnDefinition vectorColumn = collectionDefinition.getColumnByColumnName(getColumnName(wrapper.getVectorColumn(), clazz));
+            List<?> vectors = serializeVectors(wrapper, vectorColumn);
+            describeSearch(sample, wrapper, vectors);
+            SearchParam searchParam = buildSearchParam(wrapper, collectionDefinition, vectorColumn, vectors);
+            SearchResultData searchResultData = sample.rpc(() -> doSearch(searchParam));
+            List<List<T>> results = ResultDecoder.decodeSearchGroups(collectionDefinition.getEntityMapper(), searchResultData);
+            sample.resultSize(results.stream().mapToLong(List::size).sum());
+            return results;
+        });
+    }
+
+    /**
+     * 异步检索, 不参与合并检索
+     *
+     * @param wrapper 检索条件
+     * @param <T>     实体类型
+     * @return 检索结果
+     */
+    public <T extends VectorModel<?>> CompletableFuture<List<T>> searchAsync(LambdaSearchWrapper<T> wrapper) {
+        Class<T> clazz = wrapper.getEntityClass();
+        CollectionDefinition collectionDefinition;
+        SearchParam searchParam;
+        OperationSample sample;
         try {
-            return clazz.newInstance();
+            collectionDefinition = CollectionHelper.getCollectionInfo(clazz);
+            sample = new OperationSample(OperationSample.SEARCH, collectionDefinition.getName()).topK(wrapper.getTopK());
+            ColumnDefinition vectorColumn = collectionDefinition.getColumnByColumnName(getColumnName(wrapper.getVectorColumn(), clazz));
+            List<?> vectors = serializeVectors(wrapper, vectorColumn);
+            describeSearch(sample, wrapper, vectors);
+            searchParam = buildSearchParam(wrapper, collectionDefinition, vectorColumn, vectors);
         } catch (Exception e) {
-            throw new MilvusException(e.getMessage());
+            CompletableFuture<List<T>> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
         }
+        return toCompletableFuture(sample, () -> milvusClient.searchAsync(searchParam), searchResults -> {
+            List<T> results = ResultDecoder.decodeSearch(collectionDefinition.<T>getEntityMapper(), searchResults.getResults());
+            sample.resultSize(results.size());
+            return results;
+        });
     }
 
-    public <T extends VectorModel<?>> List<T> search(LambdaSearchWrapper<T> wrapper) throws MilvusException {
-        return this.search(wrapper, wrapper.getEntityClass());
+    private static void describeSearch(OperationSample sample, LambdaSearchWrapper<?> wrapper, List<?> vectors) {
+        sample.nq(vectors.size()).vectors(vectors).payloadBytes(PayloadSizeUtils.estimate(vectors))
+                .expression(wrapper.getExprSegment()).partitionNames(wrapper.getPartitionNames())
+                .consistencyLevel(wrapper.getConsistencyLevel()).extra(wrapper.getExtra());
     }
 
-    public <T extends VectorModel<?>> List<T> search(LambdaSearchWrapper<T> wrapper, Class<T> clazz) throws MilvusException {
-        CollectionDefinition collectionDefinition = CollectionHelper.getCollectionInfo(clazz);
-        List<String> outFields = new ArrayList<>();
-        for (ColumnDefinition columnDefinition : collectionDefinition.getColumns()) {
-            if (columnDefinition.vectorColumn()) {
-                continue;
+    /**
+     * 复制查询向量作为缓存 key 的一部分, 避免调用方之后修改向量影响缓存
+     */
+    private static List<Object> snapshot(List<?> vectors) {
+        List<Object> copies = new ArrayList<>(vectors.size());
+        for (Object vector : vectors) {
+            if (vector instanceof List) {
+                copies.add(new ArrayList<>((List<?>) vector));
+            } else if (vector instanceof ByteBuffer) {
+                ByteBuffer buffer = (ByteBuffer) vector;
+                ByteBuffer copy = ByteBuffer.allocate(buffer.remaining());
+                copy.put(buffer.duplicate()).flip();
+                copies.add(copy);
+            } else {
+                copies.add(vector);
             }
-            outFields.add(columnDefinition.getName());
         }
+        return copies;
+    }
+
+    private SearchResultData doSearch(SearchParam searchParam) throws MilvusException {
+        R<SearchResults> resultR = milvusClient.search(searchParam);
+        if (resultR.getStatus() != R.Status.Success.getCode() || resultR.getException() != null) {
+            throw MilvusException.of(resultR);
+        }
+        return resultR.getData().getResults();
+    }
+
+    private List<?> serializeVectors(LambdaSearchWrapper<?> wrapper, ColumnDefinition vectorColumn) {
+        VectorTypeHandler<Object> vectorTypeHandler = vectorColumn.getVectorTypeHandler();
+        List<Object> dataVectors = new ArrayList<>(wrapper.getVectorValues() == null ? 1 : wrapper.getVectorValues().size());
+        if (wrapper.getVectorValues() == null) {
+            addSerialized(dataVectors, vectorTypeHandler.serialize(wrapper.getVectorValue()), true);
+            return dataVectors;
+        }
+        for (Object vectorValue : wrapper.getVectorValues()) {
+            addSerialized(dataVectors, vectorTypeHandler.serialize(vectorValue), true);
+        }
+        return dataVectors;
+    }
+
+    /**
+     * 除查询向量外决定检索结果的所有条件, 结果按实体类型解析, 实体类型不同的检索不能合并或共用缓存
+     */
+    private String searchSignature(LambdaSearchWrapper<?> wrapper, CollectionDefinition collectionDefinition, ColumnDefinition vectorColumn) {
+        return collectionDefinition.getEntityType().getName() + '|' + collectionDefinition.getName() + '|' + vectorColumn.getName() + '|' + wrapper.getTopK() + '|'
+                + wrapper.getConsistencyLevel() + '|' + wrapper.getPartitionNames() + '|'
+                + (wrapper.getExtra() == null ? "" : gson.toJson(wrapper.getExtra())) + '|' + wrapper.getExprSegment() + '|'
+                + outFields(collectionDefinition, wrapper.getSelectColumns(), wrapper.getOutputVectors());
+    }
+
+    private SearchParam buildSearchParam(LambdaSearchWrapper<?> wrapper, CollectionDefinition collectionDefinition,
+                                         ColumnDefinition columnDefinition, List<?> vectors) throws MilvusException {
+        List<String> outFields = outFields(collectionDefinition, wrapper.getSelectColumns(), wrapper.getOutputVectors());
         SearchParam.Builder builder = SearchParam.newBuilder();
-        String vectorColumnName = getColumnName(wrapper.getVectorColumn(), clazz);
-        ColumnDefinition columnDefinition = collectionDefinition.getColumnByColumnName(vectorColumnName);
-        VectorTypeHandler<Object> vectorTypeHandler = columnDefinition.getVectorTypeHandler();
-        List<?> vectors = vectorTypeHandler.serialize(wrapper.getVectorValue());
         builder.withVectors(vectors);
         builder.withVectorFieldName(columnDefinition.getName());
         builder.withCollectionName(collectionDefinition.getName());
@@ -311,82 +1299,213 @@ public class MilvusClientService {
         if (wrapper.getExtra() != null) {
             builder.withParams(gson.toJson(wrapper.getExtra()));
         }
-        R<SearchResults> resultR = milvusClient.search(builder.build());
-        if (resultR.getStatus() != R.Status.Success.getCode() || resultR.getException() != null) {
-            throw new MilvusException(resultR.getException().getMessage());
-        }
-        SearchResultsWrapper resultsWrapper = new SearchResultsWrapper(resultR.getData().getResults());
-        List<T> resultRows = new ArrayList<>();
-        for (int i = 0; i < resultsWrapper.getRowRecords().size(); i++) {
-            QueryResultsWrapper.RowRecord rowRecord = resultsWrapper.getRowRecords().get(i);
-            T data = this.createInstance(clazz);
-            Object distance = rowRecord.get("distance");
-            if (distance instanceof Float) {
-                data.setDistance((Float) rowRecord.get("distance"));
-            }
-            for (String columnName : rowRecord.getFieldValues().keySet()) {
-                ColumnDefinition column = collectionDefinition.getColumnByColumnName(columnName);
-                if (column == null) {
-                    continue;
+        return builder.build();
+    }
+
+    /**
+     * 需要返回的字段
+     * <p>指定了 select 时只返回主键和 select 的字段, 否则返回所有标量字段; 向量字段只有在 select 或 outputVectors 中指定时才返回</p>
+     */
+    private List<String> outFields(CollectionDefinition collectionDefinition, List<? extends SFunction<?, ?>> selectColumns,
+                                   List<? extends SFunction<?, ?>> outputVectors) throws MilvusException {
+        List<String> outFields = new ArrayList<>();
+        if (CollectionUtils.isEmpty(selectColumns)) {
+            for (ColumnDefinition columnDefinition : collectionDefinition.getColumns()) {
+                if (!columnDefinition.vectorColumn()) {
+                    outFields.add(columnDefinition.getName());
                 }
-                ReflectionUtils.makeAccessible(column.getField());
-                ReflectionUtils.setField(column.getField(), data, rowRecord.get(columnName));
             }
-            resultRows.add(data);
+        } else {
+            ColumnDefinition primaryColumn = collectionDefinition.getPrimaryColumn();
+            if (primaryColumn != null) {
+                outFields.add(primaryColumn.getName());
+            }
+            for (SFunction<?, ?> column : selectColumns) {
+                String columnName = getColumnName(column, collectionDefinition.getEntityType());
+                if (!outFields.contains(columnName)) {
+                    outFields.add(columnName);
+                }
+            }
+        }
+        if (CollectionUtils.isEmpty(outputVectors)) {
+            return outFields;
+        }
+        for (SFunction<?, ?> column : outputVectors) {
+            String columnName = getColumnName(column, collectionDefinition.getEntityType());
+            ColumnDefinition columnDefinition = collectionDefinition.getColumnByColumnName(columnName);
+            if (columnDefinition == null || !columnDefinition.vectorColumn()) {
+                throw new MilvusException(String.format("'%s' is not a vector column", columnName));
+            }
+            if (!outFields.contains(columnName)) {
+                outFields.add(columnName);
+            }
         }
-        return resultRows;
+        return outFields;
     }
 
     public <T extends VectorModel<?>> List<T> query(LambdaQueryWrapper<T> wrapper) throws MilvusException {
-        Class<T> clazz = wrapper.getEntityClass();
-        CollectionDefinition collectionDefinition = CollectionHelper.getCollectionInfo(clazz);
-        List<String> outFields = new ArrayList<>();
-        for (ColumnDefinition columnDefinition : collectionDefinition.getColumns()) {
-            if (columnDefinition.vectorColumn()) {
-                continue;
+        CollectionDefinition collectionDefinition = CollectionHelper.getCollectionInfo(wrapper.getEntityClass());
+        OperationSample sample = new OperationSample(OperationSample.QUERY, collectionDefinition.getName())
+                .expression(wrapper.getTargetExpr()).partitionNames(wrapper.getPartitionNames())
+                .consistencyLevel(wrapper.getConsistencyLevel());
+        return measure(sample, () -> {
+            List<T> results;
+            if (resultCache == null) {
+                results = query(sample, wrapper, collectionDefinition);
+            } else {
+                List<Object> key = Arrays.asList("query", wrapper.getEntityClass().getName(), wrapper.getPartitionNames(),
+                        wrapper.getConsistencyLevel(), wrapper.getTargetExpr(), wrapper.getLimit(), wrapper.getOffset(),
+                        outFields(collectionDefinition, wrapper.getSelectColumns(), wrapper.getOutputVectors()));
+                results = collectionDefinition.<T>getEntityMapper().copyAll(resultCache.get(collectionDefinition.getName(), key,
+                        () -> query(sample, wrapper, collectionDefinition)));
             }
-            outFields.add(columnDefinition.getName());
+            sample.resultSize(results.size());
+            return results;
+        });
+    }
+
+    private <T extends VectorModel<?>> List<T> query(OperationSample sample, LambdaQueryWrapper<T> wrapper,
+                                                     CollectionDefinition collectionDefinition) throws MilvusException {
+        QueryParam queryParam = buildQueryParam(wrapper, collectionDefinition);
+        R<QueryResults> resultR = sample.rpc(() -> milvusClient.query(queryParam));
+        if (resultR.getStatus() != R.Status.Success.getCode() || resultR.getException() != null) {
+            throw MilvusException.of(resultR);
         }
-        QueryParam.Builder builder = QueryParam.newBuilder();
-        if (!CollectionUtils.isEmpty(wrapper.getPartitionNames())) {
-            builder.withPartitionNames(wrapper.getPartitionNames());
+        return ResultDecoder.decodeQuery(collectionDefinition.getEntityMapper(), resultR.getData());
+    }
+
+    /**
+     * 异步查询
+     *
+     * @param wrapper 查询条件
+     * @param <T>     实体类型
+     * @return 查询结果
+     */
+    public <T extends VectorModel<?>> CompletableFuture<List<T>> queryAsync(LambdaQueryWrapper<T> wrapper) {
+        CollectionDefinition collectionDefinition;
+        QueryParam queryParam;
+        try {
+            collectionDefinition = CollectionHelper.getCollectionInfo(wrapper.getEntityClass());
+            queryParam = buildQueryParam(wrapper, collectionDefinition);
+        } catch (Exception e) {
+            CompletableFuture<List<T>> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
         }
-        if (!CollectionUtils.isEmpty(wrapper.getPartitionNames())) {
-            builder.withPartitionNames(wrapper.getPartitionNames());
+        return queryAsync(collectionDefinition, collectionDefinition.getEntityMapper(), queryParam);
+    }
+
+    private <T extends VectorModel<?>> CompletableFuture<List<T>> queryAsync(CollectionDefinition collectionDefinition,
+                                                                             EntityMapper<T> entityMapper, QueryParam queryParam) {
+        OperationSample sample = new OperationSample(OperationSample.QUERY, collectionDefinition.getName())
+                .expression(queryParam.getExpr()).partitionNames(queryParam.getPartitionNames())
+                .consistencyLevel(queryParam.getConsistencyLevel());
+        return toCompletableFuture(sample, () -> milvusClient.queryAsync(queryParam), queryResults -> {
+            List<T> results = ResultDecoder.decodeQuery(entityMapper, queryResults);
+            sample.resultSize(results.size());
+            return results;
+        });
+    }
+
+    /**
+     * 按主键游标分批读取所有满足条件的实体, 适用于全量导出等深度遍历场景
+     * <p>每一批使用 {@code pk > 上一批最大主键} 加 limit 查询, 忽略 wrapper 中的 limit 和 offset;
+     * 依赖服务端返回大于上一批最大主键的最小的 batchSize 个主键, 见 {@link PrimaryKeyCursor}; 处理当前批次时会预读下一批</p>
+     *
+     * @param wrapper   查询条件
+     * @param batchSize 每批条数
+     * @param <T>       实体类型
+     * @return 迭代器
+     */
+    public <T extends VectorModel<?>> Iterator<T> queryIterator(LambdaQueryWrapper<T> wrapper, int batchSize) throws MilvusException {
+        return newPrimaryKeyCursor(wrapper, batchSize);
+    }
+
+    /**
+     * 按主键游标分批读取所有满足条件的实体, 见 {@link #queryIterator(LambdaQueryWrapper, int)}
+     * <p>关闭 stream 时会取消预读的批次</p>
+     *
+     * @param wrapper   查询条件
+     * @param batchSize 每批条数
+     * @param <T>       实体类型
+     * @return 顺序 stream
+     */
+    public <T extends VectorModel<?>> Stream<T> queryStream(LambdaQueryWrapper<T> wrapper, int batchSize) throws MilvusException {
+        PrimaryKeyCursor<T> cursor = newPrimaryKeyCursor(wrapper, batchSize);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(cursor::close);
+    }
+
+    private <T extends VectorModel<?>> PrimaryKeyCursor<T> newPrimaryKeyCursor(LambdaQueryWrapper<T> wrapper, int batchSize) {
+        return new PrimaryKeyCursor<>(primaryKeyFetcher(wrapper, batchSize), primaryKeyGetter(wrapper.getEntityClass()), batchSize);
+    }
+
+    /**
+     * 主键游标每一批的查询, 参数为上一批最大的主键(第一批为 null)
+     * <p>创建时复制 wrapper 的条件、分区、返回字段和一致性级别, 之后修改 wrapper 不影响已经开始的遍历, 遍历也不会修改 wrapper</p>
+     */
+    <T extends VectorModel<?>> Function<Object, CompletableFuture<List<T>>> primaryKeyFetcher(LambdaQueryWrapper<T> wrapper, int batchSize) {
+        CollectionDefinition collectionDefinition = CollectionHelper.getCollectionInfo(wrapper.getEntityClass());
+        EntityMapper<T> entityMapper = collectionDefinition.getEntityMapper();
+        String primaryColumnName = collectionDefinition.getPrimaryColumn().getName();
+        String expression = wrapper.getTargetExpr();
+        List<String> partitionNames = CollectionUtils.isEmpty(wrapper.getPartitionNames())
+                ? Collections.emptyList() : new ArrayList<>(wrapper.getPartitionNames());
+        ConsistencyLevelEnum consistencyLevel = wrapper.getConsistencyLevel();
+        List<String> outFields = outFields(collectionDefinition, wrapper.getSelectColumns(), wrapper.getOutputVectors());
+        return lastSeen -> {
+            String cursorExpr = expression;
+            if (lastSeen != null) {
+                String primaryExpr = new QueryWrapper<T>().gt(primaryColumnName, lastSeen).getExprSegment();
+                cursorExpr = StringUtils.isEmpty(expression) ? primaryExpr : "(" + expression + ") and " + primaryExpr;
+            }
+            QueryParam queryParam = buildQueryParam(collectionDefinition, partitionNames, consistencyLevel, outFields,
+                    cursorExpr, (long) batchSize, null);
+            return queryAsync(collectionDefinition, entityMapper, queryParam);
+        };
+    }
+
+    <T extends VectorModel<?>> Function<T, Object> primaryKeyGetter(Class<T> clazz) {
+        CollectionDefinition collectionDefinition = CollectionHelper.getCollectionInfo(clazz);
+        EntityMapper<T> entityMapper = collectionDefinition.getEntityMapper();
+        int primaryIndex = entityMapper.getPrimaryIndex();
+        if (primaryIndex < 0) {
+            throw new MilvusException(String.format("collection '%s' has no primary key", collectionDefinition.getName()));
+        }
+        return entity -> entityMapper.getValue(entity, primaryIndex);
+    }
+
+    private QueryParam buildQueryParam(LambdaQueryWrapper<?> wrapper, CollectionDefinition collectionDefinition) {
+        return buildQueryParam(wrapper, collectionDefinition, wrapper.getTargetExpr(), wrapper.getLimit(), wrapper.getOffset());
+    }
+
+    private QueryParam buildQueryParam(LambdaQueryWrapper<?> wrapper, CollectionDefinition collectionDefinition,
+                                       String expression, Long limit, Long offset) {
+        List<String> outFields = outFields(collectionDefinition, wrapper.getSelectColumns(), wrapper.getOutputVectors());
+        return buildQueryParam(collectionDefinition, wrapper.getPartitionNames(), wrapper.getConsistencyLevel(), outFields,
+                expression, limit, offset);
+    }
+
+    private QueryParam buildQueryParam(CollectionDefinition collectionDefinition, List<String> partitionNames,
+                                       ConsistencyLevelEnum consistencyLevel, List<String> outFields,
+                                       String expression, Long limit, Long offset) {
+        QueryParam.Builder builder = QueryParam.newBuilder();
+        if (!CollectionUtils.isEmpty(partitionNames)) {
+            builder.withPartitionNames(partitionNames);
         }
         builder.withCollectionName(collectionDefinition.getName());
-        builder.withConsistencyLevel(wrapper.getConsistencyLevel());
+        builder.withConsistencyLevel(consistencyLevel);
         builder.withOutFields(outFields);
-        if (wrapper.getLimit() != null) {
-            builder.withLimit(wrapper.getLimit());
+        if (limit != null) {
+            builder.withLimit(limit);
         }
-        if (wrapper.getOffset() != null) {
-            builder.withOffset(wrapper.getOffset());
+        if (offset != null) {
+            builder.withOffset(offset);
         }
-        String expression = wrapper.getTargetExpr();
         if (!StringUtils.isEmpty(expression)) {
             builder.withExpr(expression);
         }
-        R<QueryResults> resultR = milvusClient.query(builder.build());
-        if (resultR.getStatus() != R.Status.Success.getCode() || resultR.getException() != null) {
-            throw new MilvusException(resultR.getException().getMessage());
-        }
-        QueryResultsWrapper resultsWrapper = new QueryResultsWrapper(resultR.getData());
-        List<T> resultRows = new ArrayList<>();
-        for (int i = 0; i < resultsWrapper.getRowRecords().size(); i++) {
-            QueryResultsWrapper.RowRecord rowRecord = resultsWrapper.getRowRecords().get(i);
-            T data = this.createInstance(clazz);
-            rowRecord.getFieldValues().keySet().forEach(columnName -> {
-                ColumnDefinition column = collectionDefinition.getColumnByColumnName(columnName);
-                if (column == null) {
-                    return;
-                }
-                ReflectionUtils.makeAccessible(column.getField());
-                ReflectionUtils.setField(column.getField(), data, rowRecord.get(columnName));
-            });
-            resultRows.add(data);
-        }
-        return resultRows;
+        return builder.build();
     }
 
     public <T extends VectorModel<?>> GetCollectionStatisticsResponse getCollectionStatistics(Class<T> clazz) throws MilvusException {
@@ -398,7 +1517,7 @@ public class MilvusClientService {
         }
         R<GetCollectionStatisticsResponse> resultR = milvusClient.getCollectionStatistics(builder.build());
         if (resultR.getStatus() != R.Status.Success.getCode() || resultR.getException() != null) {
-            throw new MilvusException(resultR.getException().getMessage());
+            throw MilvusException.of(resultR);
         }
         return resultR.getData();
     }
@@ -414,6 +1533,27 @@ public class MilvusClientService {
         return dataPage;
     }
 
+    /**
+     * 异步分页查询
+     *
+     * @param wrapper  查询条件
+     * @param page     页码
+     * @param pageSize 每页条数
+     * @param <T>      实体类型
+     * @return 分页结果
+     */
+    public <T extends VectorModel<?>> CompletableFuture<Page<T>> queryPageAsync(LambdaQueryWrapper<T> wrapper, Long page, Long pageSize) {
+        wrapper.setLimit(pageSize);
+        wrapper.setOffset(page * pageSize);
+        return this.queryAsync(wrapper).thenApply(instanceList -> {
+            Page<T> dataPage = new Page<>();
+            dataPage.setPage(page);
+            dataPage.setPageSize(pageSize);
+            dataPage.setInstances(instanceList);
+            return dataPage;
+        });
+    }
+
     public <T extends VectorModel<?>> Long getRowCount(Class<T> clazz) throws MilvusException {
         GetCollectionStatisticsResponse statistics = getCollectionStatistics(clazz);
         for (KeyValuePair pair : statistics.getStatsList()) {
@@ -0,0 +1,112 @@
+package plus.jdk.milvus.global;
+
+import plus.jdk.milvus.common.MilvusException;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * 按主键游标分批读取整个 collection
+ * <p>每一批使用 {@code pk > lastSeen} 加 limit 查询, 与 offset 分页不同, 每一批的开销不随读取深度增长</p>
+ * <p>要求服务端对每一批返回大于 lastSeen 的最小的 batchSize 个主键(milvus 指定 limit 时按主键归并各分片的结果);
+ * 如果返回的是任意 batchSize 行, 主键介于 lastSeen 和本批最大主键之间但没有返回的行会被跳过</p>
+ * <p>调用方处理当前批次时, 下一批已经在后台请求中, 内存中最多同时持有两批数据</p>
+ *
+ * @param <T> 实体类型
+ */
+class PrimaryKeyCursor<T> implements Iterator<T>, AutoCloseable {
+
+    /**
+     * 根据上一批最大的主键(第一批为 null)发起查询
+     */
+    private final Function<Object, CompletableFuture<List<T>>> fetcher;
+
+    private final Function<T, Object> primaryKeyGetter;
+
+    private final int batchSize;
+
+    private Iterator<T> current = Collections.emptyIterator();
+
+    /**
+     * 下一批数据, 没有更多数据时为 null
+     */
+    private CompletableFuture<List<T>> next;
+
+    PrimaryKeyCursor(Function<Object, CompletableFuture<List<T>>> fetcher, Function<T, Object> primaryKeyGetter, int batchSize) {
+        if (batchSize <= 0) {
+            throw new MilvusException("batchSize must be greater than zero");
+        }
+        this.fetcher = fetcher;
+        this.primaryKeyGetter = primaryKeyGetter;
+        this.batchSize = batchSize;
+        this.next = fetcher.apply(null);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (next == null) {
+                return false;
+            }
+            List<T> batch = join(next);
+            next = batch.size() < batchSize ? null : fetcher.apply(maxPrimaryKey(batch, primaryKeyGetter));
+            current = batch.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    /**
+     * 取消预读的批次
+     */
+    @Override
+    public void close() {
+        if (next != null) {
+            next.cancel(true);
+            next = null;
+        }
+        current = Collections.emptyIterator();
+    }
+
+    /**
+     * 下一批的游标, 取本批最大的主键; 只有本批为大于 lastSeen 的最小的 batchSize 个主键时, 下一批才不会遗漏
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <T> Object maxPrimaryKey(List<T> batch, Function<T, Object> primaryKeyGetter) {
+        Comparable max = null;
+        for (T entity : batch) {
+            Comparable primaryKey = (Comparable) primaryKeyGetter.apply(entity);
+            if (max == null || primaryKey.compareTo(max) > 0) {
+                max = primaryKey;
+            }
+        }
+        return max;
+    }
+
+    private List<T> join(CompletableFuture<List<T>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MilvusException("interrupted while waiting for next batch", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof MilvusException) {
+                throw (MilvusException) cause;
+            }
+            throw new MilvusException(cause.getMessage(), cause);
+        }
+    }
+}
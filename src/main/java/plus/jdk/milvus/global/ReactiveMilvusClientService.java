@@ -0,0 +1,76 @@
+package plus.jdk.milvus.global;
+
+import plus.jdk.milvus.common.MilvusException;
+import plus.jdk.milvus.model.Page;
+import plus.jdk.milvus.record.VectorModel;
+import plus.jdk.milvus.wrapper.LambdaQueryWrapper;
+import plus.jdk.milvus.wrapper.LambdaSearchWrapper;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * 基于 Project Reactor 的 {@link MilvusClientService}
+ * </p>
+ * 所有方法都建立在 {@link MilvusClientService} 的异步方法之上, 请求在订阅时才发出,
+ * 等待 milvus 响应期间不会占用调用线程, 可以直接在 WebFlux 的 event-loop 线程中使用
+ */
+public class ReactiveMilvusClientService {
+
+    private final MilvusClientService milvusClientService;
+
+    public ReactiveMilvusClientService(MilvusClientService milvusClientService) {
+        this.milvusClientService = milvusClientService;
+    }
+
+    public MilvusClientService getMilvusClientService() {
+        return milvusClientService;
+    }
+
+    public <T extends VectorModel<?>> Mono<Boolean> insert(T vectorModel) {
+        return Mono.fromFuture(() -> milvusClientService.insertAsync(vectorModel));
+    }
+
+    public <T extends VectorModel<?>> Mono<Boolean> remove(Object pk, Class<T> clazz) {
+        return Mono.fromFuture(() -> milvusClientService.removeAsync(pk, clazz));
+    }
+
+    public <T extends VectorModel<?>> Flux<T> search(LambdaSearchWrapper<T> wrapper) {
+        return Mono.fromFuture(() -> milvusClientService.searchAsync(wrapper)).flatMapIterable(list -> list);
+    }
+
+    public <T extends VectorModel<?>> Flux<T> query(LambdaQueryWrapper<T> wrapper) {
+        return Mono.fromFuture(() -> milvusClientService.queryAsync(wrapper)).flatMapIterable(list -> list);
+    }
+
+    public <T extends VectorModel<?>> Mono<Page<T>> queryPage(LambdaQueryWrapper<T> wrapper, Long page, Long pageSize) {
+        return Mono.fromFuture(() -> milvusClientService.queryPageAsync(wrapper, page, pageSize));
+    }
+
+    /**
+     * 按主键游标流式读取所有满足条件的实体, 每一批使用 {@code pk > 上一批最大主键} 加 limit 查询,
+     * 不受 milvus 对 offset + limit 的限制, 见 {@link MilvusClientService#queryIterator(LambdaQueryWrapper, int)}
+     * <p>调用时复制 wrapper 的查询条件, 忽略其中的 limit 和 offset, 也不会修改 wrapper;
+     * 下游请求数据时才发出查询, 最多预读一批, 某一批不足 batchSize 条时结束</p>
+     *
+     * @param wrapper   查询条件
+     * @param batchSize 每批条数
+     * @param <T>       实体类型
+     * @return 所有满足条件的实体
+     */
+    public <T extends VectorModel<?>> Flux<T> queryStream(LambdaQueryWrapper<T> wrapper, int batchSize) {
+        if (batchSize <= 0) {
+            return Flux.error(new MilvusException("batchSize must be greater than zero"));
+        }
+        Function<T, Object> primaryKeyGetter = milvusClientService.primaryKeyGetter(wrapper.getEntityClass());
+        Function<Object, CompletableFuture<List<T>>> fetcher = milvusClientService.primaryKeyFetcher(wrapper, batchSize);
+        return Mono.fromFuture(() -> fetcher.apply(null))
+                .expand(batch -> batch.size() < batchSize ? Mono.empty()
+                        : Mono.fromFuture(() -> fetcher.apply(PrimaryKeyCursor.maxPrimaryKey(batch, primaryKeyGetter))))
+                .concatMapIterable(batch -> batch, 1);
+    }
+}
@@ -0,0 +1,270 @@
+package plus.jdk.milvus.global;
+
+import com.alibaba.fastjson.JSONObject;
+import io.milvus.grpc.*;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import plus.jdk.milvus.common.MilvusException;
+import plus.jdk.milvus.metadata.EntityMapper;
+import plus.jdk.milvus.record.VectorModel;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ * 按列解析 milvus 返回的 {@link FieldData}
+ * </p>
+ * 直接遍历每一列的原始数据并写入实体, 不再为每一行构建
+ * {@link io.milvus.response.QueryResultsWrapper.RowRecord}
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ResultDecoder {
+
+    /**
+     * 解析 query 结果
+     *
+     * @param entityMapper 实体映射器
+     * @param results      query 结果
+     * @param <T>          实体类型
+     * @return 实体列表
+     */
+    public static <T> List<T> decodeQuery(EntityMapper<T> entityMapper, QueryResults results) throws MilvusException {
+        List<FieldData> fieldsData = results.getFieldsDataList();
+        int rowCount = fieldsData.isEmpty() ? 0 : rowCount(fieldsData.get(0));
+        List<T> entities = newInstances(entityMapper, rowCount);
+        fill(entityMapper, entities, fieldsData, 0);
+        return entities;
+    }
+
+    /**
+     * 解析 search 结果, 所有查询向量的结果按顺序放在同一个列表中
+     *
+     * @param entityMapper 实体映射器
+     * @param results      search 结果
+     * @param <T>          实体类型
+     * @return 实体列表
+     */
+    public static <T extends VectorModel<?>> List<T> decodeSearch(EntityMapper<T> entityMapper, SearchResultData results) throws MilvusException {
+        int rowCount = results.getScoresCount();
+        List<T> entities = newInstances(entityMapper, rowCount);
+        fill(entityMapper, entities, results.getFieldsDataList(), 0);
+        for (int i = 0; i < rowCount; i++) {
+            entities.get(i).setDistance(results.getScores(i));
+        }
+        return entities;
+    }
+
+    /**
+     * 解析 search 结果, 按查询向量分组
+     *
+     * @param entityMapper 实体映射器
+     * @param results      search 结果
+     * @param <T>          实体类型
+     * @return 每个查询向量的结果, 顺序与查询向量一致
+     */
+    public static <T extends VectorModel<?>> List<List<T>> decodeSearchGroups(EntityMapper<T> entityMapper, SearchResultData results) throws MilvusException {
+        List<T> entities = decodeSearch(entityMapper, results);
+        List<List<T>> groups = new ArrayList<>(results.getTopksCount());
+        int offset = 0;
+        for (int i = 0; i < results.getTopksCount(); i++) {
+            int topK = (int) results.getTopks(i);
+            groups.add(new ArrayList<>(entities.subList(offset, offset + topK)));
+            offset += topK;
+        }
+        return groups;
+    }
+
+    /**
+     * 将各列从 {@code from} 开始的数据依次写入实体
+     *
+     * @param entityMapper 实体映射器
+     * @param entities     需要填充的实体, 第 k 个实体对应第 from + k 行
+     * @param fieldsData   列数据
+     * @param from         起始行
+     * @param <T>          实体类型
+     */
+    public static <T> void fill(EntityMapper<T> entityMapper, List<T> entities, List<FieldData> fieldsData, int from) throws MilvusException {
+        for (FieldData fieldData : fieldsData) {
+            int index = entityMapper.indexOf(fieldData.getFieldName());
+            if (index < 0 || fieldData.getIsDynamic()) {
+                continue;
+            }
+            fillColumn(entityMapper, index, entities, fieldData, from);
+        }
+    }
+
+    private static <T> List<T> newInstances(EntityMapper<T> entityMapper, int rowCount) {
+        List<T> entities = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            entities.add(entityMapper.newInstance());
+        }
+        return entities;
+    }
+
+    private static <T> void fillColumn(EntityMapper<T> entityMapper, int index, List<T> entities, FieldData fieldData, int from) {
+        ScalarField scalars = fieldData.getScalars();
+        int size = entities.size();
+        // 自定义类型处理器只用于反序列化向量字段, 向量字段只有通过 outputVectors 或 select 指定时才会返回
+        boolean vectorField = fieldData.getType() == DataType.FloatVector || fieldData.getType() == DataType.BinaryVector;
+        VectorTypeHandler<Object> typeHandler = vectorField ? entityMapper.getTypeHandler(index) : null;
+        switch (fieldData.getType()) {
+            case Bool:
+                BoolArray boolData = scalars.getBoolData();
+                for (int i = 0; i < size; i++) {
+                    setValue(entityMapper, typeHandler, entities.get(i), index, boolData.getData(from + i));
+                }
+                break;
+            case Int8:
+            case Int16:
+            case Int32:
+                IntArray intData = scalars.getIntData();
+                for (int i = 0; i < size; i++) {
+                    setValue(entityMapper, typeHandler, entities.get(i), index, intData.getData(from + i));
+                }
+                break;
+            case Int64:
+                LongArray longData = scalars.getLongData();
+                for (int i = 0; i < size; i++) {
+                    setValue(entityMapper, typeHandler, entities.get(i), index, longData.getData(from + i));
+                }
+                break;
+            case Float:
+                FloatArray floatData = scalars.getFloatData();
+                for (int i = 0; i < size; i++) {
+                    setValue(entityMapper, typeHandler, entities.get(i), index, floatData.getData(from + i));
+                }
+                break;
+            case Double:
+                DoubleArray doubleData = scalars.getDoubleData();
+                for (int i = 0; i < size; i++) {
+                    setValue(entityMapper, typeHandler, entities.get(i), index, doubleData.getData(from + i));
+                }
+                break;
+            case String:
+            case VarChar:
+                StringArray stringData = scalars.getStringData();
+                for (int i = 0; i < size; i++) {
+                    setValue(entityMapper, typeHandler, entities.get(i), index, stringData.getData(from + i));
+                }
+                break;
+            case JSON:
+                JSONArray jsonData = scalars.getJsonData();
+                for (int i = 0; i < size; i++) {
+                    setValue(entityMapper, typeHandler, entities.get(i), index, JSONObject.parseObject(jsonData.getData(from + i).toStringUtf8()));
+                }
+                break;
+            case Array:
+                ArrayArray arrayData = scalars.getArrayData();
+                for (int i = 0; i < size; i++) {
+                    setValue(entityMapper, typeHandler, entities.get(i), index, scalarList(arrayData.getElementType(), arrayData.getData(from + i)));
+                }
+                break;
+            case FloatVector:
+                FloatArray floatVector = fieldData.getVectors().getFloatVector();
+                int dim = (int) fieldData.getVectors().getDim();
+                Class<?> floatFieldType = entityMapper.getFieldType(index);
+                for (int i = 0; i < size; i++) {
+                    int offset = (from + i) * dim;
+                    setValue(entityMapper, typeHandler, entities.get(i), index, floatVector(floatVector, offset, dim, floatFieldType));
+                }
+                break;
+            case BinaryVector:
+                int bytesPerVector = (int) fieldData.getVectors().getDim() / 8;
+                boolean byteBuffer = entityMapper.getFieldType(index).isAssignableFrom(ByteBuffer.class);
+                for (int i = 0; i < size; i++) {
+                    int offset = (from + i) * bytesPerVector;
+                    byte[] bytes = fieldData.getVectors().getBinaryVector().substring(offset, offset + bytesPerVector).toByteArray();
+                    setValue(entityMapper, typeHandler, entities.get(i), index, byteBuffer ? ByteBuffer.wrap(bytes) : bytes);
+                }
+                break;
+            default:
+                throw new MilvusException(String.format("unsupported data type %s of field '%s'", fieldData.getType(), fieldData.getFieldName()));
+        }
+    }
+
+    /**
+     * 写入实体, 向量字段配置了自定义类型处理器时先反序列化
+     */
+    private static <T> void setValue(EntityMapper<T> entityMapper, VectorTypeHandler<Object> typeHandler, T entity, int index, Object value) {
+        entityMapper.setValue(entity, index, typeHandler == null ? value : typeHandler.deserialize(Collections.singletonList(value)));
+    }
+
+    /**
+     * 按实体字段类型读取一行浮点向量
+     * <p>字段为 {@code List} 时复制为新的列表, 不引用 milvus 返回的结果, 为 {@link FloatBuffer} 时包装数组, 其他类型(包括 {@code float[]} 和交给自定义类型处理器的字段)
+     * 直接读取原始 float 到 {@code float[]}, 不经过装箱</p>
+     */
+    private static Object floatVector(FloatArray floatVector, int offset, int dim, Class<?> fieldType) {
+        if (fieldType.isAssignableFrom(List.class)) {
+            return new ArrayList<>(floatVector.getDataList().subList(offset, offset + dim));
+        }
+        float[] vector = new float[dim];
+        for (int j = 0; j < dim; j++) {
+            vector[j] = floatVector.getData(offset + j);
+        }
+        return fieldType == FloatBuffer.class ? FloatBuffer.wrap(vector) : vector;
+    }
+
+    private static List<?> scalarList(DataType elementType, ScalarField scalarField) {
+        switch (elementType) {
+            case Bool:
+                return scalarField.getBoolData().getDataList();
+            case Int8:
+            case Int16:
+            case Int32:
+                return scalarField.getIntData().getDataList();
+            case Int64:
+                return scalarField.getLongData().getDataList();
+            case Float:
+                return scalarField.getFloatData().getDataList();
+            case Double:
+                return scalarField.getDoubleData().getDataList();
+            case String:
+            case VarChar:
+                return scalarField.getStringData().getDataList();
+            default:
+                throw new MilvusException(String.format("unsupported array element type %s", elementType));
+        }
+    }
+
+    /**
+     * 计算一列数据的行数
+     *
+     * @param fieldData 列数据
+     * @return 行数
+     */
+    public static int rowCount(FieldData fieldData) {
+        ScalarField scalars = fieldData.getScalars();
+        switch (fieldData.getType()) {
+            case Bool:
+                return scalars.getBoolData().getDataCount();
+            case Int8:
+            case Int16:
+            case Int32:
+                return scalars.getIntData().getDataCount();
+            case Int64:
+                return scalars.getLongData().getDataCount();
+            case Float:
+                return scalars.getFloatData().getDataCount();
+            case Double:
+                return scalars.getDoubleData().getDataCount();
+            case String:
+            case VarChar:
+                return scalars.getStringData().getDataCount();
+            case JSON:
+                return scalars.getJsonData().getDataCount();
+            case Array:
+                return scalars.getArrayData().getDataCount();
+            case FloatVector:
+                return (int) (fieldData.getVectors().getFloatVector().getDataCount() / fieldData.getVectors().getDim());
+            case BinaryVector:
+                return (int) (fieldData.getVectors().getBinaryVector().size() * 8L / fieldData.getVectors().getDim());
+            default:
+                throw new MilvusException(String.format("unsupported data type %s of field '%s'", fieldData.getType(), fieldData.getFieldName()));
+        }
+    }
+}
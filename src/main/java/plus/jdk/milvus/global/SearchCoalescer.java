@@ -0,0 +1,171 @@
+package plus.jdk.milvus.global;
+
+import plus.jdk.milvus.common.MilvusException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * 合并并发的单向量检索
+ * <p>同一时间窗口内 collection、过滤表达式、topK 等参数完全一致的检索请求会被合并为一次 nq &gt; 1 的检索,
+ * 结果再按请求拆分返回</p>
+ * <p>第一个到达的请求负责等待窗口结束(或攒够 maxBatch 个向量)并在自己的线程上发起请求, 不需要额外的线程</p>
+ */
+public class SearchCoalescer {
+
+    private final long windowNanos;
+
+    private final int maxBatch;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Map<String, Batch> batches = new HashMap<>();
+
+    public SearchCoalescer(long windowMicros, int maxBatch) {
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatch = maxBatch;
+    }
+
+    /**
+     * 检索, 可能与其他请求合并后一起发送
+     *
+     * @param key      参数签名, 只有签名相同的请求才会合并
+     * @param vectors  本次请求的向量
+     * @param executor 使用合并后的向量发起检索, 返回按向量分组的结果
+     * @param <T>      实体类型
+     * @return 本次请求向量的检索结果
+     * @throws MilvusException 检索失败时抛出
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> search(String key, List<?> vectors, Function<List<?>, List<List<T>>> executor) throws MilvusException {
+        Batch batch;
+        Request request;
+        boolean leader = false;
+        lock.lock();
+        try {
+            batch = batches.get(key);
+            if (batch == null) {
+                batch = new Batch(lock.newCondition());
+                batches.put(key, batch);
+                leader = true;
+            }
+            request = batch.add(vectors);
+            if (batch.vectors.size() >= maxBatch) {
+                batch.close(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (leader) {
+            awaitWindow(key, batch);
+            batch.execute((Function<List<?>, List<List<Object>>>) (Function<?, ?>) executor);
+        }
+        return (List<T>) join(request.future);
+    }
+
+    private void awaitWindow(String key, Batch batch) {
+        lock.lock();
+        try {
+            long nanos = windowNanos;
+            while (!batch.closed && nanos > 0) {
+                nanos = batch.full.awaitNanos(nanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (!batch.closed) {
+                batch.close(key);
+            }
+            lock.unlock();
+        }
+    }
+
+    private static List<Object> join(CompletableFuture<List<Object>> future) throws MilvusException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MilvusException("interrupted while waiting for coalesced search", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof MilvusException) {
+                throw (MilvusException) cause;
+            }
+            throw new MilvusException(cause.getMessage(), cause);
+        }
+    }
+
+    private static class Request {
+
+        private final int offset;
+
+        private final int count;
+
+        private final CompletableFuture<List<Object>> future = new CompletableFuture<>();
+
+        private Request(int offset, int count) {
+            this.offset = offset;
+            this.count = count;
+        }
+    }
+
+    private class Batch {
+
+        private final Condition full;
+
+        private final List<Object> vectors = new ArrayList<>();
+
+        private final List<Request> requests = new ArrayList<>();
+
+        private boolean closed = false;
+
+        private Batch(Condition full) {
+            this.full = full;
+        }
+
+        private Request add(List<?> values) {
+            Request request = new Request(vectors.size(), values.size());
+            vectors.addAll(values);
+            requests.add(request);
+            return request;
+        }
+
+        /**
+         * 不再接收新的请求, 调用时需持有锁
+         */
+        private void close(String key) {
+            closed = true;
+            batches.remove(key, this);
+            full.signalAll();
+        }
+
+        private void execute(Function<List<?>, List<List<Object>>> executor) {
+            try {
+                List<List<Object>> groups = executor.apply(vectors);
+                for (Request request : requests) {
+                    if (request.count == 1) {
+                        request.future.complete(groups.get(request.offset));
+                        continue;
+                    }
+                    List<Object> rows = new ArrayList<>();
+                    for (int i = request.offset; i < request.offset + request.count; i++) {
+                        rows.addAll(groups.get(i));
+                    }
+                    request.future.complete(rows);
+                }
+            } catch (Throwable e) {
+                for (Request request : requests) {
+                    request.future.completeExceptionally(e);
+                }
+            }
+        }
+    }
+}
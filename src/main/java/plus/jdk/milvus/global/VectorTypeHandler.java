@@ -13,8 +13,14 @@ public interface VectorTypeHandler<T> {
 
 
     /**
-     * @param data 传入的数据
-     * @return 目前没用到，暂时不支持，需要后续新增功能
+     * 读取 search/query 结果中的向量字段时反序列化, 是 {@link #serialize(Object)} 的逆操作
+     * <p>只对通过 outputVectors 或 select 指定返回的向量字段调用, 返回值直接写入实体字段;
+     * 标量字段不会调用, 仍然直接写入 milvus 返回的值</p>
+     * <p>传入的元素类型由实体字段类型决定: 字段为 {@code List}、{@code FloatBuffer}、{@code ByteBuffer} 时为同类型,
+     * 其他类型的浮点向量为 {@code float[]}, 二进制向量为 {@code byte[]}</p>
+     *
+     * @param data milvus 返回的数据, 与 serialize 的返回值对应
+     * @return 实体字段值
      */
     T deserialize(Collection<T> data);
 }
@@ -0,0 +1,612 @@
+package plus.jdk.milvus.global;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import plus.jdk.milvus.autoconfigure.MilvusPlusProperties;
+import plus.jdk.milvus.common.MilvusException;
+import plus.jdk.milvus.global.journal.JournalRecord;
+import plus.jdk.milvus.global.journal.JournalRowCodec;
+import plus.jdk.milvus.global.journal.WriteAheadJournal;
+import plus.jdk.milvus.metadata.CollectionDefinition;
+import plus.jdk.milvus.metadata.CollectionHelper;
+import plus.jdk.milvus.metadata.ColumnDefinition;
+import plus.jdk.milvus.metadata.EntityMapper;
+import plus.jdk.milvus.record.VectorModel;
+import plus.jdk.milvus.toolkit.ClassUtils;
+import plus.jdk.milvus.toolkit.PayloadSizeUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 异步批量写入(write-behind)
+ * <p>实体先进入每个 collection 独立的有界缓冲区, 行数、数据量或时间间隔任一达到阈值后按列批量写入 milvus</p>
+ * <p>缓冲区满时写入线程会被阻塞, 应用关闭时会将缓冲区中剩余的数据写完</p>
+ * <p>按主键删除也可以进入缓冲区, 同一个 collection 的写入和删除按进入缓冲区的顺序执行</p>
+ * <p>被限流或连接失败时没有写入的数据留在缓冲区中, 按 flushInterval 重试; 其他错误与数据本身有关,
+ * 批次拆分后重新写入, 只有出错的行失败, 其余的行正常写入</p>
+ * <p>开启预写日志时数据先追加到本地日志再进入缓冲区, 写入 milvus 成功或单独失败后确认;
+ * 关闭时仍然没有写入的数据不会确认; 启动时日志中未确认的数据在后台按原顺序重新写入, 主键由客户端指定时使用 upsert, 重复写入不会产生重复的行</p>
+ * <p>重新写入完成前缓冲区中的数据不会写入 milvus, 以保证顺序; 重新写入失败时按 flushInterval 重试,
+ * 每写入一组就记录进度, 中断后从中断的位置继续</p>
+ */
+@Slf4j
+public class WriteBehindInserter implements InitializingBean, DisposableBean {
+
+    private final MilvusClientService milvusClientService;
+
+    private final MilvusPlusProperties.WriteBehind config;
+
+    private final Map<Class<?>, CollectionBuffer> buffers = new ConcurrentHashMap<>();
+
+    private final Gson gson = new Gson();
+
+    private volatile WriteAheadJournal journal;
+
+    private volatile ScheduledExecutorService executor;
+
+    private volatile boolean closed = false;
+
+    /**
+     * 日志中上次未确认的数据是否已经全部重新写入
+     */
+    private volatile boolean replayed = true;
+
+    public WriteBehindInserter(MilvusClientService milvusClientService, MilvusPlusProperties.WriteBehind config) {
+        this.milvusClientService = milvusClientService;
+        this.config = config;
+    }
+
+    /**
+     * 开启预写日志时打开日志, 并在后台重新写入上次未确认的数据
+     * <p>自动配置只在使用 write-behind 时创建该 bean: 对所有 repository 开启时在启动完成后创建,
+     * 只对部分 repository 开启时在第一次写入时创建</p>
+     */
+    @Override
+    public void afterPropertiesSet() {
+        if (!config.getJournal().isEnabled()) {
+            return;
+        }
+        try {
+            ensureStarted();
+        } catch (Exception e) {
+            log.error("failed to open write-behind journal, will retry on first use", e);
+        }
+    }
+
+    /**
+     * 将实体放入缓冲区
+     *
+     * @param vectorModel 需要写入的实体
+     * @param <T>         实体类型
+     * @return 写入成功后以主键完成的 future, 主键由客户端生成时返回前就已回填到实体中
+     * @throws MilvusException 缓冲区已关闭或等待超时
+     */
+    public <T extends VectorModel<?>> CompletableFuture<Object> insert(T vectorModel) throws MilvusException {
+        if (closed) {
+            throw new MilvusException("write-behind inserter is closed");
+        }
+        ensureStarted();
+        CollectionBuffer buffer = buffers.computeIfAbsent(vectorModel.getClass(),
+                clazz -> new CollectionBuffer(CollectionHelper.getCollectionInfo(clazz)));
+        milvusClientService.assignPrimaryKeys(buffer.collectionDefinition, Collections.singletonList(vectorModel));
+        return buffer.add(new Pending(vectorModel, null, buffer.estimate(vectorModel)));
+    }
+
+    /**
+     * 将按主键删除放入缓冲区, 在此之前进入缓冲区的同一个 collection 的写入会先执行
+     *
+     * @param pk    主键
+     * @param clazz 实体类型
+     * @param <T>   实体类型
+     * @return 删除成功后完成的 future
+     * @throws MilvusException 缓冲区已关闭或等待超时
+     */
+    public <T extends VectorModel<?>> CompletableFuture<Boolean> remove(Object pk, Class<T> clazz) throws MilvusException {
+        if (closed) {
+            throw new MilvusException("write-behind inserter is closed");
+        }
+        if (pk == null) {
+            throw new MilvusException("primary key is null");
+        }
+        ensureStarted();
+        CollectionBuffer buffer = buffers.computeIfAbsent(clazz, key -> new CollectionBuffer(CollectionHelper.getCollectionInfo(key)));
+        return buffer.add(new Pending(null, pk, PayloadSizeUtils.estimate(pk))).thenApply(result -> Boolean.TRUE);
+    }
+
+    /**
+     * 立即写入所有缓冲区中的数据
+     */
+    public void flush() {
+        for (CollectionBuffer buffer : buffers.values()) {
+            buffer.flush();
+        }
+    }
+
+    /**
+     * 关闭前写完缓冲区中的数据; 日志中上次未确认的数据还没有重新写入完成时, 缓冲区中的数据不再写入,
+     * 对应的 future 以异常完成, 数据保留在日志中, 下次启动时重新写入
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        closed = true;
+        ScheduledExecutorService current = executor;
+        if (current == null) {
+            return;
+        }
+        current.shutdown();
+        for (CollectionBuffer buffer : buffers.values()) {
+            buffer.wakeUp();
+        }
+        flush();
+        if (!current.awaitTermination(config.getShutdownTimeout(), TimeUnit.MILLISECONDS)) {
+            log.warn("write-behind inserter did not finish flushing within {} ms", config.getShutdownTimeout());
+        }
+        if (replayed) {
+            // 等待期间重新写入才完成时, 缓冲区中的数据还没有写入
+            flush();
+        } else {
+            MilvusException e = new MilvusException("write-behind journal replay did not finish, buffered rows are kept in the journal");
+            for (CollectionBuffer buffer : buffers.values()) {
+                buffer.abort(e);
+            }
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private void ensureStarted() {
+        if (executor != null) {
+            return;
+        }
+        synchronized (this) {
+            if (executor != null) {
+                return;
+            }
+            if (config.getJournal().isEnabled() && journal == null) {
+                journal = new WriteAheadJournal(config.getJournal());
+            }
+            AtomicInteger threadIndex = new AtomicInteger();
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(Math.max(1, config.getFlushThreads()), runnable -> {
+                Thread thread = new Thread(runnable, "milvus-write-behind-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            // 关闭时不再等待尚未开始的重新写入
+            scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+            scheduler.scheduleWithFixedDelay(this::flushQuietly, config.getFlushInterval(), config.getFlushInterval(), TimeUnit.MILLISECONDS);
+            executor = scheduler;
+            if (journal != null) {
+                replayed = false;
+                scheduler.execute(this::replayQuietly);
+            }
+        }
+    }
+
+    /**
+     * 重新写入失败时按 flushInterval 重试, 已经写入的部分不会重复写入
+     */
+    private void replayQuietly() {
+        try {
+            replay();
+            replayed = true;
+        } catch (Exception e) {
+            log.error("failed to replay write-behind journal, will retry in {} ms", config.getFlushInterval(), e);
+            try {
+                executor.schedule(this::replayQuietly, config.getFlushInterval(), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException rejected) {
+                log.warn("write-behind inserter is closed, journal replay will resume on next start");
+            }
+        }
+    }
+
+    /**
+     * 按原顺序重新写入日志中上次未确认的数据, 相邻的同类记录合并为一次请求, 每次请求成功后记录进度
+     */
+    private void replay() throws MilvusException {
+        List<JournalRecord> records = journal.readRecovered();
+        if (!records.isEmpty()) {
+            log.info("replaying {} write-behind journal records", records.size());
+        }
+        int from = 0;
+        while (from < records.size()) {
+            JournalRecord first = records.get(from);
+            int to = from + 1;
+            while (to < records.size() && to - from < config.getMaxRows() && records.get(to).getType() == first.getType()
+                    && records.get(to).getEntityType().equals(first.getEntityType())) {
+                to++;
+            }
+            replay(first, records.subList(from, to));
+            journal.ackRecovered(to - from);
+            from = to;
+        }
+        journal.deleteRecovered();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void replay(JournalRecord first, List<JournalRecord> records) throws MilvusException {
+        Class<VectorModel<?>> clazz = (Class<VectorModel<?>>) ClassUtils.toClassConfident(first.getEntityType());
+        CollectionDefinition collectionDefinition = CollectionHelper.getCollectionInfo(clazz);
+        if (first.getType() == JournalRecord.DELETE) {
+            EntityMapper<?> entityMapper = collectionDefinition.getEntityMapper();
+            Class<?> primaryType = entityMapper.getFieldType(entityMapper.getPrimaryIndex());
+            List<Object> pks = new ArrayList<>();
+            for (JournalRecord record : records) {
+                for (JsonElement element : gson.fromJson(record.getPayload(), JsonArray.class)) {
+                    pks.add(gson.fromJson(element, primaryType));
+                }
+            }
+            milvusClientService.removeByIds(pks, clazz);
+            return;
+        }
+        List<String> rows = new ArrayList<>(records.size());
+        for (JournalRecord record : records) {
+            rows.add(record.getPayload());
+        }
+        JournalRowCodec.Columns columns = JournalRowCodec.decode(collectionDefinition, rows);
+        ColumnDefinition primaryColumn = collectionDefinition.getPrimaryColumn();
+        milvusClientService.writeColumns(collectionDefinition, columns.getNames(), columns.getValues(),
+                primaryColumn != null && !primaryColumn.autoId());
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("write-behind flush failed", e);
+        }
+    }
+
+    /**
+     * 被服务端限流, 或请求没有得到服务端的响应(连接失败、超时等, 请求过大除外), 与数据本身无关, 稍后重试
+     */
+    private static boolean isTransient(Throwable error) {
+        MilvusException exception = AdaptiveBatchController.unwrap(error);
+        if (exception != null && exception.isRateLimited()) {
+            return true;
+        }
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof StatusRuntimeException) {
+                return ((StatusRuntimeException) t).getStatus().getCode() != Status.Code.RESOURCE_EXHAUSTED;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 写入因为暂时性的错误中断
+     */
+    private static class RetryLaterException extends Exception {
+
+        /**
+         * 中断前已经写入的行数
+         */
+        private final int written;
+
+        private RetryLaterException(int written, Throwable cause) {
+            super(cause);
+            this.written = written;
+        }
+    }
+
+    private static class Pending {
+
+        /**
+         * 需要写入的实体, 删除时为 null
+         */
+        private final VectorModel<?> vectorModel;
+
+        /**
+         * 需要删除的主键, 写入时为 null
+         */
+        private final Object pk;
+
+        private final long bytes;
+
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        /**
+         * 在预写日志中的位置, 未开启预写日志时为 -1
+         */
+        private long position = -1;
+
+        private Pending(VectorModel<?> vectorModel, Object pk, long bytes) {
+            this.vectorModel = vectorModel;
+            this.pk = pk;
+            this.bytes = bytes;
+        }
+
+        private boolean isDelete() {
+            return vectorModel == null;
+        }
+    }
+
+    private class CollectionBuffer {
+
+        private final CollectionDefinition collectionDefinition;
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final Condition notFull = lock.newCondition();
+
+        /**
+         * 保证同一个 collection 的批次按顺序写入
+         */
+        private final ReentrantLock flushLock = new ReentrantLock();
+
+        private List<Pending> pending = new ArrayList<>();
+
+        private long pendingBytes = 0;
+
+        /**
+         * 缓冲区中以及正在写入的行数, 用于背压
+         */
+        private int occupied = 0;
+
+        /**
+         * 因为限流或连接失败没有写入时, 下次重试的 {@link System#nanoTime()}
+         */
+        private volatile long retryAt = System.nanoTime();
+
+        private CollectionBuffer(CollectionDefinition collectionDefinition) {
+            this.collectionDefinition = collectionDefinition;
+        }
+
+        private CompletableFuture<Object> add(Pending item) throws MilvusException {
+            JournalRecord record = journal == null ? null : toRecord(item);
+            boolean full;
+            lock.lock();
+            try {
+                // 在锁内再次检查, 关闭后最后一次 flush 取走缓冲区时不会再有数据进入
+                if (closed) {
+                    throw new MilvusException("write-behind inserter is closed");
+                }
+                long nanos = TimeUnit.MILLISECONDS.toNanos(config.getOfferTimeout());
+                while (occupied >= config.getCapacity()) {
+                    if (closed) {
+                        throw new MilvusException("write-behind inserter is closed");
+                    }
+                    if (nanos <= 0) {
+                        throw new MilvusException(String.format("write-behind buffer of collection '%s' is full", collectionDefinition.getName()));
+                    }
+                    nanos = notFull.awaitNanos(nanos);
+                }
+                if (record != null) {
+                    item.position = journal.append(record);
+                }
+                pending.add(item);
+                pendingBytes += item.bytes;
+                occupied++;
+                full = pending.size() >= config.getMaxRows() || pendingBytes >= config.getMaxBytes();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MilvusException("interrupted while waiting for write-behind buffer", e);
+            } finally {
+                lock.unlock();
+            }
+            if (full) {
+                try {
+                    executor.execute(this::flush);
+                } catch (RejectedExecutionException e) {
+                    flush();
+                }
+            }
+            return item.future;
+        }
+
+        /**
+         * 日志中上次未确认的数据重新写入完成前不写入, 数据留在缓冲区中;
+         * 上次因为限流或连接失败没有写入时, 距离失败不到 flushInterval 不写入, 关闭时除外
+         */
+        private void flush() {
+            if (!replayed || !closed && System.nanoTime() - retryAt < 0) {
+                return;
+            }
+            flushLock.lock();
+            try {
+                List<Pending> batch;
+                lock.lock();
+                try {
+                    if (pending.isEmpty()) {
+                        return;
+                    }
+                    batch = pending;
+                    pending = new ArrayList<>();
+                    pendingBytes = 0;
+                } finally {
+                    lock.unlock();
+                }
+                List<Pending> retry = Collections.emptyList();
+                try {
+                    retry = write(batch);
+                } finally {
+                    requeue(batch.size(), retry);
+                }
+            } finally {
+                flushLock.unlock();
+            }
+        }
+
+        /**
+         * 没有写入的数据放回缓冲区头部, 保持顺序, 仍然占用缓冲区的容量
+         */
+        private void requeue(int flushed, List<Pending> retry) {
+            lock.lock();
+            try {
+                if (!retry.isEmpty()) {
+                    pending.addAll(0, retry);
+                    for (Pending item : retry) {
+                        pendingBytes += item.bytes;
+                    }
+                    retryAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getFlushInterval());
+                }
+                occupied -= flushed - retry.size();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 相邻的写入合并为一次批量写入, 相邻的删除合并为一次按主键删除
+         *
+         * @return 因为限流或连接失败没有写入的部分, 从第一个没有写入的数据开始, 下次 flush 时重试; 关闭后不再重试, 对应的 future 以异常完成
+         */
+        private List<Pending> write(List<Pending> batch) {
+            int from = 0;
+            while (from < batch.size()) {
+                boolean delete = batch.get(from).isDelete();
+                int to = from + 1;
+                while (to < batch.size() && batch.get(to).isDelete() == delete) {
+                    to++;
+                }
+                try {
+                    writeRun(batch.subList(from, to), delete);
+                } catch (RetryLaterException e) {
+                    List<Pending> rest = batch.subList(from + e.written, batch.size());
+                    log.warn("write-behind write of {} rows into '{}' failed, will retry in {} ms", rest.size(),
+                            collectionDefinition.getName(), config.getFlushInterval(), e.getCause());
+                    if (!closed) {
+                        return new ArrayList<>(rest);
+                    }
+                    for (Pending item : rest) {
+                        item.future.completeExceptionally(e.getCause());
+                    }
+                    return Collections.emptyList();
+                }
+                from = to;
+            }
+            return Collections.emptyList();
+        }
+
+        /**
+         * 写入一组相邻的同类数据, 写入成功的部分确认日志并完成 future
+         * <p>限流或请求没有得到服务端响应时抛出 {@link RetryLaterException}, 整组稍后重试;
+         * 其他错误与数据本身有关(例如某一行缺少其他行都有的字段), 拆分为两半分别写入, 最终只有出错的行失败,
+         * 失败的行已经通过 future 通知调用方, 日志中同样确认, 不会在重启后再次写入.
+         * 批量写入按请求回调写入成功的范围, 部分请求失败时只重试剩余的行, 服务端生成主键时也不会重复写入</p>
+         */
+        @SuppressWarnings("unchecked")
+        private void writeRun(List<Pending> run, boolean delete) throws RetryLaterException {
+            int[] written = {0};
+            try {
+                if (delete) {
+                    List<Object> pks = new ArrayList<>(run.size());
+                    for (Pending item : run) {
+                        pks.add(item.pk);
+                    }
+                    milvusClientService.removeByIds(pks, (Class<VectorModel<?>>) collectionDefinition.getEntityType());
+                    complete(run);
+                } else {
+                    List<VectorModel<?>> vectorModels = new ArrayList<>(run.size());
+                    for (Pending item : run) {
+                        vectorModels.add(item.vectorModel);
+                    }
+                    milvusClientService.insertBatch(vectorModels, (from, to) -> {
+                        complete(run.subList(from, to));
+                        written[0] = to;
+                    });
+                }
+            } catch (Exception e) {
+                if (isTransient(e)) {
+                    throw new RetryLaterException(written[0], e);
+                }
+                List<Pending> rest = run.subList(written[0], run.size());
+                if (rest.size() == 1) {
+                    log.error("write-behind write into '{}' failed for a single row, dropping it", collectionDefinition.getName(), e);
+                    Pending item = rest.get(0);
+                    if (item.position >= 0) {
+                        journal.ack(item.position);
+                    }
+                    item.future.completeExceptionally(e);
+                    return;
+                }
+                int middle = rest.size() >>> 1;
+                try {
+                    writeRun(rest.subList(0, middle), delete);
+                } catch (RetryLaterException retry) {
+                    throw new RetryLaterException(written[0] + retry.written, retry.getCause());
+                }
+                try {
+                    writeRun(rest.subList(middle, rest.size()), delete);
+                } catch (RetryLaterException retry) {
+                    throw new RetryLaterException(written[0] + middle + retry.written, retry.getCause());
+                }
+            }
+        }
+
+        private void complete(List<Pending> items) {
+            EntityMapper<?> entityMapper = collectionDefinition.getEntityMapper();
+            int primaryIndex = entityMapper.getPrimaryIndex();
+            for (Pending item : items) {
+                if (item.position >= 0) {
+                    journal.ack(item.position);
+                }
+                item.future.complete(item.isDelete() ? item.pk : primaryIndex < 0 ? null : entityMapper.getValue(item.vectorModel, primaryIndex));
+            }
+        }
+
+        /**
+         * 写入记录经过类型处理器序列化后的各列的值, 见 {@link JournalRowCodec}; 删除记录主键的 json
+         */
+        private JournalRecord toRecord(Pending item) {
+            if (item.isDelete()) {
+                return new JournalRecord(JournalRecord.DELETE, collectionDefinition.getEntityType().getName(),
+                        gson.toJson(Collections.singletonList(item.pk)));
+            }
+            return new JournalRecord(JournalRecord.INSERT, collectionDefinition.getEntityType().getName(),
+                    JournalRowCodec.encode(collectionDefinition, item.vectorModel));
+        }
+
+        /**
+         * 丢弃缓冲区中的数据, 对应的日志记录不确认
+         */
+        private void abort(MilvusException e) {
+            List<Pending> batch;
+            lock.lock();
+            try {
+                batch = pending;
+                pending = new ArrayList<>();
+                pendingBytes = 0;
+                occupied -= batch.size();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            for (Pending item : batch) {
+                item.future.completeExceptionally(e);
+            }
+        }
+
+        private void wakeUp() {
+            lock.lock();
+            try {
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private long estimate(VectorModel<?> vectorModel) {
+            EntityMapper<?> entityMapper = collectionDefinition.getEntityMapper();
+            long bytes = 0;
+            for (int i = 0; i < collectionDefinition.getColumns().size(); i++) {
+                bytes += PayloadSizeUtils.estimate(entityMapper.getValue(vectorModel, i));
+            }
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package plus.jdk.milvus.global.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 基于近似 LRU 和过期时间的本地缓存
+ * <p>每个 collection 维护一个版本号, 写入时版本号加一, 旧版本的缓存在读取时视为未命中, 并在淘汰时清理;
+ * 版本号在调用 loader 之前读取, 因此加载期间发生的写入不会导致旧结果被缓存</p>
+ * <p>读写都不加全局锁, 命中时只更新条目的访问时间; 条目数超过上限时由一个线程扫描所有条目,
+ * 先清理过期和旧版本的条目, 仍然超过上限时按访问时间淘汰最久未访问的条目, 直到低于上限的 90%.
+ * 淘汰期间其他线程的写入不会等待, 条目数可能短暂超过上限</p>
+ */
+public class LocalResultCache implements ResultCache {
+
+    private final int maxSize;
+
+    private final long ttlNanos;
+
+    private final Map<Object, CacheEntry> entries = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    public LocalResultCache(int maxSize, long ttlMillis) {
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V> V get(String collectionName, Object key, Supplier<V> loader) {
+        AtomicLong version = version(collectionName);
+        long currentVersion = version.get();
+        Stats collectionStats = stats(collectionName);
+        CacheEntry entry = entries.get(key);
+        if (entry != null) {
+            long now = System.nanoTime();
+            if (entry.isLive(now)) {
+                entry.accessedAt = now;
+                collectionStats.hits.increment();
+                return (V) entry.value;
+            }
+            entries.remove(key, entry);
+        }
+        collectionStats.misses.increment();
+        V value = loader.get();
+        long now = System.nanoTime();
+        entries.put(key, new CacheEntry(value, version, currentVersion, now + ttlNanos, now));
+        evict();
+        return value;
+    }
+
+    @Override
+    public void invalidate(String collectionName) {
+        version(collectionName).incrementAndGet();
+    }
+
+    @Override
+    public long getHitCount(String collectionName) {
+        return stats(collectionName).hits.sum();
+    }
+
+    @Override
+    public long getMissCount(String collectionName) {
+        return stats(collectionName).misses.sum();
+    }
+
+    /**
+     * 淘汰条目, 已有线程在淘汰时直接返回; 淘汰的线程释放锁后重新检查条目数, 淘汰期间其他线程放入的条目不会遗漏
+     */
+    private void evict() {
+        while (entries.size() > maxSize && evictionLock.tryLock()) {
+            try {
+                evictLocked();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void evictLocked() {
+        long now = System.nanoTime();
+        List<Map.Entry<Object, CacheEntry>> live = new ArrayList<>(entries.size());
+        for (Map.Entry<Object, CacheEntry> entry : entries.entrySet()) {
+            if (entry.getValue().isLive(now)) {
+                live.add(entry);
+            } else {
+                entries.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        int excess = live.size() - (maxSize - maxSize / 10);
+        if (excess <= 0) {
+            return;
+        }
+        long[] accessedAt = new long[live.size()];
+        for (int i = 0; i < accessedAt.length; i++) {
+            accessedAt[i] = live.get(i).getValue().accessedAt - now;
+        }
+        Arrays.sort(accessedAt);
+        long threshold = accessedAt[excess - 1];
+        for (Map.Entry<Object, CacheEntry> entry : live) {
+            if (excess == 0) {
+                break;
+            }
+            if (entry.getValue().accessedAt - now <= threshold && entries.remove(entry.getKey(), entry.getValue())) {
+                excess--;
+            }
+        }
+    }
+
+    private AtomicLong version(String collectionName) {
+        return versions.computeIfAbsent(collectionName, name -> new AtomicLong());
+    }
+
+    private Stats stats(String collectionName) {
+        return stats.computeIfAbsent(collectionName, name -> new Stats());
+    }
+
+    private static class CacheEntry {
+
+        private final Object value;
+
+        /**
+         * 所属 collection 的版本号, 与 {@link #version} 不同时条目已失效
+         */
+        private final AtomicLong collectionVersion;
+
+        private final long version;
+
+        private final long expireAt;
+
+        /**
+         * 最近一次访问的 {@link System#nanoTime()}, 只用于淘汰, 并发更新时保留任意一个值即可
+         */
+        private volatile long accessedAt;
+
+        private CacheEntry(Object value, AtomicLong collectionVersion, long version, long expireAt, long accessedAt) {
+            this.value = value;
+            this.collectionVersion = collectionVersion;
+            this.version = version;
+            this.expireAt = expireAt;
+            this.accessedAt = accessedAt;
+        }
+
+        private boolean isLive(long now) {
+            return version == collectionVersion.get() && expireAt - now > 0;
+        }
+    }
+
+    private static class Stats {
+
+        private final LongAdder hits = new LongAdder();
+
+        private final LongAdder misses = new LongAdder();
+    }
+}
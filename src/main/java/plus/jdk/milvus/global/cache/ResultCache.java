@@ -0,0 +1,44 @@
+package plus.jdk.milvus.global.cache;
+
+import java.util.function.Supplier;
+
+/**
+ * search/query 结果缓存
+ * <p>通过 {@link plus.jdk.milvus.global.MilvusClientService} 写入或删除某个 collection 的数据时,
+ * 该 collection 的所有缓存都会失效; 其他客户端的写入无法感知, 只能等待过期</p>
+ * <p>缓存中保存的是 loader 返回的实体, {@link plus.jdk.milvus.global.MilvusClientService} 每次返回前都会通过
+ * {@link plus.jdk.milvus.metadata.EntityMapper#copyAll(java.util.List)} 复制一份, 调用方修改返回的实体不会影响缓存;
+ * 直接使用该接口时缓存中的值需要视为不可变</p>
+ */
+public interface ResultCache {
+
+    /**
+     * 获取缓存, 不存在或已过期时调用 loader 加载并放入缓存
+     *
+     * @param collectionName collection 名称
+     * @param key            缓存 key, 需要实现 equals 和 hashCode
+     * @param loader         加载结果
+     * @param <V>            结果类型
+     * @return 结果
+     */
+    <V> V get(String collectionName, Object key, Supplier<V> loader);
+
+    /**
+     * 使某个 collection 的所有缓存失效
+     *
+     * @param collectionName collection 名称
+     */
+    void invalidate(String collectionName);
+
+    /**
+     * @param collectionName collection 名称
+     * @return 命中次数
+     */
+    long getHitCount(String collectionName);
+
+    /**
+     * @param collectionName collection 名称
+     * @return 未命中次数
+     */
+    long getMissCount(String collectionName);
+}
@@ -18,8 +18,14 @@ public class UnknownTypeHandler implements VectorTypeHandler<Object> {
         return Collections.singletonList(data);
     }
 
+    /**
+     * 读取时原样返回
+     */
     @Override
     public Object deserialize(Collection<Object> data) {
-        return null;
+        if (data == null || data.isEmpty()) {
+            return null;
+        }
+        return data.size() == 1 ? data.iterator().next() : data;
     }
 }
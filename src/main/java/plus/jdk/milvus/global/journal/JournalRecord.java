@@ -0,0 +1,41 @@
+package plus.jdk.milvus.global.journal;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 预写日志中的一条记录, 内容为同一个实体类型的一批写入或删除
+ */
+@Getter
+@ToString
+public class JournalRecord {
+
+    /**
+     * 写入, payload 为一行数据各列序列化后的值, 见 {@link JournalRowCodec}
+     */
+    public static final byte INSERT = 1;
+
+    /**
+     * 按主键删除, payload 为主键列表的 json
+     */
+    public static final byte DELETE = 2;
+
+    private final byte type;
+
+    /**
+     * 实体类的全限定名
+     */
+    private final String entityType;
+
+    @ToString.Exclude
+    private final String payload;
+
+    public JournalRecord(byte type, String entityType, String payload) {
+        if (type != INSERT && type != DELETE) {
+            throw new IllegalArgumentException("unknown journal record type " + type);
+        }
+        this.type = type;
+        this.entityType = entityType;
+        this.payload = payload;
+    }
+}
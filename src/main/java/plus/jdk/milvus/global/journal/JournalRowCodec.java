@@ -0,0 +1,169 @@
+package plus.jdk.milvus.global.journal;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import io.milvus.grpc.DataType;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import plus.jdk.milvus.common.MilvusException;
+import plus.jdk.milvus.global.VectorTypeHandler;
+import plus.jdk.milvus.metadata.CollectionDefinition;
+import plus.jdk.milvus.metadata.ColumnDefinition;
+import plus.jdk.milvus.metadata.EntityMapper;
+import plus.jdk.milvus.toolkit.VectorUtils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 预写日志中一行写入数据的编码
+ * <p>按 {@link EntityMapper} 读取字段值, 经过列的 {@link VectorTypeHandler} 序列化后按列名保存为 json 对象,
+ * 与写入 milvus 时发送的数据一致; 重新写入时按列的数据类型还原为 sdk 接受的类型, 不需要反序列化为实体</p>
+ * <p>浮点向量保存为数组, 二进制向量保存为 base64 字符串, JSON 字段保存为字符串</p>
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class JournalRowCodec {
+
+    private static final Gson GSON = new Gson();
+
+    /**
+     * 编码一行数据, 值为 null 的字段不保存
+     *
+     * @param collectionDefinition collection 信息
+     * @param entity               实体
+     * @return json
+     * @throws MilvusException 读取字段失败
+     */
+    public static String encode(CollectionDefinition collectionDefinition, Object entity) throws MilvusException {
+        EntityMapper<?> entityMapper = collectionDefinition.getEntityMapper();
+        List<ColumnDefinition> columns = collectionDefinition.getColumns();
+        JsonObject row = new JsonObject();
+        for (int index = 0; index < columns.size(); index++) {
+            Object value = entityMapper.getValue(entity, index);
+            if (value == null) {
+                continue;
+            }
+            ColumnDefinition column = columns.get(index);
+            VectorTypeHandler<Object> vectorTypeHandler = column.getVectorTypeHandler();
+            JsonArray serialized = new JsonArray();
+            for (Object element : vectorTypeHandler.serialize(value)) {
+                serialized.add(encodeValue(column.getDataType(), element));
+            }
+            row.add(column.getName(), serialized);
+        }
+        return GSON.toJson(row);
+    }
+
+    /**
+     * 将多行数据还原为按列组装的数据
+     *
+     * @param collectionDefinition collection 信息
+     * @param rows                 {@link #encode(CollectionDefinition, Object)} 的结果
+     * @return 按 collection 中列的顺序排列, 所有行都没有值的列不包含在内
+     * @throws MilvusException 某一列只有部分行有值, 或数据类型不支持
+     */
+    public static Columns decode(CollectionDefinition collectionDefinition, List<String> rows) throws MilvusException {
+        List<JsonObject> objects = new ArrayList<>(rows.size());
+        for (String row : rows) {
+            objects.add(GSON.fromJson(row, JsonObject.class));
+        }
+        Columns columns = new Columns();
+        for (ColumnDefinition column : collectionDefinition.getColumns()) {
+            List<Object> values = new ArrayList<>(rows.size());
+            for (JsonObject object : objects) {
+                JsonElement serialized = object.get(column.getName());
+                if (serialized == null) {
+                    continue;
+                }
+                for (JsonElement element : serialized.getAsJsonArray()) {
+                    values.add(decodeValue(column.getDataType(), column.getElementType(), element));
+                }
+            }
+            if (values.isEmpty()) {
+                continue;
+            }
+            if (values.size() != rows.size()) {
+                throw new MilvusException(String.format("column '%s' must be set for every entity in a batch", column.getName()));
+            }
+            columns.names.add(column.getName());
+            columns.values.add(values);
+        }
+        return columns;
+    }
+
+    private static JsonElement encodeValue(DataType dataType, Object element) {
+        switch (dataType) {
+            case FloatVector:
+                return GSON.toJsonTree(VectorUtils.toSdkVector(element));
+            case BinaryVector:
+                ByteBuffer buffer = ((ByteBuffer) VectorUtils.toSdkVector(element)).duplicate();
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                return new JsonPrimitive(Base64.getEncoder().encodeToString(bytes));
+            case JSON:
+                return new JsonPrimitive(JSON.toJSONString(element));
+            default:
+                return GSON.toJsonTree(element);
+        }
+    }
+
+    private static Object decodeValue(DataType dataType, DataType elementType, JsonElement element) throws MilvusException {
+        switch (dataType) {
+            case Bool:
+                return element.getAsBoolean();
+            case Int8:
+            case Int16:
+            case Int32:
+                return element.getAsInt();
+            case Int64:
+                return element.getAsLong();
+            case Float:
+                return element.getAsFloat();
+            case Double:
+                return element.getAsDouble();
+            case String:
+            case VarChar:
+                return element.getAsString();
+            case JSON:
+                return JSONObject.parseObject(element.getAsString());
+            case Array:
+                List<Object> array = new ArrayList<>();
+                for (JsonElement item : element.getAsJsonArray()) {
+                    array.add(decodeValue(elementType, null, item));
+                }
+                return array;
+            case FloatVector:
+                List<Float> vector = new ArrayList<>();
+                for (JsonElement item : element.getAsJsonArray()) {
+                    vector.add(item.getAsFloat());
+                }
+                return vector;
+            case BinaryVector:
+                return ByteBuffer.wrap(Base64.getDecoder().decode(element.getAsString()));
+            default:
+                throw new MilvusException(String.format("unsupported journal data type %s", dataType));
+        }
+    }
+
+    /**
+     * 按列组装的数据
+     */
+    @Getter
+    public static class Columns {
+
+        private final List<String> names = new ArrayList<>();
+
+        private final List<List<Object>> values = new ArrayList<>();
+
+        private Columns() {
+        }
+    }
+}
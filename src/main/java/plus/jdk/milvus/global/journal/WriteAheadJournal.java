@@ -0,0 +1,383 @@
+package plus.jdk.milvus.global.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import plus.jdk.milvus.autoconfigure.MilvusPlusProperties;
+import plus.jdk.milvus.common.MilvusException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 本地磁盘上只追加的预写日志
+ * <p>日志由多个内存映射的段文件组成, 段写满后切换到新的段; 每条记录为 {@code 长度 + crc32 + 内容},
+ * 追加只是一次内存拷贝, 数据在进程崩溃后仍保留在操作系统的页缓存中, 开启 force 后每次追加都会刷盘</p>
+ * <p>记录写入 milvus 成功后调用 {@link #ack(long)}, 段中的记录全部确认且不再追加后删除段文件;
+ * 启动时目录中已存在的段由 {@link #readRecovered()} 读出重新写入, 每写入一部分就通过 {@link #ackRecovered(int)} 记录进度,
+ * 进度保存在检查点文件中, 重新写入中断后下次启动从中断的位置继续</p>
+ * <p>同一个目录只能被一个进程使用</p>
+ */
+@Slf4j
+public class WriteAheadJournal implements Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private static final String LOCK_FILE = "journal.lock";
+
+    /**
+     * 重新写入的进度: 第一个未写完的段的序号 + 该段中已写入的记录数
+     */
+    private static final String CHECKPOINT_FILE = "recovered.checkpoint";
+
+    /**
+     * 记录头: 内容长度 + crc32
+     */
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final boolean force;
+
+    private final FileChannel lockChannel;
+
+    private final FileLock lock;
+
+    /**
+     * 打开日志时目录中已存在的段, 按写入顺序排列
+     */
+    private final List<Path> recoveredSegments;
+
+    /**
+     * {@link #readRecovered()} 读出的每个段中的记录数, 包括检查点之前已经写入的记录
+     */
+    private final List<Integer> recoveredCounts = new ArrayList<>();
+
+    /**
+     * 第一个段中已经重新写入的记录数
+     */
+    private int recoveredSkip;
+
+    /**
+     * 还有未确认记录或正在追加的段
+     */
+    private final Map<Long, Segment> segments = new HashMap<>();
+
+    private Segment current;
+
+    private long nextIndex;
+
+    private boolean closed;
+
+    public WriteAheadJournal(MilvusPlusProperties.Journal config) throws MilvusException {
+        this.directory = Paths.get(config.getDirectory());
+        this.segmentSize = config.getSegmentSize();
+        this.force = config.isForce();
+        try {
+            Files.createDirectories(directory);
+            lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            lock = lockChannel.tryLock();
+            if (lock == null) {
+                lockChannel.close();
+                throw new MilvusException(String.format("journal directory '%s' is used by another process", directory));
+            }
+            recoveredSegments = listSegments();
+            recoveredSkip = readCheckpoint();
+        } catch (IOException e) {
+            throw new MilvusException(String.format("failed to open journal directory '%s'", directory), e);
+        }
+        nextIndex = recoveredSegments.isEmpty() ? 0 : indexOf(recoveredSegments.get(recoveredSegments.size() - 1)) + 1;
+    }
+
+    /**
+     * 读取打开日志时已存在的段中的记录, 遇到不完整或校验失败的记录时忽略该段剩余的部分
+     *
+     * @return 按写入顺序排列的记录, 不包括检查点之前已经重新写入的记录
+     */
+    public synchronized List<JournalRecord> readRecovered() throws MilvusException {
+        List<JournalRecord> records = new ArrayList<>();
+        recoveredCounts.clear();
+        for (Path path : recoveredSegments) {
+            int from = records.size();
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                while (buffer.remaining() >= HEADER_BYTES) {
+                    int length = buffer.getInt();
+                    int checksum = buffer.getInt();
+                    if (length <= 0) {
+                        break;
+                    }
+                    if (length > buffer.remaining()) {
+                        log.warn("journal segment {} ends with a truncated record", path);
+                        break;
+                    }
+                    byte[] body = new byte[length];
+                    buffer.get(body);
+                    if (checksum(body) != checksum) {
+                        log.warn("journal segment {} has a corrupted record at offset {}", path, buffer.position() - length - HEADER_BYTES);
+                        break;
+                    }
+                    records.add(decode(body));
+                }
+            } catch (IOException e) {
+                throw new MilvusException(String.format("failed to read journal segment '%s'", path), e);
+            }
+            recoveredCounts.add(records.size() - from);
+        }
+        if (!records.isEmpty()) {
+            records.subList(0, Math.min(recoveredSkip, records.size())).clear();
+        }
+        return records;
+    }
+
+    /**
+     * 记录 {@link #readRecovered()} 返回的记录中又有 count 条已经重新写入, 先保存检查点再删除全部写入的段
+     *
+     * @param count 按顺序新写入的记录数
+     * @throws MilvusException 保存检查点失败
+     */
+    public synchronized void ackRecovered(int count) throws MilvusException {
+        recoveredSkip += count;
+        int done = 0;
+        while (done < recoveredCounts.size() && recoveredSkip >= recoveredCounts.get(done)) {
+            recoveredSkip -= recoveredCounts.get(done);
+            done++;
+        }
+        if (done == recoveredSegments.size()) {
+            deleteRecovered();
+            return;
+        }
+        writeCheckpoint(indexOf(recoveredSegments.get(done)), recoveredSkip);
+        for (int i = 0; i < done; i++) {
+            deleteFile(recoveredSegments.remove(0));
+            recoveredCounts.remove(0);
+        }
+    }
+
+    /**
+     * 删除打开日志时已存在的段和检查点, 应在其中的记录全部重新写入后调用
+     */
+    public synchronized void deleteRecovered() {
+        for (Path path : recoveredSegments) {
+            deleteFile(path);
+        }
+        recoveredSegments.clear();
+        recoveredCounts.clear();
+        recoveredSkip = 0;
+        deleteFile(directory.resolve(CHECKPOINT_FILE));
+    }
+
+    /**
+     * 追加一条记录
+     *
+     * @param record 记录
+     * @return 记录的位置, 用于 {@link #ack(long)}
+     * @throws MilvusException 日志已关闭或写入失败
+     */
+    public synchronized long append(JournalRecord record) throws MilvusException {
+        if (closed) {
+            throw new MilvusException("journal is closed");
+        }
+        byte[] body = encode(record);
+        int size = HEADER_BYTES + body.length;
+        if (current == null || current.buffer.remaining() < size) {
+            rotate(size);
+        }
+        int offset = current.buffer.position();
+        current.buffer.putInt(body.length).putInt(checksum(body)).put(body);
+        if (force) {
+            current.buffer.force();
+        }
+        current.pending++;
+        return current.index << 32 | offset;
+    }
+
+    /**
+     * 确认记录已写入 milvus
+     *
+     * @param position {@link #append(JournalRecord)} 返回的位置
+     */
+    public synchronized void ack(long position) {
+        Segment segment = segments.get(position >>> 32);
+        if (segment != null && --segment.pending == 0 && segment != current) {
+            delete(segment);
+        }
+    }
+
+    /**
+     * 关闭日志, 还有未确认记录的段会保留到下次启动时重新写入
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (current != null) {
+            seal();
+        }
+        if (!segments.isEmpty()) {
+            log.warn("{} journal segments have unacknowledged records and will be replayed on next start", segments.size());
+        }
+        try {
+            lock.release();
+            lockChannel.close();
+        } catch (IOException e) {
+            log.warn("failed to release journal lock in '{}'", directory, e);
+        }
+    }
+
+    private void rotate(int size) throws MilvusException {
+        if (current != null) {
+            seal();
+        }
+        long index = nextIndex++;
+        Path path = directory.resolve(String.format("%020d%s", index, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // 超过段大小的记录单独使用一个更大的段
+            current = new Segment(index, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSize, size)));
+        } catch (IOException e) {
+            throw new MilvusException(String.format("failed to create journal segment '%s'", path), e);
+        }
+        segments.put(index, current);
+    }
+
+    /**
+     * 当前段不再追加, 记录都已确认时直接删除
+     */
+    private void seal() {
+        Segment segment = current;
+        current = null;
+        if (segment.pending == 0) {
+            delete(segment);
+        }
+    }
+
+    private void delete(Segment segment) {
+        segments.remove(segment.index);
+        deleteFile(segment.path);
+    }
+
+    private void deleteFile(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("failed to delete journal segment '{}'", path, e);
+        }
+    }
+
+    /**
+     * 读取检查点, 删除检查点之前已经全部重新写入的段
+     *
+     * @return 第一个段中已经重新写入的记录数
+     */
+    private int readCheckpoint() throws IOException {
+        Path path = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        String[] checkpoint = new String(Files.readAllBytes(path), StandardCharsets.UTF_8).trim().split(" ");
+        long index = Long.parseLong(checkpoint[0]);
+        while (!recoveredSegments.isEmpty() && indexOf(recoveredSegments.get(0)) < index) {
+            deleteFile(recoveredSegments.remove(0));
+        }
+        if (recoveredSegments.isEmpty()) {
+            // 新的段从 0 开始编号, 不能保留指向旧序号的检查点
+            deleteFile(path);
+            return 0;
+        }
+        return indexOf(recoveredSegments.get(0)) == index ? Integer.parseInt(checkpoint[1]) : 0;
+    }
+
+    private void writeCheckpoint(long index, int skip) throws MilvusException {
+        Path path = directory.resolve(CHECKPOINT_FILE);
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try {
+            Files.write(temp, (index + " " + skip).getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new MilvusException(String.format("failed to write journal checkpoint '%s'", path), e);
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                paths.add(path);
+            }
+        }
+        // 文件名为补零的序号, 按名称排序即为写入顺序
+        Collections.sort(paths);
+        return paths;
+    }
+
+    private static long indexOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static byte[] encode(JournalRecord record) {
+        byte[] entityType = record.getEntityType().getBytes(StandardCharsets.UTF_8);
+        byte[] payload = record.getPayload().getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(1 + 2 + entityType.length + payload.length)
+                .put(record.getType())
+                .putShort((short) entityType.length)
+                .put(entityType)
+                .put(payload)
+                .array();
+    }
+
+    private static JournalRecord decode(byte[] body) {
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        byte type = buffer.get();
+        int entityTypeLength = buffer.getShort() & 0xFFFF;
+        String entityType = new String(body, buffer.position(), entityTypeLength, StandardCharsets.UTF_8);
+        int payloadOffset = buffer.position() + entityTypeLength;
+        String payload = new String(body, payloadOffset, body.length - payloadOffset, StandardCharsets.UTF_8);
+        return new JournalRecord(type, entityType, payload);
+    }
+
+    private static int checksum(byte[] body) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(body, 0, body.length);
+        return (int) crc32.getValue();
+    }
+
+    private static class Segment {
+
+        private final long index;
+
+        private final Path path;
+
+        private final MappedByteBuffer buffer;
+
+        /**
+         * 未确认的记录数
+         */
+        private int pending;
+
+        private Segment(long index, Path path, MappedByteBuffer buffer) {
+            this.index = index;
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1 @@
+package plus.jdk.milvus.global.journal;
@@ -0,0 +1,76 @@
+package plus.jdk.milvus.global.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import plus.jdk.milvus.global.AdaptiveBatchController;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 使用 micrometer 记录 milvus 操作指标, 所有指标都带有 operation、collection、outcome、exception 标签
+ * <ul>
+ *     <li>{@code milvus.client.operations}: 总耗时</li>
+ *     <li>{@code milvus.client.rpc}: 等待 milvus 返回的耗时</li>
+ *     <li>{@code milvus.client.mapping}: 客户端耗时(组装参数、序列化、解析结果等)</li>
+ *     <li>{@code milvus.client.rows}: insert/delete 的行数</li>
+ *     <li>{@code milvus.client.payload}: 估算的请求数据字节数</li>
+ *     <li>{@code milvus.client.search.nq}、{@code milvus.client.search.topk}: 检索的向量个数和 topK</li>
+ *     <li>{@code milvus.client.results}: search/query 返回的实体个数</li>
+ *     <li>{@code milvus.client.adaptive.batch.size}、{@code milvus.client.adaptive.concurrency}、
+ *     {@code milvus.client.adaptive.decreases}: 自动调整的批次大小、并发数和被拒绝后减小的次数,
+ *     只有 operation、collection 标签</li>
+ * </ul>
+ * 需要百分位或直方图时通过 MeterFilter 配置
+ */
+public class MicrometerMilvusMetrics implements MilvusMetrics {
+
+    public static final String PREFIX = "milvus.client";
+
+    private final MeterRegistry registry;
+
+    public MicrometerMilvusMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void record(OperationSample sample) {
+        Tags tags = Tags.of("operation", sample.getOperation(),
+                "collection", sample.getCollection() == null ? "none" : sample.getCollection(),
+                "outcome", sample.isSuccess() ? "success" : "error",
+                "exception", sample.isSuccess() ? "none" : sample.getError().getClass().getSimpleName());
+        timer("operations", "milvus operation duration", tags).record(sample.getTotalNanos(), TimeUnit.NANOSECONDS);
+        timer("rpc", "time spent waiting for milvus", tags).record(sample.getRpcNanos(), TimeUnit.NANOSECONDS);
+        timer("mapping", "client side time spent building requests and mapping results", tags)
+                .record(sample.getClientNanos(), TimeUnit.NANOSECONDS);
+        summary("rows", "rows", sample.getRows(), tags);
+        summary("payload", "bytes", sample.getPayloadBytes(), tags);
+        summary("search.nq", "vectors", sample.getNq(), tags);
+        summary("search.topk", "entities", sample.getTopK(), tags);
+        summary("results", "entities", sample.getResultSize(), tags);
+    }
+
+    @Override
+    public void bind(AdaptiveBatchController controller) {
+        Tags tags = Tags.of("operation", controller.getOperation(), "collection", controller.getCollection());
+        Gauge.builder(PREFIX + ".adaptive.batch.size", controller, AdaptiveBatchController::getBatchSize)
+                .description("current batch size").baseUnit("rows").tags(tags).register(registry);
+        Gauge.builder(PREFIX + ".adaptive.concurrency", controller, AdaptiveBatchController::getConcurrency)
+                .description("current number of concurrent requests").tags(tags).register(registry);
+        Gauge.builder(PREFIX + ".adaptive.decreases", controller, AdaptiveBatchController::getDecreaseCount)
+                .description("times the batch was shrunk after the server rejected a request").tags(tags).register(registry);
+    }
+
+    private Timer timer(String name, String description, Tags tags) {
+        return Timer.builder(PREFIX + '.' + name).description(description).tags(tags).register(registry);
+    }
+
+    private void summary(String name, String baseUnit, long value, Tags tags) {
+        if (value < 0) {
+            return;
+        }
+        DistributionSummary.builder(PREFIX + '.' + name).baseUnit(baseUnit).tags(tags).register(registry).record(value);
+    }
+}
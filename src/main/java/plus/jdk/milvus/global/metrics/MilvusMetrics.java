@@ -0,0 +1,31 @@
+package plus.jdk.milvus.global.metrics;
+
+import plus.jdk.milvus.global.AdaptiveBatchController;
+
+/**
+ * milvus 操作指标的记录方式, 每次 insert/search/query/delete/load/createIndex 完成(成功或失败)后调用一次
+ * <p>默认为 {@link #NOOP}; classpath 中存在 micrometer 且容器中有 MeterRegistry 时自动使用 {@link MicrometerMilvusMetrics}</p>
+ */
+public interface MilvusMetrics {
+
+    /**
+     * 不记录任何指标
+     */
+    MilvusMetrics NOOP = sample -> {
+    };
+
+    /**
+     * 记录一次操作, 可能在 gRPC 回调线程中调用, 实现需要线程安全且不应阻塞
+     *
+     * @param sample 操作指标
+     */
+    void record(OperationSample sample);
+
+    /**
+     * 开启自动调整批次大小时, 每个 collection 的写入和删除各创建一个控制器后调用一次, 用于暴露其当前状态
+     *
+     * @param controller 控制器
+     */
+    default void bind(AdaptiveBatchController controller) {
+    }
+}
@@ -0,0 +1,191 @@
+package plus.jdk.milvus.global.metrics;
+
+import io.milvus.common.clientenum.ConsistencyLevelEnum;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 一次 milvus 操作的指标和请求参数
+ * <p>总耗时分为两部分: 等待 milvus 返回的 rpc 耗时, 以及其余客户端耗时(组装参数、序列化、解析结果等);
+ * 不适用的数值为 -1, 不适用的请求参数为 null</p>
+ */
+@Getter
+@ToString
+public class OperationSample {
+
+    public static final String INSERT = "insert";
+
+    public static final String UPSERT = "upsert";
+
+    public static final String SEARCH = "search";
+
+    public static final String QUERY = "query";
+
+    public static final String DELETE = "delete";
+
+    public static final String LOAD = "load";
+
+    public static final String CREATE_INDEX = "createIndex";
+
+    private final String operation;
+
+    private final String collection;
+
+    @ToString.Exclude
+    private final long startNanos;
+
+    private long totalNanos;
+
+    private long rpcNanos;
+
+    /**
+     * 写入或删除的行数
+     */
+    private long rows = -1;
+
+    /**
+     * 估算的请求数据字节数
+     */
+    private long payloadBytes = -1;
+
+    /**
+     * 检索的向量个数
+     */
+    private int nq = -1;
+
+    private int topK = -1;
+
+    /**
+     * 返回的实体个数
+     */
+    private long resultSize = -1;
+
+    /**
+     * 过滤表达式
+     */
+    private String expression;
+
+    private List<String> partitionNames;
+
+    private ConsistencyLevelEnum consistencyLevel;
+
+    /**
+     * 索引参数, 打印慢日志时才序列化
+     */
+    private Object extra;
+
+    /**
+     * 检索使用的向量, 只在打印慢日志时摘要输出
+     */
+    @ToString.Exclude
+    private List<?> vectors;
+
+    private Throwable error;
+
+    public OperationSample(String operation, String collection) {
+        this.operation = operation;
+        this.collection = collection;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * 执行 rpc 并累加耗时, 一次操作可能包含多次 rpc(如分批写入)
+     *
+     * @param call rpc 调用
+     * @param <R>  返回类型
+     * @return rpc 返回值
+     */
+    public <R> R rpc(Supplier<R> call) {
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            rpcNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * 累加异步 rpc 的耗时
+     *
+     * @param nanos 耗时
+     */
+    public void addRpcNanos(long nanos) {
+        rpcNanos += nanos;
+    }
+
+    /**
+     * 操作结束, 计算总耗时
+     *
+     * @param error 失败原因, 成功时为 null
+     * @return this
+     */
+    public OperationSample finish(Throwable error) {
+        this.totalNanos = System.nanoTime() - startNanos;
+        this.error = error;
+        return this;
+    }
+
+    /**
+     * @return 客户端耗时, 即总耗时减去 rpc 耗时
+     */
+    public long getClientNanos() {
+        return Math.max(0, totalNanos - rpcNanos);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public OperationSample rows(long rows) {
+        this.rows = rows;
+        return this;
+    }
+
+    public OperationSample payloadBytes(long payloadBytes) {
+        this.payloadBytes = payloadBytes;
+        return this;
+    }
+
+    public OperationSample nq(int nq) {
+        this.nq = nq;
+        return this;
+    }
+
+    public OperationSample topK(int topK) {
+        this.topK = topK;
+        return this;
+    }
+
+    public OperationSample resultSize(long resultSize) {
+        this.resultSize = resultSize;
+        return this;
+    }
+
+    public OperationSample expression(String expression) {
+        this.expression = expression;
+        return this;
+    }
+
+    public OperationSample partitionNames(List<String> partitionNames) {
+        this.partitionNames = partitionNames;
+        return this;
+    }
+
+    public OperationSample consistencyLevel(ConsistencyLevelEnum consistencyLevel) {
+        this.consistencyLevel = consistencyLevel;
+        return this;
+    }
+
+    public OperationSample extra(Object extra) {
+        this.extra = extra;
+        return this;
+    }
+
+    public OperationSample vectors(List<?> vectors) {
+        this.vectors = vectors;
+        return this;
+    }
+}
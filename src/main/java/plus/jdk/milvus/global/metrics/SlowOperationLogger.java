@@ -0,0 +1,142 @@
+package plus.jdk.milvus.global.metrics;
+
+import com.google.gson.Gson;
+import lombok.extern.slf4j.Slf4j;
+import plus.jdk.milvus.autoconfigure.MilvusPlusProperties;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 慢操作日志, 耗时超过阈值的操作以 warn 级别打印请求参数和耗时
+ * <p>向量只打印维度、前几个分量和 hash; 每秒最多打印 {@link MilvusPlusProperties.SlowLog#getMaxPerSecond()} 条,
+ * 超过的只计数并在下一条日志中输出</p>
+ */
+@Slf4j
+public class SlowOperationLogger {
+
+    /**
+     * 最多摘要输出多少个向量
+     */
+    private static final int MAX_VECTORS = 3;
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Gson gson = new Gson();
+
+    private final long thresholdNanos;
+
+    private final int maxPerSecond;
+
+    private final int vectorPreview;
+
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+
+    private final AtomicInteger windowCount = new AtomicInteger();
+
+    private final AtomicLong suppressed = new AtomicLong();
+
+    public SlowOperationLogger(MilvusPlusProperties.SlowLog slowLog) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowLog.getThreshold());
+        this.maxPerSecond = slowLog.getMaxPerSecond();
+        this.vectorPreview = slowLog.getVectorPreview();
+    }
+
+    /**
+     * @param sample 已结束的操作
+     * @return 是否打印了日志
+     */
+    public boolean log(OperationSample sample) {
+        if (sample.getTotalNanos() < thresholdNanos) {
+            return false;
+        }
+        if (!tryAcquire()) {
+            suppressed.incrementAndGet();
+            return false;
+        }
+        log.warn(format(sample, suppressed.getAndSet(0)), sample.getError());
+        return true;
+    }
+
+    private boolean tryAcquire() {
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+            windowCount.set(0);
+        }
+        return windowCount.incrementAndGet() <= maxPerSecond;
+    }
+
+    private String format(OperationSample sample, long suppressedCount) {
+        StringBuilder builder = new StringBuilder(256);
+        builder.append("slow milvus ").append(sample.getOperation())
+                .append(" on collection '").append(sample.getCollection()).append("' took ").append(millis(sample.getTotalNanos()))
+                .append(" ms (rpc ").append(millis(sample.getRpcNanos()))
+                .append(" ms, client ").append(millis(sample.getClientNanos())).append(" ms)")
+                .append(", outcome=").append(sample.isSuccess() ? "success" : "error");
+        append(builder, "expr", sample.getExpression());
+        append(builder, "topK", sample.getTopK());
+        append(builder, "nq", sample.getNq());
+        append(builder, "partitions", sample.getPartitionNames() == null || sample.getPartitionNames().isEmpty() ? null : sample.getPartitionNames());
+        append(builder, "consistencyLevel", sample.getConsistencyLevel());
+        append(builder, "extra", sample.getExtra() == null || sample.getExtra() instanceof String ? sample.getExtra() : gson.toJson(sample.getExtra()));
+        append(builder, "rows", sample.getRows());
+        append(builder, "payloadBytes", sample.getPayloadBytes());
+        append(builder, "results", sample.getResultSize());
+        if (sample.getVectors() != null && !sample.getVectors().isEmpty()) {
+            builder.append(", vectors=").append(summarize(sample.getVectors()));
+        }
+        if (suppressedCount > 0) {
+            builder.append(", ").append(suppressedCount).append(" slow operations not logged since last log");
+        }
+        return builder.toString();
+    }
+
+    private static void append(StringBuilder builder, String name, Object value) {
+        if (value != null && !(value instanceof Number && ((Number) value).longValue() < 0)) {
+            builder.append(", ").append(name).append('=').append(value);
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / 1_000_000.0);
+    }
+
+    private String summarize(List<?> vectors) {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < Math.min(vectors.size(), MAX_VECTORS); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            summarize(builder, vectors.get(i));
+        }
+        if (vectors.size() > MAX_VECTORS) {
+            builder.append(", ... ").append(vectors.size() - MAX_VECTORS).append(" more");
+        }
+        return builder.append(']').toString();
+    }
+
+    private void summarize(StringBuilder builder, Object vector) {
+        if (vector instanceof List) {
+            List<?> values = (List<?>) vector;
+            builder.append("{dim=").append(values.size());
+            if (vectorPreview > 0) {
+                builder.append(", head=").append(values.subList(0, Math.min(values.size(), vectorPreview)));
+                if (values.size() > vectorPreview) {
+                    builder.setLength(builder.length() - 1);
+                    builder.append(", ...]");
+                }
+            }
+            builder.append(", hash=").append(Integer.toHexString(values.hashCode())).append('}');
+        } else if (vector instanceof ByteBuffer) {
+            ByteBuffer buffer = (ByteBuffer) vector;
+            builder.append("{bytes=").append(buffer.remaining())
+                    .append(", hash=").append(Integer.toHexString(buffer.hashCode())).append('}');
+        } else {
+            builder.append("{hash=").append(Integer.toHexString(vector.hashCode())).append('}');
+        }
+    }
+}
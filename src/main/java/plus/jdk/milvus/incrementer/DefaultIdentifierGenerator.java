@@ -14,6 +14,16 @@ public class DefaultIdentifierGenerator implements IdentifierGenerator {
         this.snowflake = new Snowflake(workerId % 1024);
     }
 
+    /**
+     * 每个线程一次预留 blockSize 个 id, 适用于多线程大量写入, 见 {@link Snowflake#Snowflake(long, int)}
+     *
+     * @param workerId  机器 id
+     * @param blockSize 每个线程一次预留的 id 个数
+     */
+    public DefaultIdentifierGenerator(long workerId, int blockSize) {
+        this.snowflake = new Snowflake(workerId % 1024, blockSize);
+    }
+
     public DefaultIdentifierGenerator(long workerId, long dataCenterId) {
         this.snowflake = new Snowflake((workerId / 2 + dataCenterId / 2) % 1024);
     }
@@ -55,6 +55,11 @@ public class CollectionDefinition {
      */
     private Class<?> clazz;
 
+    /**
+     * 实体映射器
+     */
+    private EntityMapper<?> entityMapper;
+
     /**
      * @param entityType 实体类型
      */
@@ -62,6 +67,11 @@ public class CollectionDefinition {
         this.entityType = entityType;
     }
 
+    @SuppressWarnings("unchecked")
+    public <T> EntityMapper<T> getEntityMapper() {
+        return (EntityMapper<T>) entityMapper;
+    }
+
     public ColumnDefinition getPrimaryColumn() {
         for (ColumnDefinition columnDefinition : columns) {
             if (Boolean.TRUE.equals(columnDefinition.getPrimary())) {
@@ -85,6 +95,10 @@ public class CollectionDefinition {
     }
 
     public ColumnDefinition getColumnByColumnName(String columnName) {
+        if (entityMapper != null) {
+            int index = entityMapper.indexOf(columnName);
+            return index < 0 ? null : columns.get(index);
+        }
         for (ColumnDefinition columnDefinition : columns) {
             if (columnDefinition.getName().equals(columnName)) {
                 return columnDefinition;
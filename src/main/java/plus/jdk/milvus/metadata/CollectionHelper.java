@@ -105,6 +105,8 @@ public class CollectionHelper {
         initCollectionName(clazz, globalConfig, definition);
         /* 初始化字段相关 */
         initCollectionFields(clazz, globalConfig, definition);
+        /* 预编译实体读写方法 */
+        definition.setEntityMapper(new EntityMapper<>(clazz, definition.getColumns()));
 
         /* 自动构建 resultMap */
         postInitCollectionInfoHandler.postCollectionInfo(definition);
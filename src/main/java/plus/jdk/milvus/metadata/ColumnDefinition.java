@@ -6,6 +6,7 @@ import io.milvus.param.MetricType;
 import lombok.Data;
 import plus.jdk.milvus.annotation.VectorCollectionColumn;
 import plus.jdk.milvus.config.GlobalConfig;
+import plus.jdk.milvus.enums.IdType;
 import plus.jdk.milvus.global.VectorTypeHandler;
 import plus.jdk.milvus.toolkit.StringUtils;
 import plus.jdk.milvus.toolkit.support.SFunction;
@@ -23,6 +24,10 @@ public class ColumnDefinition {
      * 是否是主键
      */
     private Boolean primary;
+    /**
+     * 主键生成方式, 非主键为 null
+     */
+    private IdType idType;
     /**
      * 字段名
      */
@@ -127,6 +132,12 @@ public class ColumnDefinition {
         this.property = field.getName();
         this.desc = collectionColumn.desc();
         this.primary = collectionColumn.primary();
+        if (this.primary) {
+            this.idType = collectionColumn.idType() == IdType.NONE ? dbConfig.getIdType() : collectionColumn.idType();
+            if (this.idType == null || this.idType == IdType.NONE) {
+                this.idType = IdType.AUTO;
+            }
+        }
         this.dataType = collectionColumn.dataType();
         this.vectorTypeHandler = vectorTypeHandler;
         this.partitionKey = collectionColumn.partitionKey();
@@ -213,6 +224,13 @@ public class ColumnDefinition {
         return (VectorTypeHandler<T>) vectorTypeHandler;
     }
 
+    /**
+     * @return 是否由 milvus 生成主键
+     */
+    public boolean autoId() {
+        return IdType.AUTO == idType;
+    }
+
     public boolean canBePartitionKey() {
         return dataType == DataType.Int64 || dataType == DataType.VarChar;
     }
@@ -0,0 +1,246 @@
+package plus.jdk.milvus.metadata;
+
+import plus.jdk.milvus.common.MilvusException;
+import plus.jdk.milvus.global.VectorTypeHandler;
+import plus.jdk.milvus.global.handler.UnknownTypeHandler;
+import plus.jdk.milvus.record.VectorModel;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * 实体与 collection 字段之间的映射器
+ * </p>
+ * 在 {@link CollectionHelper#initCollectionInfo(Class)} 时基于 {@link MethodHandle} 预先构建好构造方法和字段读写方法,
+ * 避免在每一行数据上都做反射查找
+ *
+ * @param <T> 实体类型
+ */
+public class EntityMapper<T> {
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Class<T> entityType;
+
+    /**
+     * 无参构造方法, 实体没有无参构造方法时为 null
+     */
+    private final MethodHandle constructor;
+
+    private final MethodHandle[] getters;
+
+    private final MethodHandle[] setters;
+
+    private final Class<?>[] fieldTypes;
+
+    /**
+     * 自定义的类型处理器, 未指定或为 {@link UnknownTypeHandler} 时为 null
+     */
+    private final VectorTypeHandler<?>[] typeHandlers;
+
+    /**
+     * 字段名到字段下标的映射, 下标与 {@link CollectionDefinition#getColumns()} 一致
+     */
+    private final Map<String, Integer> columnIndexes;
+
+    private final int primaryIndex;
+
+    public EntityMapper(Class<T> entityType, List<ColumnDefinition> columns) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        this.entityType = entityType;
+        this.constructor = findConstructor(lookup, entityType);
+        this.getters = new MethodHandle[columns.size()];
+        this.setters = new MethodHandle[columns.size()];
+        this.fieldTypes = new Class<?>[columns.size()];
+        this.typeHandlers = new VectorTypeHandler<?>[columns.size()];
+        this.columnIndexes = new HashMap<>(columns.size() * 2);
+        int primary = -1;
+        for (int i = 0; i < columns.size(); i++) {
+            ColumnDefinition column = columns.get(i);
+            Field field = column.getField();
+            field.setAccessible(true);
+            fieldTypes[i] = field.getType();
+            VectorTypeHandler<?> typeHandler = column.getVectorTypeHandler();
+            typeHandlers[i] = typeHandler instanceof UnknownTypeHandler ? null : typeHandler;
+            try {
+                getters[i] = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+                setters[i] = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+            } catch (IllegalAccessException e) {
+                throw new MilvusException(String.format("can not access field '%s' of entity '%s'", field.getName(), entityType.getName()), e);
+            }
+            columnIndexes.put(column.getName(), i);
+            if (Boolean.TRUE.equals(column.getPrimary())) {
+                primary = i;
+            }
+        }
+        this.primaryIndex = primary;
+    }
+
+    private static MethodHandle findConstructor(MethodHandles.Lookup lookup, Class<?> entityType) {
+        try {
+            Constructor<?> constructor = entityType.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return lookup.unreflectConstructor(constructor).asType(CONSTRUCTOR_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 创建一个新的实体
+     *
+     * @return 实体
+     * @throws MilvusException 实体没有可访问的无参构造方法
+     */
+    public T newInstance() throws MilvusException {
+        if (constructor == null) {
+            throw new MilvusException(String.format("entity '%s' must have a no-arg constructor", entityType.getName()));
+        }
+        try {
+            return entityType.cast(constructor.invokeExact());
+        } catch (Throwable e) {
+            throw new MilvusException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 获取字段下标
+     *
+     * @param columnName 字段名
+     * @return 字段下标, 不存在时返回 -1
+     */
+    public int indexOf(String columnName) {
+        Integer index = columnIndexes.get(columnName);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * @return 主键字段下标, 不存在时返回 -1
+     */
+    public int getPrimaryIndex() {
+        return primaryIndex;
+    }
+
+    /**
+     * 获取字段的 java 类型
+     *
+     * @param index 字段下标
+     * @return 字段类型
+     */
+    public Class<?> getFieldType(int index) {
+        return fieldTypes[index];
+    }
+
+    /**
+     * 获取自定义的类型处理器
+     *
+     * @param index 字段下标
+     * @return 类型处理器, 使用默认处理器时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public VectorTypeHandler<Object> getTypeHandler(int index) {
+        return (VectorTypeHandler<Object>) typeHandlers[index];
+    }
+
+    /**
+     * 读取字段值
+     *
+     * @param entity 实体
+     * @param index  字段下标
+     * @return 字段值
+     */
+    public Object getValue(Object entity, int index) throws MilvusException {
+        try {
+            return (Object) getters[index].invokeExact(entity);
+        } catch (Throwable e) {
+            throw new MilvusException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 设置字段值
+     *
+     * @param entity 实体
+     * @param index  字段下标
+     * @param value  字段值
+     */
+    public void setValue(Object entity, int index, Object value) throws MilvusException {
+        try {
+            setters[index].invokeExact(entity, value);
+        } catch (Throwable e) {
+            throw new MilvusException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 复制实体的所有映射字段和向量距离
+     * <p>{@code List}、数组和向量缓冲区字段会复制一份, 其他字段值(包括 JSON 对象和列表中的元素)与原实体共用</p>
+     *
+     * @param source 原实体
+     * @return 新的实体
+     * @throws MilvusException 实体没有可访问的无参构造方法
+     */
+    public T copy(T source) throws MilvusException {
+        T target = newInstance();
+        for (int i = 0; i < getters.length; i++) {
+            setValue(target, i, copyValue(getValue(source, i)));
+        }
+        if (source instanceof VectorModel) {
+            ((VectorModel<?>) target).setDistance(((VectorModel<?>) source).getDistance());
+        }
+        return target;
+    }
+
+    /**
+     * @param sources 原实体
+     * @return 逐个复制后的实体
+     */
+    public List<T> copyAll(List<T> sources) throws MilvusException {
+        List<T> targets = new ArrayList<>(sources.size());
+        for (T source : sources) {
+            targets.add(copy(source));
+        }
+        return targets;
+    }
+
+    private static Object copyValue(Object value) {
+        if (value instanceof List) {
+            return new ArrayList<>((List<?>) value);
+        }
+        if (value instanceof float[]) {
+            return ((float[]) value).clone();
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).clone();
+        }
+        if (value instanceof FloatBuffer) {
+            FloatBuffer source = ((FloatBuffer) value).duplicate();
+            FloatBuffer copy = FloatBuffer.allocate(source.remaining());
+            copy.put(source);
+            copy.flip();
+            return copy;
+        }
+        if (value instanceof ByteBuffer) {
+            ByteBuffer source = ((ByteBuffer) value).duplicate();
+            ByteBuffer copy = ByteBuffer.allocate(source.remaining());
+            copy.put(source);
+            copy.flip();
+            return copy;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,22 @@
+package plus.jdk.milvus.record;
+
+import plus.jdk.milvus.model.Page;
+import plus.jdk.milvus.wrapper.LambdaQueryWrapper;
+import plus.jdk.milvus.wrapper.LambdaSearchWrapper;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveVectorModelRepository<T extends VectorModel<? extends VectorModel<?>>> {
+
+    Mono<Boolean> insert(T vectorModel);
+
+    Mono<Boolean> remove(Object pk);
+
+    Flux<T> search(LambdaSearchWrapper<T> wrapper);
+
+    Flux<T> query(LambdaQueryWrapper<T> wrapper);
+
+    Mono<Page<T>> queryPage(LambdaQueryWrapper<T> wrapper, Long page, Long pageSize);
+
+    Flux<T> queryStream(LambdaQueryWrapper<T> wrapper, int batchSize);
+}
@@ -0,0 +1,73 @@
+package plus.jdk.milvus.record;
+
+import plus.jdk.milvus.global.ReactiveMilvusClientService;
+import plus.jdk.milvus.model.Page;
+import plus.jdk.milvus.selector.MilvusSelector;
+import plus.jdk.milvus.wrapper.LambdaQueryWrapper;
+import plus.jdk.milvus.wrapper.LambdaSearchWrapper;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.Serializable;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+/**
+ * 响应式 repository, 需要引入 reactor-core
+ * <p>使用方式与 {@link VectorModelRepositoryImpl} 相同, 继承本类并添加 {@link plus.jdk.milvus.annotation.VectorRepository} 注解即可</p>
+ *
+ * @param <T> 实体类型
+ */
+public abstract class ReactiveVectorModelRepositoryImpl<T extends VectorModel<?>>
+        implements ReactiveVectorModelRepository<T>, Serializable {
+
+    protected final Class<T> entityType;
+    protected ReactiveMilvusClientService reactiveMilvusClientService;
+
+    @SuppressWarnings("unchecked")
+    protected ReactiveVectorModelRepositoryImpl() {
+        Type superClass = getClass().getGenericSuperclass();
+        if (superClass instanceof ParameterizedType) {
+            ParameterizedType parameterizedType = (ParameterizedType) superClass;
+            entityType = (Class<T>) parameterizedType.getActualTypeArguments()[0];
+        } else {
+            throw new IllegalArgumentException("Unable to determine the entity type.");
+        }
+    }
+
+    public Mono<Boolean> insert(T vectorModel) {
+        return getReactiveMilvusClientService().insert(vectorModel);
+    }
+
+    public Mono<Boolean> remove(Object pk) {
+        return getReactiveMilvusClientService().remove(pk, entityType);
+    }
+
+    public Flux<T> search(LambdaSearchWrapper<T> wrapper) {
+        wrapper.setEntityClass(entityType);
+        return getReactiveMilvusClientService().search(wrapper);
+    }
+
+    public Flux<T> query(LambdaQueryWrapper<T> wrapper) {
+        wrapper.setEntityClass(entityType);
+        return getReactiveMilvusClientService().query(wrapper);
+    }
+
+    public Mono<Page<T>> queryPage(LambdaQueryWrapper<T> wrapper, Long page, Long pageSize) {
+        wrapper.setEntityClass(entityType);
+        return getReactiveMilvusClientService().queryPage(wrapper, page, pageSize);
+    }
+
+    public Flux<T> queryStream(LambdaQueryWrapper<T> wrapper, int batchSize) {
+        wrapper.setEntityClass(entityType);
+        return getReactiveMilvusClientService().queryStream(wrapper, batchSize);
+    }
+
+    protected ReactiveMilvusClientService getReactiveMilvusClientService() {
+        if (this.reactiveMilvusClientService != null) {
+            return this.reactiveMilvusClientService;
+        }
+        this.reactiveMilvusClientService = MilvusSelector.applicationContext.getBean(ReactiveMilvusClientService.class);
+        return this.reactiveMilvusClientService;
+    }
+}
@@ -2,19 +2,42 @@ package plus.jdk.milvus.record;
 
 import io.milvus.grpc.LoadState;
 import plus.jdk.milvus.common.MilvusException;
+import plus.jdk.milvus.global.BulkWriter;
 import plus.jdk.milvus.model.IIndexExtra;
 import plus.jdk.milvus.model.Page;
 import plus.jdk.milvus.toolkit.support.SFunction;
 import plus.jdk.milvus.wrapper.LambdaQueryWrapper;
 import plus.jdk.milvus.wrapper.LambdaSearchWrapper;
 
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public interface VectorModelRepository<T extends VectorModel<? extends VectorModel<?>>> {
     boolean insert(T vectorModel) throws MilvusException;
 
+    boolean insertBatch(List<T> vectorModels) throws MilvusException;
+
+    boolean upsert(T vectorModel) throws MilvusException;
+
+    boolean upsertBatch(List<T> vectorModels) throws MilvusException;
+
+    BulkWriter<T> bulkWriter();
+
+    CompletableFuture<Object> insertBuffered(T vectorModel) throws MilvusException;
+
+    CompletableFuture<Boolean> insertAsync(T vectorModel);
+
     boolean remove(Object pk) throws MilvusException;
 
+    CompletableFuture<Boolean> removeAsync(Object pk);
+
+    CompletableFuture<Boolean> removeBuffered(Object pk) throws MilvusException;
+
+    long removeByIds(Collection<?> pks) throws MilvusException;
+
     boolean batchRemove(LambdaQueryWrapper<T> wrapper) throws MilvusException;
 
     boolean createCollection() throws MilvusException;
@@ -38,7 +61,19 @@ public interface VectorModelRepository<T extends VectorModel<? extends VectorMod
 
     List<T> search(LambdaSearchWrapper<T> wrapper) throws MilvusException;
 
+    CompletableFuture<List<T>> searchAsync(LambdaSearchWrapper<T> wrapper);
+
+    List<List<T>> searchBatch(LambdaSearchWrapper<T> wrapper) throws MilvusException;
+
     List<T> query(LambdaQueryWrapper<T> wrapper) throws MilvusException;
 
+    CompletableFuture<List<T>> queryAsync(LambdaQueryWrapper<T> wrapper);
+
     Page<T> queryPage(LambdaQueryWrapper<T> wrapper, Long page, Long pageSize) throws MilvusException;
+
+    Iterator<T> queryIterator(LambdaQueryWrapper<T> wrapper, int batchSize) throws MilvusException;
+
+    Stream<T> queryStream(LambdaQueryWrapper<T> wrapper, int batchSize) throws MilvusException;
+
+    CompletableFuture<Page<T>> queryPageAsync(LambdaQueryWrapper<T> wrapper, Long page, Long pageSize);
 }
@@ -1,8 +1,15 @@
 package plus.jdk.milvus.record;
 
 import io.milvus.grpc.LoadState;
+import org.springframework.core.annotation.AnnotationUtils;
+import plus.jdk.milvus.annotation.VectorRepository;
+import plus.jdk.milvus.autoconfigure.MilvusPlusProperties;
 import plus.jdk.milvus.common.MilvusException;
+import plus.jdk.milvus.global.BulkWriter;
 import plus.jdk.milvus.global.MilvusClientService;
+import plus.jdk.milvus.global.WriteBehindInserter;
+import plus.jdk.milvus.metadata.CollectionHelper;
+import plus.jdk.milvus.metadata.EntityMapper;
 import plus.jdk.milvus.model.IIndexExtra;
 import plus.jdk.milvus.model.Page;
 import plus.jdk.milvus.selector.MilvusSelector;
@@ -13,13 +20,19 @@ import plus.jdk.milvus.wrapper.LambdaSearchWrapper;
 import java.io.Serializable;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public abstract class VectorModelRepositoryImpl<T extends VectorModel<?>>
         implements VectorModelRepository<T>, Serializable {
 
     protected final Class<T> entityType;
     protected MilvusClientService milvusClientService;
+    protected WriteBehindInserter writeBehindInserter;
+    private Boolean writeBehind;
 
     @SuppressWarnings("unchecked")
     protected VectorModelRepositoryImpl() {
@@ -36,10 +49,82 @@ public abstract class VectorModelRepositoryImpl<T extends VectorModel<?>>
         return getMilvusClientService().insert(vectorModel);
     }
 
+    public boolean insertBatch(List<T> vectorModels) throws MilvusException {
+        return getMilvusClientService().insertBatch(vectorModels);
+    }
+
+    public boolean upsert(T vectorModel) throws MilvusException {
+        return getMilvusClientService().upsert(vectorModel);
+    }
+
+    public boolean upsertBatch(List<T> vectorModels) throws MilvusException {
+        return getMilvusClientService().upsertBatch(vectorModels);
+    }
+
+    /**
+     * @return 批量导入数据的 {@link BulkWriter}, 每次调用都会创建新的实例
+     */
+    public BulkWriter<T> bulkWriter() {
+        return getMilvusClientService().bulkWriter(entityType);
+    }
+
+    /**
+     * 开启 write-behind 时先进入缓冲区再批量写入, 否则同步写入
+     *
+     * @param vectorModel 需要写入的实体
+     * @return 写入成功后以主键完成的 future
+     */
+    public CompletableFuture<Object> insertBuffered(T vectorModel) throws MilvusException {
+        if (isWriteBehind()) {
+            return getWriteBehindInserter().insert(vectorModel);
+        }
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        try {
+            getMilvusClientService().insert(vectorModel);
+            EntityMapper<T> entityMapper = CollectionHelper.getCollectionInfo(entityType).getEntityMapper();
+            int primaryIndex = entityMapper.getPrimaryIndex();
+            future.complete(primaryIndex < 0 ? null : entityMapper.getValue(vectorModel, primaryIndex));
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    public CompletableFuture<Boolean> insertAsync(T vectorModel) {
+        return getMilvusClientService().insertAsync(vectorModel);
+    }
+
     public boolean remove(Object pk) throws MilvusException {
         return getMilvusClientService().remove(pk, entityType);
     }
 
+    public CompletableFuture<Boolean> removeAsync(Object pk) {
+        return getMilvusClientService().removeAsync(pk, entityType);
+    }
+
+    /**
+     * 开启 write-behind 时进入缓冲区, 在此之前缓冲的写入执行后再删除, 否则同步删除
+     *
+     * @param pk 主键
+     * @return 删除成功后完成的 future
+     */
+    public CompletableFuture<Boolean> removeBuffered(Object pk) throws MilvusException {
+        if (isWriteBehind()) {
+            return getWriteBehindInserter().remove(pk, entityType);
+        }
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        try {
+            future.complete(getMilvusClientService().remove(pk, entityType));
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    public long removeByIds(Collection<?> pks) throws MilvusException {
+        return getMilvusClientService().removeByIds(pks, entityType);
+    }
+
     public boolean batchRemove(LambdaQueryWrapper<T> wrapper) throws MilvusException {
         wrapper.setEntityClass(entityType);
         return getMilvusClientService().batchRemove(wrapper);
@@ -87,16 +172,67 @@ public abstract class VectorModelRepositoryImpl<T extends VectorModel<?>>
         return getMilvusClientService().search(wrapper);
     }
 
+    public CompletableFuture<List<T>> searchAsync(LambdaSearchWrapper<T> wrapper) {
+        wrapper.setEntityClass(entityType);
+        return getMilvusClientService().searchAsync(wrapper);
+    }
+
+    public List<List<T>> searchBatch(LambdaSearchWrapper<T> wrapper) throws MilvusException {
+        wrapper.setEntityClass(entityType);
+        return getMilvusClientService().searchBatch(wrapper);
+    }
+
     public List<T> query(LambdaQueryWrapper<T> wrapper) throws MilvusException {
         wrapper.setEntityClass(entityType);
         return getMilvusClientService().query(wrapper);
     }
 
+    public CompletableFuture<List<T>> queryAsync(LambdaQueryWrapper<T> wrapper) {
+        wrapper.setEntityClass(entityType);
+        return getMilvusClientService().queryAsync(wrapper);
+    }
+
     public Page<T> queryPage(LambdaQueryWrapper<T> wrapper, Long page, Long pageSize) throws MilvusException {
         wrapper.setEntityClass(entityType);
         return getMilvusClientService().queryPage(wrapper, page, pageSize);
     }
 
+    public Iterator<T> queryIterator(LambdaQueryWrapper<T> wrapper, int batchSize) throws MilvusException {
+        wrapper.setEntityClass(entityType);
+        return getMilvusClientService().queryIterator(wrapper, batchSize);
+    }
+
+    public Stream<T> queryStream(LambdaQueryWrapper<T> wrapper, int batchSize) throws MilvusException {
+        wrapper.setEntityClass(entityType);
+        return getMilvusClientService().queryStream(wrapper, batchSize);
+    }
+
+    public CompletableFuture<Page<T>> queryPageAsync(LambdaQueryWrapper<T> wrapper, Long page, Long pageSize) {
+        wrapper.setEntityClass(entityType);
+        return getMilvusClientService().queryPageAsync(wrapper, page, pageSize);
+    }
+
+    protected boolean isWriteBehind() {
+        if (this.writeBehind != null) {
+            return this.writeBehind;
+        }
+        VectorRepository vectorRepository = AnnotationUtils.findAnnotation(getClass(), VectorRepository.class);
+        boolean enabled = vectorRepository != null && vectorRepository.writeBehind();
+        if (!enabled) {
+            enabled = MilvusSelector.applicationContext.getBean(MilvusPlusProperties.class).getWriteBehind().isEnabled();
+        }
+        this.writeBehind = enabled;
+        return enabled;
+    }
+
+    protected WriteBehindInserter getWriteBehindInserter() {
+        if (this.writeBehindInserter != null) {
+            return this.writeBehindInserter;
+        }
+        this.writeBehindInserter = MilvusSelector.applicationContext.getBean(WriteBehindInserter.class);
+        return this.writeBehindInserter;
+    }
+
     protected MilvusClientService getMilvusClientService() {
         if (this.milvusClientService != null) {
             return this.milvusClientService;
@@ -3,6 +3,8 @@ package plus.jdk.milvus.toolkit;
 import plus.jdk.milvus.config.GlobalConfig;
 import plus.jdk.milvus.enums.IdType;
 import plus.jdk.milvus.global.handler.AnnotationHandler;
+import plus.jdk.milvus.incrementer.DefaultIdentifierGenerator;
+import plus.jdk.milvus.incrementer.IdentifierGenerator;
 
 import java.util.Map;
 import java.util.Optional;
@@ -18,6 +20,11 @@ public class GlobalConfigUtils {
      */
     private static final Map<String, GlobalConfig> GLOBAL_CONFIG = new ConcurrentHashMap<>();
 
+    /**
+     * 通过 {@link #setGlobalConfig(GlobalConfig)} 设置的全局配置, 未设置时每个实体使用默认配置
+     */
+    private static volatile GlobalConfig configured;
+
 
     /**
      * 获取默认 MilvusGlobalConfig
@@ -36,10 +43,33 @@ public class GlobalConfigUtils {
      */
     public static GlobalConfig getGlobalConfig(Class<?> clazz) {
         Assert.notNull(clazz, "Error: You need Initialize MilvusConfiguration !");
+        GlobalConfig globalConfig = configured;
+        if (globalConfig != null) {
+            return globalConfig;
+        }
         final String key = Integer.toHexString(clazz.hashCode());
         return CollectionUtils.computeIfAbsent(GLOBAL_CONFIG, key, k -> defaults());
     }
 
+    /**
+     * 设置所有实体共用的全局配置, 需要在解析实体之前设置
+     *
+     * @param globalConfig 全局配置, 为 null 时恢复为每个实体使用默认配置
+     */
+    public static void setGlobalConfig(GlobalConfig globalConfig) {
+        configured = globalConfig;
+        GLOBAL_CONFIG.clear();
+    }
+
+    /**
+     * @param clazz 实体类
+     * @return 主键生成器, 未配置时使用 {@link DefaultIdentifierGenerator}
+     */
+    public static IdentifierGenerator getIdentifierGenerator(Class<?> clazz) {
+        IdentifierGenerator identifierGenerator = getGlobalConfig(clazz).getIdentifierGenerator();
+        return identifierGenerator == null ? DefaultIdentifierGenerator.getInstance() : identifierGenerator;
+    }
+
     public static IdType getIdType(Class<?> clazz) {
         return getGlobalConfig(clazz).getMilvusConfig().getIdType();
     }
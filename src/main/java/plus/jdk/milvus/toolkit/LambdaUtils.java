@@ -2,6 +2,7 @@ package plus.jdk.milvus.toolkit;
 
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
+import plus.jdk.milvus.common.PropertyNamer;
 import plus.jdk.milvus.metadata.CollectionDefinition;
 import plus.jdk.milvus.metadata.CollectionHelper;
 import plus.jdk.milvus.toolkit.support.*;
@@ -12,6 +13,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.security.AccessController;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 
 import static java.util.Locale.ENGLISH;
@@ -27,6 +29,16 @@ public final class LambdaUtils {
      */
     private static final Map<String, Map<String, ColumnCache>> COLUMN_CACHE_MAP = new ConcurrentSkipListMap<>();
 
+    /**
+     * lambda 实现类 -> 解析结果, 同一个方法引用每次调用都是同一个实现类, 只需要反射一次
+     */
+    private static final Map<Class<?>, LambdaMeta> LAMBDA_META_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * lambda 实现类 -> 对应的字段
+     */
+    private static final Map<Class<?>, LambdaColumn> LAMBDA_COLUMN_CACHE = new ConcurrentHashMap<>();
+
     /**
      * 该缓存可能会在任意不定的时间被清除
      *
@@ -39,6 +51,47 @@ public final class LambdaUtils {
         if (func instanceof Proxy) {
             return new IdeaProxyLambdaMeta((Proxy) func);
         }
+        LambdaMeta meta = LAMBDA_META_CACHE.get(func.getClass());
+        if (meta == null) {
+            meta = resolve(func);
+            LAMBDA_META_CACHE.putIfAbsent(func.getClass(), meta);
+        }
+        return meta;
+    }
+
+    /**
+     * 获取 lambda 对应的字段, 结果按 lambda 的实现类缓存
+     *
+     * @param func        需要解析的 lambda 对象
+     * @param entityClass 实体类, 为 null 时从 lambda 中推测
+     * @return 字段, 实体中没有对应的字段时返回 null
+     */
+    public static ColumnCache getColumn(SFunction<?, ?> func, Class<?> entityClass) {
+        if (func instanceof Proxy) {
+            return resolveColumn(func, entityClass);
+        }
+        LambdaColumn cached = LAMBDA_COLUMN_CACHE.get(func.getClass());
+        if (cached != null && cached.entityClass == entityClass) {
+            return cached.column;
+        }
+        ColumnCache column = resolveColumn(func, entityClass);
+        if (column != null) {
+            Class<?> targetClass = entityClass == null ? extract(func).getInstantiatedClass() : entityClass;
+            LAMBDA_COLUMN_CACHE.put(func.getClass(), new LambdaColumn(entityClass, targetClass, column));
+        }
+        return column;
+    }
+
+    private static ColumnCache resolveColumn(SFunction<?, ?> func, Class<?> entityClass) {
+        LambdaMeta meta = extract(func);
+        Map<String, ColumnCache> columnMap = getColumnMap(entityClass == null ? meta.getInstantiatedClass() : entityClass);
+        if (columnMap == null) {
+            return null;
+        }
+        return columnMap.get(formatKey(PropertyNamer.methodToProperty(meta.getImplMethodName())));
+    }
+
+    private static <T> LambdaMeta resolve(SFunction<T, ?> func) {
         // 2. 反射读取
         try {
             Method method = func.getClass().getDeclaredMethod("writeReplace");
@@ -81,6 +134,7 @@ public final class LambdaUtils {
      */
     public static void installCache(CollectionDefinition collectionDefinition) {
         COLUMN_CACHE_MAP.put(collectionDefinition.getEntityType().getName(), createColumnCacheMap(collectionDefinition));
+        LAMBDA_COLUMN_CACHE.values().removeIf(column -> column.targetClass == collectionDefinition.getEntityType());
     }
 
     /**
@@ -127,4 +181,25 @@ public final class LambdaUtils {
 //            return info == null ? null : createColumnCacheMap(info);
 //        });
     }
+
+    private static final class LambdaColumn {
+
+        /**
+         * 解析时传入的实体类, 可能为 null
+         */
+        private final Class<?> entityClass;
+
+        /**
+         * 实际用于查找字段的实体类
+         */
+        private final Class<?> targetClass;
+
+        private final ColumnCache column;
+
+        private LambdaColumn(Class<?> entityClass, Class<?> targetClass, ColumnCache column) {
+            this.entityClass = entityClass;
+            this.targetClass = targetClass;
+            this.column = column;
+        }
+    }
 }
@@ -0,0 +1,87 @@
+package plus.jdk.milvus.toolkit;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.nio.*;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 估算写入 milvus 的数据在 gRPC 消息中占用的字节数
+ * <p>只用于切分批量请求，宁可高估也不能低估</p>
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class PayloadSizeUtils {
+
+    /**
+     * 估算单个字段值的字节数
+     *
+     * @param value 字段值
+     * @return 估算的字节数
+     */
+    public static long estimate(Object value) {
+        if (value == null) {
+            return 0L;
+        }
+        if (value instanceof Float || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return 4L;
+        }
+        if (value instanceof Number) {
+            return 8L;
+        }
+        if (value instanceof Boolean) {
+            return 1L;
+        }
+        if (value instanceof CharSequence) {
+            // utf-8 下单个字符最多占 3 个字节
+            return 3L * ((CharSequence) value).length();
+        }
+        if (value instanceof Buffer) {
+            Buffer buffer = (Buffer) value;
+            return (long) buffer.remaining() * bytesPerElement(buffer);
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        }
+        if (value instanceof float[]) {
+            return 4L * ((float[]) value).length;
+        }
+        if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            if (collection.isEmpty()) {
+                return 0L;
+            }
+            Object first = collection.iterator().next();
+            if (first instanceof Float) {
+                return 4L * collection.size();
+            }
+            long size = 0L;
+            for (Object item : collection) {
+                size += estimate(item);
+            }
+            return size;
+        }
+        if (value instanceof Map) {
+            long size = 0L;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += estimate(entry.getKey()) + estimate(entry.getValue());
+            }
+            return size;
+        }
+        return 3L * value.toString().length();
+    }
+
+    private static int bytesPerElement(Buffer buffer) {
+        if (buffer instanceof ByteBuffer) {
+            return 1;
+        }
+        if (buffer instanceof ShortBuffer || buffer instanceof CharBuffer) {
+            return 2;
+        }
+        if (buffer instanceof LongBuffer || buffer instanceof DoubleBuffer) {
+            return 8;
+        }
+        return 4;
+    }
+}
@@ -2,76 +2,162 @@ package plus.jdk.milvus.toolkit;
 
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * 雪花算法 id 生成器: 41 位时间戳(毫秒) + 10 位 workerId + 12 位序列号
+ * <p>时间戳和序列号合并为一个单调递增的位置 {@code 时间戳 << 12 | 序列号}, 通过 CAS 分配, 不加锁;
+ * 同一毫秒内序列号用完时借用之后的毫秒, 但分配出的时间最多领先系统时间 {@link #MAX_LEAD_MILLIS} 毫秒,
+ * 超过时等待时钟前进, 因此每个 workerId 每毫秒最多约 4096 个 id. 进程以相同的 workerId 重启时,
+ * 只要重启耗时超过该领先量就不会重复发号; 时钟回拨超过该领先量时抛出异常</p>
+ * <p>指定 blockSize 时每个线程一次预留 blockSize 个 id, 用完后再分配, 多线程下只有预留时才会竞争;
+ * 这种模式下不同线程拿到的 id 不再按生成时间排序</p>
+ */
 @Slf4j
 public class Snowflake {
-    private static final Random RANDOM = new Random();
+
+    private static final long EPOCH = 1483200000000L;
+
+    private static final int SEQUENCE_BITS = 12;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final long MAX_WORKER_ID = 1023L;
+
+    /**
+     * 新的一毫秒从随机序列号开始, 避免低并发时 id 的低位总是相同
+     */
+    private static final int RANDOM_SEQUENCE_BOUND = 100;
+
+    private static final int MAX_BATCH_SIZE = 100000;
+
+    /**
+     * 分配出的时间最多领先系统时间多少毫秒
+     */
+    private static final long MAX_LEAD_MILLIS = 5;
+
+    /**
+     * 等待时钟前进时每次休眠的纳秒数
+     */
+    private static final long WAIT_NANOS = 100_000;
+
     private final long workerId;
-    private long sequence = 0L;
-    private long lastTimestamp = -1L;
+
+    private final int blockSize;
+
+    /**
+     * 下一个可分配的位置
+     */
+    private final AtomicLong position = new AtomicLong();
+
+    /**
+     * 每个线程预留的 id 段, [0] 为下一个位置, [1] 为结束位置(不包含)
+     */
+    private final ThreadLocal<long[]> blocks = ThreadLocal.withInitial(() -> new long[2]);
 
     public Snowflake(long workerId) {
-        if (workerId <= 1023L && workerId >= 0L) {
-            this.workerId = workerId;
-        } else {
-            String message = String.format("worker Id can't be greater than %d or less than 0", 1023L);
+        this(workerId, 1);
+    }
+
+    /**
+     * @param workerId  机器 id, 0 到 1023
+     * @param blockSize 每个线程一次预留的 id 个数, 为 1 时每次都从共享状态分配
+     */
+    public Snowflake(long workerId, int blockSize) {
+        if (workerId > MAX_WORKER_ID || workerId < 0L) {
+            String message = String.format("worker Id can't be greater than %d or less than 0", MAX_WORKER_ID);
+            throw new IllegalArgumentException(message);
+        }
+        if (blockSize < 1 || blockSize > SEQUENCE_MASK + 1) {
+            String message = String.format("block size can't be greater than %d or less than 1", SEQUENCE_MASK + 1);
             throw new IllegalArgumentException(message);
         }
+        this.workerId = workerId;
+        this.blockSize = blockSize;
     }
 
     public static Snowflake create(long workerId) {
         return new Snowflake(workerId);
     }
 
-    public long[] nextId(int size) {
-        if (size > 0 && size <= 100000) {
-            long[] ids = new long[size];
-
-            for (int i = 0; i < size; ++i) {
-                ids[i] = this.nextId();
-            }
+    /**
+     * 创建按线程预留 id 段的生成器, 适用于多线程大量写入
+     *
+     * @param workerId  机器 id, 0 到 1023
+     * @param blockSize 每个线程一次预留的 id 个数
+     * @return 生成器
+     */
+    public static Snowflake create(long workerId, int blockSize) {
+        return new Snowflake(workerId, blockSize);
+    }
 
-            return ids;
-        } else {
-            String message = String.format("Size can't be greater than %d or less than 0", 100000);
+    public long[] nextId(int size) {
+        if (size <= 0 || size > MAX_BATCH_SIZE) {
+            String message = String.format("Size can't be greater than %d or less than 0", MAX_BATCH_SIZE);
             throw new IllegalArgumentException(message);
         }
-    }
-
-    public synchronized long nextId() {
-        long timestamp = this.timeGen();
-        if (this.lastTimestamp == timestamp) {
-            this.sequence = this.sequence + 1L & 4095L;
-            if (this.sequence == 0L) {
-                this.sequence = RANDOM.nextInt(100);
-                timestamp = this.tilNextMillis(this.lastTimestamp);
+        long[] ids = new long[size];
+        int filled = 0;
+        while (filled < size) {
+            // 每次最多预留一毫秒的序列号, 避免一次领先系统时间太多
+            int count = (int) Math.min(size - filled, SEQUENCE_MASK + 1);
+            long start = reserve(count);
+            for (int i = 0; i < count; ++i) {
+                ids[filled++] = toId(start + i);
             }
-        } else {
-            this.sequence = RANDOM.nextInt(100);
         }
+        return ids;
+    }
 
-        if (timestamp < this.lastTimestamp) {
-            String message = String.format("Clock moved backwards. Refusing to generate id for %d milliseconds.", this.lastTimestamp - timestamp);
-            log.error(message);
-            throw new RuntimeException(message);
-        } else {
-            this.lastTimestamp = timestamp;
-            return timestamp - 1483200000000L << 22 | this.workerId << 12 | this.sequence;
+    public long nextId() {
+        if (blockSize == 1) {
+            return toId(reserve(1));
+        }
+        long[] block = blocks.get();
+        if (block[0] == block[1]) {
+            block[0] = reserve(blockSize);
+            block[1] = block[0] + blockSize;
         }
+        return toId(block[0]++);
     }
 
-    private long tilNextMillis(long lastTimestamp) {
-        long timestamp;
-        timestamp = this.timeGen();
-        while (timestamp <= lastTimestamp) {
-            timestamp = this.timeGen();
+    /**
+     * 预留连续的 size 个位置, 超出当前毫秒的部分顺延到之后的毫秒, 领先系统时间超过 {@link #MAX_LEAD_MILLIS} 时等待
+     *
+     * @param size 位置个数, 不超过 4096
+     * @return 第一个位置
+     */
+    private long reserve(int size) {
+        while (true) {
+            // 先读位置再读时间, 已分配的位置一定是在读到的时间之前分配的
+            long current = position.get();
+            long nowMillis = System.currentTimeMillis();
+            long lead = (current - 1 >> SEQUENCE_BITS) - nowMillis;
+            if (lead > MAX_LEAD_MILLIS) {
+                String message = String.format("Clock moved backwards. Refusing to generate id for %d milliseconds.", lead - MAX_LEAD_MILLIS);
+                log.error(message);
+                throw new IllegalStateException(message);
+            }
+            long now = nowMillis << SEQUENCE_BITS;
+            long start = current;
+            if (now > current) {
+                start = now + ThreadLocalRandom.current().nextInt(RANDOM_SEQUENCE_BOUND);
+            }
+            long end = start + size;
+            if ((end - 1 >>> SEQUENCE_BITS) - nowMillis > MAX_LEAD_MILLIS) {
+                LockSupport.parkNanos(WAIT_NANOS);
+                continue;
+            }
+            if (position.compareAndSet(current, end)) {
+                return start;
+            }
         }
-
-        return timestamp;
     }
 
-    private long timeGen() {
-        return System.currentTimeMillis();
+    private long toId(long position) {
+        long timestamp = position >>> SEQUENCE_BITS;
+        return timestamp - EPOCH << 22 | workerId << SEQUENCE_BITS | position & SEQUENCE_MASK;
     }
-}
\ No newline at end of file
+}
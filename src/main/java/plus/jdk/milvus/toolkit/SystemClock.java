@@ -1,59 +1,23 @@
 package plus.jdk.milvus.toolkit;
 
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
 import java.sql.Timestamp;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * 高并发场景下System.currentTimeMillis()的性能问题的优化
- *
- * <p>System.currentTimeMillis()的调用比new一个普通对象要耗时的多（具体耗时高出多少我还没测试过，有人说是100倍左右）</p>
- * <p>System.currentTimeMillis()之所以慢是因为去跟系统打了一次交道</p>
- * <p>后台定时更新时钟，JVM退出时，线程自动回收</p>
- * <p>10亿：43410,206,210.72815533980582%</p>
- * <p>1亿：4699,29,162.0344827586207%</p>
- * <p>1000万：480,12,40.0%</p>
- * <p>100万：50,10,5.0%</p>
+ * 当前时间
+ * <p>之前由后台线程每毫秒刷新一次缓存的时间, 该线程会一直唤醒 CPU, 多核读取同一个被频繁写入的变量也有缓存行争用;
+ * 目前主流平台上 {@link System#currentTimeMillis()} 不需要系统调用, 直接读取即可</p>
  */
-public class SystemClock {
-
-    private final long period;
-    private final AtomicLong now;
-
-    private SystemClock(long period) {
-        this.period = period;
-        this.now = new AtomicLong(System.currentTimeMillis());
-        scheduleClockUpdating();
-    }
-
-    private static SystemClock instance() {
-        return InstanceHolder.INSTANCE;
-    }
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class SystemClock {
 
     public static long now() {
-        return instance().currentTimeMillis();
+        return System.currentTimeMillis();
     }
 
     public static String nowDate() {
-        return new Timestamp(instance().currentTimeMillis()).toString();
-    }
-
-    private void scheduleClockUpdating() {
-        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
-            Thread thread = new Thread(runnable, "System Clock");
-            thread.setDaemon(true);
-            return thread;
-        });
-        scheduler.scheduleAtFixedRate(() -> now.set(System.currentTimeMillis()), period, period, TimeUnit.MILLISECONDS);
-    }
-
-    private long currentTimeMillis() {
-        return now.get();
-    }
-
-    private static class InstanceHolder {
-        public static final SystemClock INSTANCE = new SystemClock(1);
+        return new Timestamp(now()).toString();
     }
 }
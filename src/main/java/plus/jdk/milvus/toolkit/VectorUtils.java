@@ -0,0 +1,99 @@
+package plus.jdk.milvus.toolkit;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * 向量类型转换工具类
+ * <p>sdk 要求 FloatVector 为 {@code List<Float>}、BinaryVector 为 {@link ByteBuffer},
+ * 实体中的 {@code float[]}、{@link FloatBuffer}、{@code byte[]} 在发送请求时包装为视图, 不复制数据</p>
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class VectorUtils {
+
+    /**
+     * 将实体中的向量转换为 sdk 接受的类型
+     *
+     * @param vector 向量
+     * @return {@code float[]}、{@link FloatBuffer} 转换为只读的 {@code List<Float>} 视图,
+     * {@code byte[]} 转换为 {@link ByteBuffer}, 其他类型原样返回
+     */
+    public static Object toSdkVector(Object vector) {
+        if (vector instanceof float[]) {
+            return asList((float[]) vector);
+        }
+        if (vector instanceof FloatBuffer) {
+            return asList((FloatBuffer) vector);
+        }
+        if (vector instanceof byte[]) {
+            return ByteBuffer.wrap((byte[]) vector);
+        }
+        return vector;
+    }
+
+    /**
+     * @param vector 向量
+     * @return 只读视图
+     */
+    public static List<Float> asList(float[] vector) {
+        return new FloatArrayList(vector);
+    }
+
+    /**
+     * @param vector 向量, 视图范围为 position 到 limit, 不会修改 buffer 的 position
+     * @return 只读视图
+     */
+    public static List<Float> asList(FloatBuffer vector) {
+        return new FloatBufferList(vector.duplicate());
+    }
+
+    private static final class FloatArrayList extends AbstractList<Float> implements RandomAccess {
+
+        private final float[] array;
+
+        private FloatArrayList(float[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public Float get(int index) {
+            return array[index];
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+    }
+
+    private static final class FloatBufferList extends AbstractList<Float> implements RandomAccess {
+
+        private final FloatBuffer buffer;
+
+        private final int offset;
+
+        private FloatBufferList(FloatBuffer buffer) {
+            this.buffer = buffer;
+            this.offset = buffer.position();
+        }
+
+        @Override
+        public Float get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            return buffer.get(offset + index);
+        }
+
+        @Override
+        public int size() {
+            return buffer.limit() - offset;
+        }
+    }
+}
@@ -9,6 +9,8 @@ import plus.jdk.milvus.conditions.segments.MergeSegments;
 import plus.jdk.milvus.record.VectorModel;
 import plus.jdk.milvus.toolkit.support.SFunction;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -25,6 +27,16 @@ public class LambdaQueryWrapper<T extends VectorModel<? extends VectorModel<?>>>
     @Accessors(chain = true)
     private Long limit = 10L;
 
+    /**
+     * 需要返回的向量列
+     */
+    private List<SFunction<T, ?>> outputVectors;
+
+    /**
+     * 需要返回的字段, 为空时返回所有标量字段
+     */
+    private List<SFunction<T, ?>> selectColumns;
+
     public LambdaQueryWrapper() {
         this((T) null);
     }
@@ -50,6 +62,30 @@ public class LambdaQueryWrapper<T extends VectorModel<? extends VectorModel<?>>>
         this.limit = limit;
     }
 
+    /**
+     * 只返回指定的字段和主键, 减少传输和解析的数据量
+     *
+     * @param columns 需要返回的字段, 可以包含向量列
+     * @return this
+     */
+    @SafeVarargs
+    public final LambdaQueryWrapper<T> select(SFunction<T, ?>... columns) {
+        this.selectColumns = Arrays.asList(columns);
+        return this;
+    }
+
+    /**
+     * 在结果中返回指定的向量列, 默认不返回向量列
+     *
+     * @param columns 向量列
+     * @return this
+     */
+    @SafeVarargs
+    public final LambdaQueryWrapper<T> outputVectors(SFunction<T, ?>... columns) {
+        this.outputVectors = Arrays.asList(columns);
+        return this;
+    }
+
     /**
      * 用于生成嵌套 Expr
      * <p>故 ExprSelect 不向下传递</p>
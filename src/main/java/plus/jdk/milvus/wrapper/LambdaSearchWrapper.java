@@ -11,6 +11,7 @@ import plus.jdk.milvus.record.VectorModel;
 import plus.jdk.milvus.toolkit.support.SFunction;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -47,10 +48,26 @@ public class LambdaSearchWrapper<T extends VectorModel<? extends VectorModel<?>>
     private SFunction<T, ?> vectorColumn;
 
     /**
-     * 指定输入向量
+     * 指定输入向量, 类型与向量列的字段类型一致, 如 {@code List<Float>}、{@code float[]}、{@code ByteBuffer}
      */
     @Accessors(chain = true)
-    private transient List<?> vectorValue;
+    private transient Object vectorValue;
+
+    /**
+     * 指定多个输入向量, 在一次请求中检索
+     */
+    @Accessors(chain = true)
+    private transient List<?> vectorValues;
+
+    /**
+     * 需要返回的向量列
+     */
+    private List<SFunction<T, ?>> outputVectors;
+
+    /**
+     * 需要返回的字段, 为空时返回所有标量字段
+     */
+    private List<SFunction<T, ?>> selectColumns;
 
     public LambdaSearchWrapper() {
         this((T) null);
@@ -67,7 +84,7 @@ public class LambdaSearchWrapper<T extends VectorModel<? extends VectorModel<?>>
     }
 
     public LambdaSearchWrapper(T entity, Class<T> entityClass, AtomicInteger paramNameSeq,
-                               MergeSegments mergeSegments, IIndexExtra extra, Integer topK, SFunction<T, ?> vectorColumn, List<?> vectorValue) {
+                               MergeSegments mergeSegments, IIndexExtra extra, Integer topK, SFunction<T, ?> vectorColumn, Object vectorValue) {
         super.setEntity(entity);
         super.setEntityClass(entityClass);
         this.paramNameSeq = paramNameSeq;
@@ -80,7 +97,37 @@ public class LambdaSearchWrapper<T extends VectorModel<? extends VectorModel<?>>
 
     public <R> LambdaSearchWrapper<T> vector(SFunction<T, R> column, R value) {
         this.vectorColumn = column;
-        this.vectorValue = (List<?>) value;
+        this.vectorValue = value;
+        return this;
+    }
+
+    public <R> LambdaSearchWrapper<T> vectors(SFunction<T, R> column, List<R> values) {
+        this.vectorColumn = column;
+        this.vectorValues = values;
+        return this;
+    }
+
+    /**
+     * 只返回指定的字段和主键, 减少传输和解析的数据量
+     *
+     * @param columns 需要返回的字段, 可以包含向量列
+     * @return this
+     */
+    @SafeVarargs
+    public final LambdaSearchWrapper<T> select(SFunction<T, ?>... columns) {
+        this.selectColumns = Arrays.asList(columns);
+        return this;
+    }
+
+    /**
+     * 在结果中返回指定的向量列, 默认不返回向量列
+     *
+     * @param columns 向量列
+     * @return this
+     */
+    @SafeVarargs
+    public final LambdaSearchWrapper<T> outputVectors(SFunction<T, ?>... columns) {
+        this.outputVectors = Arrays.asList(columns);
         return this;
     }
 
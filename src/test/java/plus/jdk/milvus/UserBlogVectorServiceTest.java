@@ -11,6 +11,7 @@ import plus.jdk.milvus.common.MilvusException;
 import plus.jdk.milvus.common.chat.ChatClient;
 import plus.jdk.milvus.dao.UserBlogVectorDao;
 import plus.jdk.milvus.model.HNSWIIndexExtra;
+import plus.jdk.milvus.model.Page;
 import plus.jdk.milvus.wrapper.LambdaQueryWrapper;
 import plus.jdk.milvus.wrapper.LambdaSearchWrapper;
 
@@ -18,6 +19,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 
 @Slf4j
@@ -68,6 +70,32 @@ class UserBlogVectorServiceTest {
         log.info("{}", ret);
     }
 
+    /**
+     * 向集合批量插入记录
+     */
+    @Test
+    @Order(2)
+    void insertBatch() throws MilvusException {
+        if (!userBlogVectorDao.hasCollection()) {
+            createCollection();
+        }
+        List<String> texts = Arrays.asList("宝贝们！！没睡吧啊啊啊", "刚出炉的九图 投票！喜欢图几");
+        List<List<Float>> embedding = chatClient.getEmbedding(texts);
+        List<UserBlogVector> userBlogVectors = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            UserBlogVector userBlogVector = new UserBlogVector();
+            userBlogVector.setBlogText(texts.get(i));
+            userBlogVector.setUid(2656274875L);
+            userBlogVector.setUserId(2656274875L);
+            userBlogVector.setBlogType(Arrays.asList("1", "2"));
+            userBlogVector.setBlogTextVector(embedding.get(i));
+            userBlogVectors.add(userBlogVector);
+        }
+        boolean ret = userBlogVectorDao.insertBatch(userBlogVectors);
+        Assertions.assertTrue(ret);
+        userBlogVectors.forEach(userBlogVector -> Assertions.assertNotNull(userBlogVector.getId()));
+    }
+
     /**
      * 使用其他字段查找相关内容
      */
@@ -93,6 +121,22 @@ class UserBlogVectorServiceTest {
         log.info("{}", wrapper.getExprSegment());
     }
 
+    /**
+     * 异步分页查询
+     */
+    @Test
+    @Order(3)
+    void queryPageAsync() throws Exception {
+        if (!userBlogVectorDao.hasCollection()) {
+            createCollection();
+        }
+        LambdaQueryWrapper<UserBlogVector> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(UserBlogVector::getUid, 2656274875L);
+        Page<UserBlogVector> page = userBlogVectorDao.queryPageAsync(wrapper, 0L, 10L).get(10, TimeUnit.SECONDS);
+        Assertions.assertNotNull(page.getInstances());
+        log.info("{}", page.getInstances());
+    }
+
     /**
      * 使用向量查找相似度最高的内容。可以结合其他字段做条件查询过滤
      */
@@ -0,0 +1,35 @@
+package plus.jdk.milvus.collection;
+
+import io.milvus.grpc.DataType;
+import io.milvus.param.MetricType;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import plus.jdk.milvus.annotation.VectorCollectionColumn;
+import plus.jdk.milvus.annotation.VectorCollectionName;
+import plus.jdk.milvus.record.VectorModel;
+
+import java.util.List;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+@VectorCollectionName(name = "auto_id_blog", description = "主键由 milvus 生成的博文向量表")
+public class AutoIdBlogVector extends VectorModel<AutoIdBlogVector> {
+
+    /**
+     * 主键, 未指定 idType, 使用全局默认配置
+     */
+    @VectorCollectionColumn(name = "id", dataType = DataType.Int64, primary = true)
+    private Long id;
+
+    /**
+     * 博文文本
+     */
+    @VectorCollectionColumn(name = "blog_text", dataType = DataType.VarChar, maxLength = 1024)
+    private String blogText;
+
+    /**
+     * 博文文本向量
+     */
+    @VectorCollectionColumn(name = "v_blog_text", dataType = DataType.FloatVector, vectorDimension = 8, metricType = MetricType.L2)
+    private List<Float> blogTextVector;
+}
@@ -0,0 +1,36 @@
+package plus.jdk.milvus.collection;
+
+import io.milvus.grpc.DataType;
+import io.milvus.param.MetricType;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import plus.jdk.milvus.annotation.VectorCollectionColumn;
+import plus.jdk.milvus.annotation.VectorCollectionName;
+import plus.jdk.milvus.enums.IdType;
+import plus.jdk.milvus.record.VectorModel;
+
+import java.nio.FloatBuffer;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+@VectorCollectionName(name = "float_buffer_blog", description = "向量字段为 FloatBuffer 的博文向量表")
+public class FloatBufferBlogVector extends VectorModel<FloatBufferBlogVector> {
+
+    /**
+     * 主键, 由调用方指定
+     */
+    @VectorCollectionColumn(name = "id", dataType = DataType.Int64, primary = true, idType = IdType.INPUT)
+    private Long id;
+
+    /**
+     * 博文文本
+     */
+    @VectorCollectionColumn(name = "blog_text", dataType = DataType.VarChar, maxLength = 1024)
+    private String blogText;
+
+    /**
+     * 博文文本向量
+     */
+    @VectorCollectionColumn(name = "v_blog_text", dataType = DataType.FloatVector, vectorDimension = 8, metricType = MetricType.L2)
+    private FloatBuffer blogTextVector;
+}
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import plus.jdk.milvus.annotation.VectorCollectionColumn;
 import plus.jdk.milvus.annotation.VectorCollectionName;
+import plus.jdk.milvus.enums.IdType;
 import plus.jdk.milvus.record.VectorModel;
 
 import java.util.List;
@@ -16,9 +17,9 @@ import java.util.List;
 public class UserBlogVector extends VectorModel<UserBlogVector> {
 
     /**
-     * 主键
+     * 主键, 写入前由客户端生成
      */
-    @VectorCollectionColumn(name = "id", dataType = DataType.Int64, primary = true)
+    @VectorCollectionColumn(name = "id", dataType = DataType.Int64, primary = true, idType = IdType.ASSIGN_ID)
     private Long id;
 
     /**
@@ -0,0 +1,316 @@
+package plus.jdk.milvus.fake;
+
+import io.milvus.grpc.ScalarField;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * 布尔表达式解析, 支持 wrapper 生成的表达式:
+ * 比较运算、{@code in}/{@code not in}、{@code like}、{@code and}/{@code or}/{@code not}、括号
+ * 以及 {@code array_contains}、{@code array_contains_all}、{@code array_contains_any}
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class Expressions {
+
+    /**
+     * @param expr 表达式, 为空时匹配所有行
+     * @return 作用于一行数据(字段名 -> 值)的断言
+     * @throws IllegalArgumentException 表达式不合法或者不支持时抛出
+     */
+    static Predicate<Map<String, Object>> parse(String expr) {
+        if (expr == null || expr.trim().isEmpty()) {
+            return row -> true;
+        }
+        Parser parser = new Parser(tokenize(expr));
+        Predicate<Map<String, Object>> predicate = parser.or();
+        if (parser.position != parser.tokens.size()) {
+            throw new IllegalArgumentException("unexpected token '" + parser.tokens.get(parser.position).text + "' in expression: " + expr);
+        }
+        return predicate;
+    }
+
+    private static List<Token> tokenize(String expr) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < expr.length()) {
+            char c = expr.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '\'' || c == '"') {
+                StringBuilder value = new StringBuilder();
+                int j = i + 1;
+                while (j < expr.length() && expr.charAt(j) != c) {
+                    if (expr.charAt(j) == '\\' && j + 1 < expr.length()) {
+                        j++;
+                    }
+                    value.append(expr.charAt(j++));
+                }
+                if (j >= expr.length()) {
+                    throw new IllegalArgumentException("unterminated string in expression: " + expr);
+                }
+                tokens.add(new Token(TokenType.STRING, value.toString()));
+                i = j + 1;
+            } else if (Character.isDigit(c) || (c == '-' && i + 1 < expr.length() && Character.isDigit(expr.charAt(i + 1)))) {
+                int j = i + 1;
+                while (j < expr.length() && (Character.isDigit(expr.charAt(j)) || ".eE".indexOf(expr.charAt(j)) >= 0
+                        || ((expr.charAt(j) == '-' || expr.charAt(j) == '+') && "eE".indexOf(expr.charAt(j - 1)) >= 0))) {
+                    j++;
+                }
+                tokens.add(new Token(TokenType.NUMBER, expr.substring(i, j)));
+                i = j;
+            } else if (Character.isLetter(c) || c == '_' || c == '$') {
+                int j = i + 1;
+                while (j < expr.length() && (Character.isLetterOrDigit(expr.charAt(j)) || expr.charAt(j) == '_')) {
+                    j++;
+                }
+                tokens.add(new Token(TokenType.IDENTIFIER, expr.substring(i, j)));
+                i = j;
+            } else {
+                String two = i + 1 < expr.length() ? expr.substring(i, i + 2) : "";
+                if ("==".equals(two) || "!=".equals(two) || ">=".equals(two) || "<=".equals(two) || "&&".equals(two) || "||".equals(two)) {
+                    tokens.add(new Token(TokenType.SYMBOL, two));
+                    i += 2;
+                } else if ("()[],<>!".indexOf(c) >= 0) {
+                    tokens.add(new Token(TokenType.SYMBOL, String.valueOf(c)));
+                    i++;
+                } else {
+                    throw new IllegalArgumentException("unexpected character '" + c + "' in expression: " + expr);
+                }
+            }
+        }
+        return tokens;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number) {
+            if (isIntegral(left) && isIntegral(right)) {
+                return Long.compare(((Number) left).longValue(), ((Number) right).longValue());
+            }
+            return Double.compare(((Number) left).doubleValue(), ((Number) right).doubleValue());
+        }
+        if (left instanceof Comparable && right != null && left.getClass() == right.getClass()) {
+            return ((Comparable) left).compareTo(right);
+        }
+        throw new IllegalArgumentException("can not compare " + left + " with " + right);
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    private static boolean matches(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number) {
+            return compare(left, right) == 0;
+        }
+        return Objects.equals(left, right);
+    }
+
+    private static boolean contains(List<?> values, Object value) {
+        for (Object candidate : values) {
+            if (matches(candidate, value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<?> elements(Object value) {
+        if (value instanceof ScalarField) {
+            return FieldValues.elements((ScalarField) value);
+        }
+        throw new IllegalArgumentException(value + " is not an array field");
+    }
+
+    private static Pattern likePattern(String like) {
+        StringBuilder regex = new StringBuilder();
+        int from = 0;
+        for (int i = like.indexOf('%'); i >= 0; i = like.indexOf('%', from)) {
+            regex.append(Pattern.quote(like.substring(from, i))).append(".*");
+            from = i + 1;
+        }
+        regex.append(Pattern.quote(like.substring(from)));
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    private enum TokenType {
+        IDENTIFIER, NUMBER, STRING, SYMBOL
+    }
+
+    private static final class Token {
+
+        private final TokenType type;
+
+        private final String text;
+
+        private Token(TokenType type, String text) {
+            this.type = type;
+            this.text = text;
+        }
+
+        private boolean is(String keyword) {
+            return type == TokenType.SYMBOL ? text.equals(keyword)
+                    : type == TokenType.IDENTIFIER && text.toLowerCase(Locale.ENGLISH).equals(keyword);
+        }
+    }
+
+    /**
+     * 递归下降解析, 优先级从低到高: or、and、not、比较
+     */
+    private static final class Parser {
+
+        private final List<Token> tokens;
+
+        private int position;
+
+        private Parser(List<Token> tokens) {
+            this.tokens = tokens;
+        }
+
+        private Predicate<Map<String, Object>> or() {
+            Predicate<Map<String, Object>> predicate = and();
+            while (accept("or") || accept("||")) {
+                predicate = predicate.or(and());
+            }
+            return predicate;
+        }
+
+        private Predicate<Map<String, Object>> and() {
+            Predicate<Map<String, Object>> predicate = unary();
+            while (accept("and") || accept("&&")) {
+                predicate = predicate.and(unary());
+            }
+            return predicate;
+        }
+
+        private Predicate<Map<String, Object>> unary() {
+            if (accept("not") || accept("!")) {
+                return unary().negate();
+            }
+            if (accept("(")) {
+                Predicate<Map<String, Object>> predicate = or();
+                expect(")");
+                return predicate;
+            }
+            return comparison();
+        }
+
+        private Predicate<Map<String, Object>> comparison() {
+            Token token = next();
+            if (token.type != TokenType.IDENTIFIER) {
+                throw new IllegalArgumentException("field name expected but got '" + token.text + "'");
+            }
+            String function = token.text.toLowerCase(Locale.ENGLISH);
+            if (function.startsWith("array_contains") && accept("(")) {
+                String field = next().text;
+                expect(",");
+                Object value = value();
+                expect(")");
+                return arrayContains(function, field, value);
+            }
+            String field = token.text;
+            boolean negate = accept("not");
+            if (accept("in")) {
+                List<?> values = (List<?>) value();
+                Predicate<Map<String, Object>> in = row -> contains(values, row.get(field));
+                return negate ? in.negate() : in;
+            }
+            if (accept("like")) {
+                Pattern pattern = likePattern((String) value());
+                Predicate<Map<String, Object>> like = row -> row.get(field) instanceof String && pattern.matcher((String) row.get(field)).matches();
+                return negate ? like.negate() : like;
+            }
+            if (negate) {
+                throw new IllegalArgumentException("'in' or 'like' expected after 'not'");
+            }
+            String operator = next().text;
+            Object value = value();
+            switch (operator) {
+                case "==":
+                    return row -> matches(row.get(field), value);
+                case "!=":
+                    return row -> !matches(row.get(field), value);
+                case ">":
+                    return row -> compare(row.get(field), value) > 0;
+                case ">=":
+                    return row -> compare(row.get(field), value) >= 0;
+                case "<":
+                    return row -> compare(row.get(field), value) < 0;
+                case "<=":
+                    return row -> compare(row.get(field), value) <= 0;
+                default:
+                    throw new IllegalArgumentException("unsupported operator '" + operator + "'");
+            }
+        }
+
+        private Predicate<Map<String, Object>> arrayContains(String function, String field, Object value) {
+            switch (function) {
+                case "array_contains":
+                    return row -> contains(elements(row.get(field)), value);
+                case "array_contains_all":
+                    return row -> ((List<?>) value).stream().allMatch(v -> contains(elements(row.get(field)), v));
+                case "array_contains_any":
+                    return row -> ((List<?>) value).stream().anyMatch(v -> contains(elements(row.get(field)), v));
+                default:
+                    throw new IllegalArgumentException("unsupported function '" + function + "'");
+            }
+        }
+
+        private Object value() {
+            if (accept("[")) {
+                List<Object> values = new ArrayList<>();
+                if (!accept("]")) {
+                    do {
+                        values.add(value());
+                    } while (accept(","));
+                    expect("]");
+                }
+                return values;
+            }
+            Token token = next();
+            switch (token.type) {
+                case STRING:
+                    return token.text;
+                case NUMBER:
+                    if (token.text.indexOf('.') >= 0 || token.text.indexOf('e') >= 0 || token.text.indexOf('E') >= 0) {
+                        return Double.parseDouble(token.text);
+                    }
+                    return Long.parseLong(token.text);
+                default:
+                    if (token.is("true") || token.is("false")) {
+                        return Boolean.parseBoolean(token.text.toLowerCase(Locale.ENGLISH));
+                    }
+                    throw new IllegalArgumentException("value expected but got '" + token.text + "'");
+            }
+        }
+
+        private boolean accept(String keyword) {
+            if (position < tokens.size() && tokens.get(position).is(keyword)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String keyword) {
+            if (!accept(keyword)) {
+                throw new IllegalArgumentException("'" + keyword + "' expected");
+            }
+        }
+
+        private Token next() {
+            if (position >= tokens.size()) {
+                throw new IllegalArgumentException("unexpected end of expression");
+            }
+            return tokens.get(position++);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package plus.jdk.milvus.fake;
+
+import io.milvus.grpc.*;
+import lombok.Getter;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * 内存中的 collection, 按写入顺序保存每一行数据(字段名 -> 值)
+ * <p>与 milvus 相同, insert 不检查主键是否已存在, 相同主键的行会重复保存; upsert 替换主键相同的所有行</p>
+ */
+@Getter
+class FakeCollection {
+
+    private final long id;
+
+    private final CollectionSchema schema;
+
+    private final FieldSchema primaryField;
+
+    private final long createdTimestamp = System.currentTimeMillis();
+
+    private volatile boolean loaded;
+
+    private final Map<String, IndexDescription> indexes = new ConcurrentHashMap<>();
+
+    private final List<Map<String, Object>> rows = new ArrayList<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final AtomicLong idSequence = new AtomicLong(System.currentTimeMillis() << 20);
+
+    FakeCollection(long id, CollectionSchema schema) {
+        this.id = id;
+        this.schema = withFieldIds(schema);
+        this.primaryField = this.schema.getFieldsList().stream().filter(FieldSchema::getIsPrimaryKey).findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("primary key is not defined in collection " + schema.getName()));
+    }
+
+    /**
+     * 写入数据, 主键为 autoID 时由服务端生成
+     *
+     * @param fieldsData 列数据
+     * @param numRows    行数
+     * @param upsert     是否先删除主键相同的行
+     * @return 每一行的主键
+     */
+    List<Object> insert(List<FieldData> fieldsData, int numRows, boolean upsert) {
+        if (upsert && primaryField.getAutoID()) {
+            throw new IllegalArgumentException("upsert is not supported when autoID is enabled in collection " + schema.getName());
+        }
+        List<Map<String, Object>> newRows = new ArrayList<>(numRows);
+        for (int i = 0; i < numRows; i++) {
+            newRows.add(new HashMap<>());
+        }
+        for (FieldData fieldData : fieldsData) {
+            FieldSchema field = getField(fieldData.getFieldName());
+            if (field.getIsPrimaryKey() && field.getAutoID()) {
+                throw new IllegalArgumentException("can not assign primary key " + field.getName() + " when autoID is enabled");
+            }
+            List<Object> values = FieldValues.read(fieldData);
+            if (values.size() != numRows) {
+                throw new IllegalArgumentException(String.format("field '%s' has %d rows, expect %d", field.getName(), values.size(), numRows));
+            }
+            for (int i = 0; i < numRows; i++) {
+                newRows.get(i).put(field.getName(), values.get(i));
+            }
+        }
+        List<Object> ids = new ArrayList<>(numRows);
+        lock.writeLock().lock();
+        try {
+            for (Map<String, Object> row : newRows) {
+                if (primaryField.getAutoID()) {
+                    row.put(primaryField.getName(), primaryField.getDataType() == DataType.Int64
+                            ? idSequence.incrementAndGet() : String.valueOf(idSequence.incrementAndGet()));
+                }
+                Object pk = row.get(primaryField.getName());
+                if (pk == null) {
+                    throw new IllegalArgumentException("primary key " + primaryField.getName() + " is required");
+                }
+                if (upsert) {
+                    rows.removeIf(existing -> pk.equals(existing.get(primaryField.getName())));
+                }
+                rows.add(row);
+                ids.add(pk);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return ids;
+    }
+
+    /**
+     * @param filter 过滤条件
+     * @return 被删除的行的主键
+     */
+    List<Object> delete(Predicate<Map<String, Object>> filter) {
+        List<Object> ids = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            Iterator<Map<String, Object>> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Map<String, Object> row = iterator.next();
+                if (filter.test(row)) {
+                    ids.add(row.get(primaryField.getName()));
+                    iterator.remove();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return ids;
+    }
+
+    /**
+     * @param filter 过滤条件
+     * @return 满足条件的行, 按写入顺序
+     */
+    List<Map<String, Object>> select(Predicate<Map<String, Object>> filter) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Map<String, Object> row : rows) {
+                if (filter.test(row)) {
+                    result.add(row);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return rows.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void setLoaded(boolean loaded) {
+        this.loaded = loaded;
+    }
+
+    String getName() {
+        return schema.getName();
+    }
+
+    FieldSchema getField(String name) {
+        for (FieldSchema field : schema.getFieldsList()) {
+            if (field.getName().equals(name)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException(String.format("field '%s' not exist in collection %s", name, schema.getName()));
+    }
+
+    private static CollectionSchema withFieldIds(CollectionSchema schema) {
+        CollectionSchema.Builder builder = schema.toBuilder().clearFields();
+        long fieldId = 100;
+        for (FieldSchema field : schema.getFieldsList()) {
+            builder.addFields(field.toBuilder().setFieldID(fieldId++));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,90 @@
+package plus.jdk.milvus.fake;
+
+import io.grpc.Server;
+import io.grpc.netty.NettyServerBuilder;
+import plus.jdk.milvus.autoconfigure.MilvusPlusProperties;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程内的 milvus 服务端, 监听本机随机端口, 用于不依赖真实 milvus 的集成测试和压测
+ * <pre>
+ * try (FakeMilvusServer server = FakeMilvusServer.start()) {
+ *     MilvusPlusProperties properties = server.applyTo(new MilvusPlusProperties());
+ *     // 使用 MilvusPlusFactoryBean 创建连接到该服务端的 client
+ * }
+ * </pre>
+ */
+public final class FakeMilvusServer implements AutoCloseable {
+
+    private static final String HOST = "127.0.0.1";
+
+    private final Server server;
+
+    private final FakeMilvusService service;
+
+    private FakeMilvusServer(Server server, FakeMilvusService service) {
+        this.server = server;
+        this.service = service;
+    }
+
+    /**
+     * 在随机端口启动
+     *
+     * @return 已启动的服务端
+     * @throws IOException 端口绑定失败时抛出
+     */
+    public static FakeMilvusServer start() throws IOException {
+        return start(0);
+    }
+
+    /**
+     * @param port 端口, 为 0 时随机选择
+     * @return 已启动的服务端
+     * @throws IOException 端口绑定失败时抛出
+     */
+    public static FakeMilvusServer start(int port) throws IOException {
+        FakeMilvusService service = new FakeMilvusService();
+        Server server = NettyServerBuilder.forAddress(new InetSocketAddress(InetAddress.getByName(HOST), port))
+                .addService(service)
+                .maxInboundMessageSize(Integer.MAX_VALUE)
+                .build()
+                .start();
+        return new FakeMilvusServer(server, service);
+    }
+
+    public String getHost() {
+        return HOST;
+    }
+
+    public int getPort() {
+        return server.getPort();
+    }
+
+    public FakeMilvusService getService() {
+        return service;
+    }
+
+    /**
+     * 将连接地址写入配置, 之后由 {@link plus.jdk.milvus.factory.MilvusPlusFactoryBean} 创建 client
+     *
+     * @param properties 配置
+     * @return 传入的配置
+     */
+    public MilvusPlusProperties applyTo(MilvusPlusProperties properties) {
+        properties.setHost(getHost());
+        properties.setPort(getPort());
+        properties.setConnectUri(null);
+        properties.setSecure(false);
+        return properties;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        server.shutdownNow();
+        server.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
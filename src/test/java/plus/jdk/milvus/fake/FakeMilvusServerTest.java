@@ -0,0 +1,716 @@
+package plus.jdk.milvus.fake;
+
+import io.milvus.client.MilvusServiceClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import plus.jdk.milvus.autoconfigure.MilvusPlusProperties;
+import plus.jdk.milvus.collection.AutoIdBlogVector;
+import plus.jdk.milvus.collection.FloatBufferBlogVector;
+import plus.jdk.milvus.collection.UserBlogVector;
+import plus.jdk.milvus.common.MilvusException;
+import plus.jdk.milvus.factory.MilvusPlusFactoryBean;
+import plus.jdk.milvus.global.BulkWriter;
+import plus.jdk.milvus.global.MilvusClientService;
+import plus.jdk.milvus.global.ReactiveMilvusClientService;
+import plus.jdk.milvus.global.WriteBehindInserter;
+import plus.jdk.milvus.global.cache.LocalResultCache;
+import plus.jdk.milvus.global.journal.JournalRecord;
+import plus.jdk.milvus.global.journal.JournalRowCodec;
+import plus.jdk.milvus.global.journal.WriteAheadJournal;
+import plus.jdk.milvus.metadata.CollectionDefinition;
+import plus.jdk.milvus.metadata.CollectionHelper;
+import plus.jdk.milvus.selector.MilvusSelector;
+import plus.jdk.milvus.toolkit.support.SFunction;
+import plus.jdk.milvus.wrapper.LambdaQueryWrapper;
+import plus.jdk.milvus.wrapper.LambdaSearchWrapper;
+import reactor.core.publisher.Mono;
+
+import java.nio.FloatBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+class FakeMilvusServerTest {
+
+    private static final int DIMENSION = 768;
+
+    private static FakeMilvusServer server;
+
+    private static AnnotationConfigApplicationContext applicationContext;
+
+    private static MilvusServiceClient milvusClient;
+
+    private static MilvusPlusProperties properties;
+
+    private static MilvusClientService milvusClientService;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        server = FakeMilvusServer.start();
+        applicationContext = new AnnotationConfigApplicationContext(MilvusSelector.class);
+        properties = server.applyTo(new MilvusPlusProperties());
+        properties.getGlobalConfig().setBanner(false);
+        MilvusPlusFactoryBean factoryBean = new MilvusPlusFactoryBean();
+        factoryBean.setProperties(properties);
+        factoryBean.setGlobalConfig(properties.getGlobalConfig());
+        milvusClient = factoryBean.getObject();
+        properties.getRemoveBatch().setMaxKeys(3);
+        milvusClientService = new MilvusClientService(milvusClient, properties);
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        milvusClientService.destroy();
+        milvusClient.close();
+        applicationContext.close();
+        server.close();
+    }
+
+    private static List<Float> vector(float first) {
+        List<Float> vector = new ArrayList<>(DIMENSION);
+        vector.add(first);
+        for (int i = 1; i < DIMENSION; i++) {
+            vector.add(0.01f);
+        }
+        return vector;
+    }
+
+    private static UserBlogVector blog(long userId, String text, float first) {
+        UserBlogVector blog = new UserBlogVector();
+        blog.setUid(userId);
+        blog.setUserId(userId);
+        blog.setBlogText(text);
+        blog.setBlogType(Arrays.asList("tech", "type-" + userId));
+        blog.setBlogTextVector(vector(first));
+        return blog;
+    }
+
+    @Test
+    void test_round_trip() {
+        if (milvusClientService.hasCollection(UserBlogVector.class)) {
+            milvusClientService.dropCollection(UserBlogVector.class);
+        }
+        Assertions.assertTrue(milvusClientService.createCollection(UserBlogVector.class));
+        SFunction<UserBlogVector, ?> vectorColumn = UserBlogVector::getBlogTextVector;
+        Assertions.assertTrue(milvusClientService.createIndex(UserBlogVector.class, "idx_blog_text", vectorColumn, null));
+        milvusClientService.loadCollection(UserBlogVector.class);
+
+        List<UserBlogVector> blogs = Arrays.asList(blog(1L, "hello", 1f), blog(2L, "world", 2f), blog(3L, "hello world", 3f));
+        Assertions.assertTrue(milvusClientService.insertBatch(blogs));
+        Assertions.assertNotNull(blogs.get(0).getId());
+        Assertions.assertEquals(3, server.getService().rowCount("user_blog2"));
+
+        LambdaQueryWrapper<UserBlogVector> query = new LambdaQueryWrapper<>();
+        query.setEntityClass(UserBlogVector.class);
+        query.gt(UserBlogVector::getUserId, 1L).likeRight(UserBlogVector::getBlogText, "hello");
+        List<UserBlogVector> queried = milvusClientService.query(query);
+        Assertions.assertEquals(1, queried.size());
+        Assertions.assertEquals("hello world", queried.get(0).getBlogText());
+        Assertions.assertEquals(blogs.get(2).getId(), queried.get(0).getId());
+
+        LambdaSearchWrapper<UserBlogVector> search = new LambdaSearchWrapper<>();
+        search.setEntityClass(UserBlogVector.class);
+        search.vector(UserBlogVector::getBlogTextVector, vector(2.1f)).setTopK(2);
+        List<UserBlogVector> found = milvusClientService.search(search);
+        Assertions.assertEquals(2, found.size());
+        Assertions.assertEquals("world", found.get(0).getBlogText());
+        Assertions.assertEquals(Arrays.asList("tech", "type-2"), found.get(0).getBlogType());
+
+        Assertions.assertTrue(milvusClientService.remove(blogs.get(0).getId(), UserBlogVector.class));
+        Assertions.assertEquals(2, server.getService().rowCount("user_blog2"));
+    }
+
+    @Test
+    void test_auto_id_by_default() {
+        if (milvusClientService.hasCollection(AutoIdBlogVector.class)) {
+            milvusClientService.dropCollection(AutoIdBlogVector.class);
+        }
+        Assertions.assertTrue(CollectionHelper.getCollectionInfo(AutoIdBlogVector.class).getPrimaryColumn().autoId());
+        milvusClientService.createCollection(AutoIdBlogVector.class);
+        AutoIdBlogVector first = new AutoIdBlogVector();
+        first.setBlogText("first");
+        first.setBlogTextVector(Arrays.asList(1f, 0f, 0f, 0f, 0f, 0f, 0f, 0f));
+        AutoIdBlogVector second = new AutoIdBlogVector();
+        second.setBlogText("second");
+        second.setBlogTextVector(Arrays.asList(0f, 1f, 0f, 0f, 0f, 0f, 0f, 0f));
+        Assertions.assertTrue(milvusClientService.insertBatch(Arrays.asList(first, second)));
+        Assertions.assertNotNull(first.getId());
+        Assertions.assertNotEquals(first.getId(), second.getId());
+        Assertions.assertEquals(2, server.getService().rowCount("auto_id_blog"));
+        Assertions.assertThrows(MilvusException.class, () -> milvusClientService.upsert(first));
+    }
+
+    @Test
+    void test_assign_id_on_client() {
+        if (milvusClientService.hasCollection(UserBlogVector.class)) {
+            milvusClientService.dropCollection(UserBlogVector.class);
+        }
+        milvusClientService.createCollection(UserBlogVector.class);
+        UserBlogVector assigned = blog(1L, "assigned", 1f);
+        assigned.setId(42L);
+        UserBlogVector generated = blog(2L, "generated", 2f);
+        Assertions.assertTrue(milvusClientService.insertBatch(Arrays.asList(assigned, generated)));
+        Assertions.assertEquals(42L, assigned.getId());
+        Assertions.assertNotNull(generated.getId());
+
+        // 主键不变, 但 insert 不检查主键是否已存在, 重复写入会产生主键相同的两行
+        Long generatedId = generated.getId();
+        Assertions.assertTrue(milvusClientService.insert(generated));
+        Assertions.assertEquals(generatedId, generated.getId());
+        Assertions.assertEquals(3, server.getService().rowCount("user_blog2"));
+
+        // 只有 upsert 的重试是幂等的, 主键相同的行被替换为一行
+        Assertions.assertTrue(milvusClientService.upsert(generated));
+        Assertions.assertTrue(milvusClientService.upsert(generated));
+        Assertions.assertEquals(2, server.getService().rowCount("user_blog2"));
+    }
+
+    @Test
+    void test_cached_results_are_copies() {
+        if (milvusClientService.hasCollection(UserBlogVector.class)) {
+            milvusClientService.dropCollection(UserBlogVector.class);
+        }
+        milvusClientService.createCollection(UserBlogVector.class);
+        milvusClientService.loadCollection(UserBlogVector.class);
+        milvusClientService.insertBatch(Arrays.asList(blog(1L, "cached", 1f), blog(2L, "other", 2f)));
+        milvusClientService.setResultCache(new LocalResultCache(16, 60000L));
+        try {
+            LambdaQueryWrapper<UserBlogVector> query = new LambdaQueryWrapper<>();
+            query.setEntityClass(UserBlogVector.class);
+            query.eq(UserBlogVector::getUserId, 1L);
+            List<UserBlogVector> first = milvusClientService.query(query);
+            first.get(0).setBlogText("changed");
+            first.get(0).getBlogType().add("changed");
+            first.get(0).setId(null);
+
+            List<UserBlogVector> second = milvusClientService.query(query);
+            Assertions.assertEquals(1L, milvusClientService.getResultCache().getHitCount("user_blog2"));
+            Assertions.assertNotSame(first.get(0), second.get(0));
+            Assertions.assertEquals("cached", second.get(0).getBlogText());
+            Assertions.assertEquals(Arrays.asList("tech", "type-1"), second.get(0).getBlogType());
+            Assertions.assertNotNull(second.get(0).getId());
+        } finally {
+            milvusClientService.setResultCache(null);
+        }
+    }
+
+    @Test
+    void test_remove_by_ids() {
+        if (milvusClientService.hasCollection(UserBlogVector.class)) {
+            milvusClientService.dropCollection(UserBlogVector.class);
+        }
+        milvusClientService.createCollection(UserBlogVector.class);
+        List<UserBlogVector> blogs = new ArrayList<>();
+        for (long i = 1; i <= 10; i++) {
+            blogs.add(blog(i, "blog " + i, i));
+        }
+        Assertions.assertTrue(milvusClientService.insertBatch(blogs));
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            ids.add(blogs.get(i).getId());
+        }
+        Assertions.assertEquals(0, milvusClientService.removeByIds(new ArrayList<>(), UserBlogVector.class));
+        // 并行删除不占用异步方法的线程池
+        milvusClientService.setAsyncExecutor(task -> {
+            throw new AssertionError("blocking delete submitted to the async executor");
+        });
+        try {
+            Assertions.assertEquals(8, milvusClientService.removeByIds(ids, UserBlogVector.class));
+        } finally {
+            milvusClientService.setAsyncExecutor(null);
+        }
+        Assertions.assertEquals(2, server.getService().rowCount("user_blog2"));
+    }
+
+    @Test
+    void test_insert_batch_chunking() {
+        if (milvusClientService.hasCollection(UserBlogVector.class)) {
+            milvusClientService.dropCollection(UserBlogVector.class);
+        }
+        milvusClientService.createCollection(UserBlogVector.class);
+        List<UserBlogVector> blogs = new ArrayList<>();
+        for (long i = 1; i <= 10; i++) {
+            blogs.add(blog(i, "blog " + i, i));
+        }
+        Integer maxRows = properties.getBatchMaxRows();
+        Long maxBytes = properties.getBatchMaxBytes();
+        try {
+            server.getService().getWriteRequestRows().clear();
+            properties.setBatchMaxRows(4);
+            Assertions.assertTrue(milvusClientService.insertBatch(blogs.subList(0, 5)));
+            Assertions.assertEquals(Arrays.asList(4, 1), server.getService().getWriteRequestRows());
+
+            // 每行约 3KB, 按数据量切分为每批两行
+            server.getService().getWriteRequestRows().clear();
+            properties.setBatchMaxRows(maxRows);
+            properties.setBatchMaxBytes(7000L);
+            Assertions.assertTrue(milvusClientService.insertBatch(blogs.subList(5, 10)));
+            Assertions.assertEquals(Arrays.asList(2, 2, 1), server.getService().getWriteRequestRows());
+        } finally {
+            properties.setBatchMaxRows(maxRows);
+            properties.setBatchMaxBytes(maxBytes);
+        }
+        Assertions.assertEquals(10, server.getService().rowCount("user_blog2"));
+        for (UserBlogVector blog : blogs) {
+            Assertions.assertNotNull(blog.getId());
+        }
+    }
+
+    @Test
+    void test_async_cancel_and_error_mapping() throws Exception {
+        if (milvusClientService.hasCollection(UserBlogVector.class)) {
+            milvusClientService.dropCollection(UserBlogVector.class);
+        }
+        LambdaQueryWrapper<UserBlogVector> query = new LambdaQueryWrapper<>();
+        query.setEntityClass(UserBlogVector.class);
+        query.gt(UserBlogVector::getUserId, 0L);
+        // 服务端返回的失败状态
+        ExecutionException notFound = Assertions.assertThrows(ExecutionException.class,
+                () -> milvusClientService.queryAsync(query).get(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(notFound.getCause() instanceof MilvusException);
+
+        milvusClientService.createCollection(UserBlogVector.class);
+        milvusClientService.loadCollection(UserBlogVector.class);
+        // gRPC 调用本身失败
+        server.getService().setQueryFailure(io.grpc.Status.UNAVAILABLE.withDescription("fake outage"));
+        try {
+            ExecutionException unavailable = Assertions.assertThrows(ExecutionException.class,
+                    () -> milvusClientService.queryAsync(query).get(5, TimeUnit.SECONDS));
+            Assertions.assertTrue(unavailable.getCause() instanceof MilvusException);
+        } finally {
+            server.getService().setQueryFailure(null);
+        }
+
+        // 取消返回的 future 时取消 gRPC 请求
+        CountDownLatch gate = new CountDownLatch(1);
+        server.getService().setQueryGate(gate);
+        try {
+            int queries = server.getService().getQueryRequests();
+            CompletableFuture<List<UserBlogVector>> pending = milvusClientService.queryAsync(query);
+            long deadline = System.currentTimeMillis() + 5000;
+            // 请求到达服务端后再取消, 否则 gRPC 在客户端就结束了调用
+            while (server.getService().getQueryRequests() == queries && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assertions.assertTrue(pending.cancel(true));
+            while (server.getService().getCancelledQueries() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assertions.assertEquals(1, server.getService().getCancelledQueries());
+        } finally {
+            server.getService().setQueryGate(null);
+            gate.countDown();
+        }
+        Assertions.assertTrue(milvusClientService.queryAsync(query).get(5, TimeUnit.SECONDS).isEmpty());
+    }
+
+    @Test
+    void test_reactive_adapters() {
+        if (milvusClientService.hasCollection(UserBlogVector.class)) {
+            milvusClientService.dropCollection(UserBlogVector.class);
+        }
+        ReactiveMilvusClientService reactive = new ReactiveMilvusClientService(milvusClientService);
+        LambdaQueryWrapper<UserBlogVector> query = new LambdaQueryWrapper<>();
+        query.setEntityClass(UserBlogVector.class);
+        query.gt(UserBlogVector::getUserId, 0L);
+        Assertions.assertThrows(MilvusException.class, () -> reactive.query(query).collectList().block());
+
+        milvusClientService.createCollection(UserBlogVector.class);
+        milvusClientService.loadCollection(UserBlogVector.class);
+        // 订阅时才发出请求
+        Mono<Boolean> insert = reactive.insert(blog(1L, "blog 1", 1f));
+        Assertions.assertEquals(0, server.getService().rowCount("user_blog2"));
+        Assertions.assertTrue(insert.block());
+        for (long i = 2; i <= 5; i++) {
+            Assertions.assertTrue(reactive.insert(blog(i, "blog " + i, i)).block());
+        }
+        Assertions.assertEquals(5, server.getService().rowCount("user_blog2"));
+        Assertions.assertEquals(5, reactive.query(query).collectList().block().size());
+
+        LambdaSearchWrapper<UserBlogVector> search = new LambdaSearchWrapper<>();
+        search.setEntityClass(UserBlogVector.class);
+        search.vector(UserBlogVector::getBlogTextVector, vector(2.1f)).setTopK(2);
+        List<UserBlogVector> found = reactive.search(search).collectList().block();
+        Assertions.assertEquals(2, found.size());
+        Assertions.assertEquals("blog 2", found.get(0).getBlogText());
+
+        // 主键游标流式查询最多预读一批, 不足一批时结束, 不修改 wrapper 的 limit 和 offset
+        query.setLimit(1L).setOffset(20000L);
+        int queries = server.getService().getQueryRequests();
+        Assertions.assertEquals(3, reactive.queryStream(query, 2).take(3).collectList().block().size());
+        Assertions.assertTrue(server.getService().getQueryRequests() - queries <= 3);
+        queries = server.getService().getQueryRequests();
+        List<UserBlogVector> streamed = reactive.queryStream(query, 2).collectList().block();
+        Assertions.assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L),
+                streamed.stream().map(UserBlogVector::getUserId).collect(Collectors.toList()));
+        Assertions.assertEquals(queries + 3, server.getService().getQueryRequests());
+        Assertions.assertEquals(1L, query.getLimit());
+        Assertions.assertEquals(20000L, query.getOffset());
+
+        Assertions.assertTrue(reactive.remove(found.get(0).getId(), UserBlogVector.class).block());
+        Assertions.assertEquals(4, server.getService().rowCount("user_blog2"));
+    }
+
+    @Test
+    void test_upsert() {
+        if (milvusClientService.hasCollection(UserBlogVector.class)) {
+            milvusClientService.dropCollection(UserBlogVector.class);
+        }
+        milvusClientService.createCollection(UserBlogVector.class);
+        SFunction<UserBlogVector, ?> vectorColumn = UserBlogVector::getBlogTextVector;
+        milvusClientService.createIndex(UserBlogVector.class, "idx_blog_text", vectorColumn, null);
+        milvusClientService.loadCollection(UserBlogVector.class);
+        UserBlogVector blog = blog(1L, "before", 1f);
+        Assertions.assertTrue(milvusClientService.upsert(blog));
+        Long id = blog.getId();
+        Assertions.assertNotNull(id);
+
+        UserBlogVector refreshed = blog(1L, "after", 5f);
+        refreshed.setId(id);
+        Assertions.assertTrue(milvusClientService.upsertBatch(Arrays.asList(refreshed, blog(2L, "new", 2f))));
+        Assertions.assertEquals(2, server.getService().rowCount("user_blog2"));
+
+        LambdaQueryWrapper<UserBlogVector> query = new LambdaQueryWrapper<>();
+        query.setEntityClass(UserBlogVector.class);
+        query.eq(UserBlogVector::getUserId, 1L);
+        List<UserBlogVector> queried = milvusClientService.query(query);
+        Assertions.assertEquals(1, queried.size());
+        Assertions.assertEquals("after", queried.get(0).getBlogText());
+        Assertions.assertEquals(id, queried.get(0).getId());
+    }
+
+    @Test
+    void test_replay_journal() throws Exception {
+        if (milvusClientService.hasCollection(UserBlogVector.class)) {
+            milvusClientService.dropCollection(UserBlogVector.class);
+        }
+        milvusClientService.createCollection(UserBlogVector.class);
+        MilvusPlusProperties.WriteBehind config = new MilvusPlusProperties.WriteBehind();
+        config.getJournal().setEnabled(true);
+        config.getJournal().setDirectory(Files.createTempDirectory("milvus-journal").toString());
+        UserBlogVector kept = blog(1L, "kept", 1f);
+        kept.setId(11L);
+        UserBlogVector removed = blog(2L, "removed", 2f);
+        removed.setId(12L);
+        if (milvusClientService.hasCollection(FloatBufferBlogVector.class)) {
+            milvusClientService.dropCollection(FloatBufferBlogVector.class);
+        }
+        milvusClientService.createCollection(FloatBufferBlogVector.class);
+        FloatBufferBlogVector buffer = new FloatBufferBlogVector();
+        buffer.setId(21L);
+        buffer.setBlogText("buffer");
+        buffer.setBlogTextVector(FloatBuffer.wrap(new float[]{0.5f, 1f, 0f, 0f, 0f, 0f, 0f, 2f}));
+        CollectionDefinition blogDefinition = CollectionHelper.getCollectionInfo(UserBlogVector.class);
+        WriteAheadJournal journal = new WriteAheadJournal(config.getJournal());
+        journal.append(new JournalRecord(JournalRecord.INSERT, UserBlogVector.class.getName(), JournalRowCodec.encode(blogDefinition, kept)));
+        journal.append(new JournalRecord(JournalRecord.INSERT, UserBlogVector.class.getName(), JournalRowCodec.encode(blogDefinition, removed)));
+        journal.append(new JournalRecord(JournalRecord.DELETE, UserBlogVector.class.getName(), "[12]"));
+        journal.append(new JournalRecord(JournalRecord.INSERT, FloatBufferBlogVector.class.getName(),
+                JournalRowCodec.encode(CollectionHelper.getCollectionInfo(FloatBufferBlogVector.class), buffer)));
+        journal.close();
+
+        WriteBehindInserter inserter = new WriteBehindInserter(milvusClientService, config);
+        inserter.afterPropertiesSet();
+        awaitRowCount("float_buffer_blog", 1);
+        Assertions.assertEquals(1, server.getService().rowCount("user_blog2"));
+        milvusClientService.loadCollection(FloatBufferBlogVector.class);
+        LambdaQueryWrapper<FloatBufferBlogVector> query = new LambdaQueryWrapper<>();
+        query.setEntityClass(FloatBufferBlogVector.class);
+        query.eq(FloatBufferBlogVector::getId, 21L).outputVectors(FloatBufferBlogVector::getBlogTextVector);
+        List<FloatBufferBlogVector> replayed = milvusClientService.query(query);
+        Assertions.assertEquals(1, replayed.size());
+        Assertions.assertEquals("buffer", replayed.get(0).getBlogText());
+        Assertions.assertEquals(FloatBuffer.wrap(new float[]{0.5f, 1f, 0f, 0f, 0f, 0f, 0f, 2f}), replayed.get(0).getBlogTextVector());
+
+        UserBlogVector buffered = blog(3L, "buffered", 3f);
+        Object id = inserter.insert(buffered).get(5, TimeUnit.SECONDS);
+        Assertions.assertTrue(inserter.remove(id, UserBlogVector.class).get(5, TimeUnit.SECONDS));
+        inserter.destroy();
+        Assertions.assertEquals(1, server.getService().rowCount("user_blog2"));
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(Paths.get(config.getJournal().getDirectory()), "*.journal")) {
+            Assertions.assertFalse(segments.iterator().hasNext());
+        }
+    }
+
+    @Test
+    void test_replay_journal_in_background() throws Exception {
+        if (milvusClientService.hasCollection(UserBlogVector.class)) {
+            milvusClientService.dropCollection(UserBlogVector.class);
+        }
+        MilvusPlusProperties.WriteBehind config = new MilvusPlusProperties.WriteBehind();
+        config.setFlushInterval(20L);
+        config.getJournal().setEnabled(true);
+        config.getJournal().setDirectory(Files.createTempDirectory("milvus-journal").toString());
+        UserBlogVector kept = blog(1L, "kept", 1f);
+        kept.setId(11L);
+        WriteAheadJournal journal = new WriteAheadJournal(config.getJournal());
+        journal.append(new JournalRecord(JournalRecord.INSERT, UserBlogVector.class.getName(),
+                JournalRowCodec.encode(CollectionHelper.getCollectionInfo(UserBlogVector.class), kept)));
+        journal.close();
+
+        // collection 不存在时重新写入失败, 不影响放入缓冲区
+        WriteBehindInserter inserter = new WriteBehindInserter(milvusClientService, config);
+        inserter.afterPropertiesSet();
+        CompletableFuture<Object> buffered = inserter.insert(blog(2L, "buffered", 2f));
+        Thread.sleep(100);
+        Assertions.assertFalse(buffered.isDone());
+
+        milvusClientService.createCollection(UserBlogVector.class);
+        Assertions.assertNotNull(buffered.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(2, server.getService().rowCount("user_blog2"));
+        inserter.destroy();
+    }
+
+    @Test
+    void test_write_behind_batching_and_order() throws Exception {
+        if (milvusClientService.hasCollection(UserBlogVector.class)) {
+            milvusClientService.dropCollection(UserBlogVector.class);
+        }
+        milvusClientService.createCollection(UserBlogVector.class);
+        MilvusPlusProperties.WriteBehind config = new MilvusPlusProperties.WriteBehind();
+        config.setMaxRows(3);
+        config.setFlushInterval(60000L);
+        WriteBehindInserter inserter = new WriteBehindInserter(milvusClientService, config);
+        inserter.afterPropertiesSet();
+        List<CompletableFuture<Object>> futures = new ArrayList<>();
+        for (long i = 1; i <= 3; i++) {
+            futures.add(inserter.insert(blog(i, "blog " + i, i)));
+        }
+        // 行数达到 maxRows 时立即写入, 之后的一行等待 flush
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals(3, server.getService().rowCount("user_blog2"));
+        futures.add(inserter.insert(blog(4L, "blog 4", 4f)));
+        Thread.sleep(50);
+        Assertions.assertFalse(futures.get(3).isDone());
+
+        // 删除在之前进入缓冲区的写入之后执行, 主键在放入缓冲区时已经生成
+        UserBlogVector removedBlog = blog(8L, "removed", 8f);
+        CompletableFuture<Object> inserted = inserter.insert(removedBlog);
+        CompletableFuture<Boolean> removed = inserter.remove(removedBlog.getId(), UserBlogVector.class);
+        inserter.flush();
+        Assertions.assertTrue(removed.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(removedBlog.getId(), inserted.get(5, TimeUnit.SECONDS));
+        Assertions.assertNotNull(futures.get(3).get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(4, server.getService().rowCount("user_blog2"));
+        inserter.destroy();
+    }
+
+    @Test
+    void test_write_behind_backpressure_and_shutdown() throws Exception {
+        if (milvusClientService.hasCollection(UserBlogVector.class)) {
+            milvusClientService.dropCollection(UserBlogVector.class);
+        }
+        milvusClientService.createCollection(UserBlogVector.class);
+        MilvusPlusProperties.WriteBehind config = new MilvusPlusProperties.WriteBehind();
+        config.setCapacity(2);
+        config.setOfferTimeout(50L);
+        config.setFlushInterval(60000L);
+        WriteBehindInserter inserter = new WriteBehindInserter(milvusClientService, config);
+        inserter.afterPropertiesSet();
+        CompletableFuture<Object> first = inserter.insert(blog(1L, "first", 1f));
+        CompletableFuture<Object> second = inserter.insert(blog(2L, "second", 2f));
+        Assertions.assertThrows(MilvusException.class, () -> inserter.insert(blog(3L, "third", 3f)));
+        Assertions.assertEquals(0, server.getService().rowCount("user_blog2"));
+
+        // 关闭时写完缓冲区中的数据, 之后不再接受写入
+        inserter.destroy();
+        Assertions.assertTrue(first.isDone() && second.isDone());
+        Assertions.assertEquals(2, server.getService().rowCount("user_blog2"));
+        Assertions.assertThrows(MilvusException.class, () -> inserter.insert(blog(4L, "closed", 4f)));
+    }
+
+    @Test
+    void test_write_behind_isolates_bad_rows() throws Exception {
+        if (milvusClientService.hasCollection(UserBlogVector.class)) {
+            milvusClientService.dropCollection(UserBlogVector.class);
+        }
+        milvusClientService.createCollection(UserBlogVector.class);
+        MilvusPlusProperties.WriteBehind config = new MilvusPlusProperties.WriteBehind();
+        config.setMaxRows(4);
+        config.setFlushInterval(60000L);
+        config.getJournal().setEnabled(true);
+        config.getJournal().setDirectory(Files.createTempDirectory("milvus-journal").toString());
+        WriteBehindInserter inserter = new WriteBehindInserter(milvusClientService, config);
+        inserter.afterPropertiesSet();
+        // 缺少其他行都有的字段, 与其他行一起写入时整批失败
+        UserBlogVector bad = blog(3L, null, 3f);
+        List<CompletableFuture<Object>> futures = new ArrayList<>();
+        futures.add(inserter.insert(blog(1L, "blog 1", 1f)));
+        futures.add(inserter.insert(blog(2L, "blog 2", 2f)));
+        futures.add(inserter.insert(bad));
+        futures.add(inserter.insert(blog(4L, "blog 4", 4f)));
+        ExecutionException error = Assertions.assertThrows(ExecutionException.class, () -> futures.get(2).get(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(error.getCause() instanceof MilvusException);
+        for (int i : new int[]{0, 1, 3}) {
+            Assertions.assertNotNull(futures.get(i).get(5, TimeUnit.SECONDS));
+        }
+        Assertions.assertEquals(3, server.getService().rowCount("user_blog2"));
+        // 失败的行已经通知调用方, 日志中同样确认, 重启后不会再次写入
+        inserter.destroy();
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(Paths.get(config.getJournal().getDirectory()), "*.journal")) {
+            Assertions.assertFalse(segments.iterator().hasNext());
+        }
+    }
+
+    @Test
+    void test_write_behind_retries_unwritten_chunks() throws Exception {
+        if (milvusClientService.hasCollection(AutoIdBlogVector.class)) {
+            milvusClientService.dropCollection(AutoIdBlogVector.class);
+        }
+        milvusClientService.createCollection(AutoIdBlogVector.class);
+        MilvusPlusProperties.WriteBehind config = new MilvusPlusProperties.WriteBehind();
+        config.setMaxRows(5);
+        config.setFlushInterval(50L);
+        WriteBehindInserter inserter = new WriteBehindInserter(milvusClientService, config);
+        inserter.afterPropertiesSet();
+        Integer maxRows = properties.getBatchMaxRows();
+        try {
+            properties.setBatchMaxRows(2);
+            // 第一个请求写入成功后连接失败, 只重试剩余的三行, 服务端生成主键时也不会重复写入
+            server.getService().failWriteAfter(1, io.grpc.Status.UNAVAILABLE);
+            List<CompletableFuture<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                AutoIdBlogVector blog = new AutoIdBlogVector();
+                blog.setBlogText("blog " + i);
+                blog.setBlogTextVector(Arrays.asList((float) i, 0f, 0f, 0f, 0f, 0f, 0f, 1f));
+                futures.add(inserter.insert(blog));
+            }
+            for (CompletableFuture<Object> future : futures) {
+                Assertions.assertNotNull(future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            properties.setBatchMaxRows(maxRows);
+        }
+        Assertions.assertEquals(5, server.getService().rowCount("auto_id_blog"));
+        inserter.destroy();
+    }
+
+    @Test
+    void test_write_behind_insert_racing_destroy() throws Exception {
+        if (milvusClientService.hasCollection(UserBlogVector.class)) {
+            milvusClientService.dropCollection(UserBlogVector.class);
+        }
+        milvusClientService.createCollection(UserBlogVector.class);
+        MilvusPlusProperties.WriteBehind config = new MilvusPlusProperties.WriteBehind();
+        WriteBehindInserter inserter = new WriteBehindInserter(milvusClientService, config);
+        inserter.afterPropertiesSet();
+        List<CompletableFuture<Object>> futures = new CopyOnWriteArrayList<>();
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            writers.execute(() -> {
+                try {
+                    for (long i = 0; ; i++) {
+                        futures.add(inserter.insert(blog(i, "race", 1f)));
+                    }
+                } catch (MilvusException e) {
+                    // 已关闭
+                }
+            });
+        }
+        Thread.sleep(50);
+        inserter.destroy();
+        writers.shutdown();
+        Assertions.assertTrue(writers.awaitTermination(5, TimeUnit.SECONDS));
+        // 放入缓冲区成功的写入都已经完成
+        for (CompletableFuture<Object> future : futures) {
+            Assertions.assertNotNull(future.get(5, TimeUnit.SECONDS));
+        }
+        Assertions.assertEquals(futures.size(), server.getService().rowCount("user_blog2"));
+    }
+
+    @Test
+    void test_query_iterator_with_out_of_order_inserts() {
+        if (milvusClientService.hasCollection(FloatBufferBlogVector.class)) {
+            milvusClientService.dropCollection(FloatBufferBlogVector.class);
+        }
+        milvusClientService.createCollection(FloatBufferBlogVector.class);
+        List<FloatBufferBlogVector> blogs = new ArrayList<>();
+        for (long id : new long[]{5, 1, 9, 3, 7, 2, 8, 4, 6}) {
+            FloatBufferBlogVector blog = new FloatBufferBlogVector();
+            blog.setId(id);
+            blog.setBlogText("blog " + id);
+            blog.setBlogTextVector(FloatBuffer.wrap(new float[]{id, 0f, 0f, 0f, 0f, 0f, 0f, 0f}));
+            blogs.add(blog);
+        }
+        milvusClientService.insertBatch(blogs);
+        milvusClientService.loadCollection(FloatBufferBlogVector.class);
+        LambdaQueryWrapper<FloatBufferBlogVector> query = new LambdaQueryWrapper<>();
+        query.setEntityClass(FloatBufferBlogVector.class);
+        query.gt(FloatBufferBlogVector::getId, 0L);
+        List<Long> ids = new ArrayList<>();
+        milvusClientService.queryIterator(query, 2).forEachRemaining(blog -> ids.add(blog.getId()));
+        Assertions.assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L), ids);
+    }
+
+    private void awaitRowCount(String collectionName, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (server.getService().rowCount(collectionName) != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(expected, server.getService().rowCount(collectionName));
+    }
+
+    @Test
+    void test_bulk_writer() {
+        if (milvusClientService.hasCollection(UserBlogVector.class)) {
+            milvusClientService.dropCollection(UserBlogVector.class);
+        }
+        milvusClientService.createCollection(UserBlogVector.class);
+        List<UserBlogVector> blogs = new ArrayList<>();
+        for (long i = 1; i <= 25; i++) {
+            blogs.add(blog(i, "blog " + i, i));
+        }
+        List<BulkWriter.ChunkResult<UserBlogVector>> chunks = new CopyOnWriteArrayList<>();
+        BulkWriter.Result<UserBlogVector> result = milvusClientService.bulkWriter(UserBlogVector.class)
+                .maxRows(4).maxInFlight(3).listener(chunks::add).write(blogs.stream());
+        Assertions.assertTrue(result.isSuccess());
+        Assertions.assertEquals(7, result.getChunks());
+        Assertions.assertEquals(25, result.getWrittenRows());
+        Assertions.assertEquals(7, chunks.size());
+        Assertions.assertEquals(25, server.getService().rowCount("user_blog2"));
+        Assertions.assertNotNull(blogs.get(24).getId());
+
+        milvusClientService.dropCollection(UserBlogVector.class);
+        // 重试前的等待不能占用异步线程池中的线程
+        ExecutorService asyncPool = Executors.newSingleThreadExecutor();
+        AtomicLong longestTaskNanos = new AtomicLong();
+        milvusClientService.setAsyncExecutor(task -> asyncPool.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                longestTaskNanos.accumulateAndGet(System.nanoTime() - start, Math::max);
+            }
+        }));
+        BulkWriter.Result<UserBlogVector> failed;
+        try {
+            failed = milvusClientService.bulkWriter(UserBlogVector.class)
+                    .maxRows(10).maxRetries(1).retryBackoff(300).write(blogs.iterator());
+        } finally {
+            milvusClientService.setAsyncExecutor(null);
+            asyncPool.shutdown();
+        }
+        Assertions.assertTrue(longestTaskNanos.get() < TimeUnit.MILLISECONDS.toNanos(300));
+        Assertions.assertFalse(failed.isSuccess());
+        Assertions.assertEquals(25, failed.getFailedRows());
+        Assertions.assertEquals(3, failed.getFailures().size());
+        Assertions.assertEquals(2, failed.getFailures().get(0).getAttempts());
+        Assertions.assertEquals(10, failed.getFailures().get(0).getVectorModels().size());
+    }
+}
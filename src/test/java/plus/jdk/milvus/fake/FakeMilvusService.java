@@ -0,0 +1,649 @@
+package plus.jdk.milvus.fake;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.grpc.Context;
+import io.grpc.stub.StreamObserver;
+import io.milvus.grpc.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 实现 starter 用到的 {@link MilvusServiceGrpc} 接口, 数据保存在内存中, search 为暴力检索
+ * <p>不区分 database 和 partition, 写入后立即可见</p>
+ */
+public class FakeMilvusService extends MilvusServiceGrpc.MilvusServiceImplBase {
+
+    private static final Status SUCCESS = Status.newBuilder().setErrorCode(ErrorCode.Success).build();
+
+    private final Map<String, FakeCollection> collections = new ConcurrentHashMap<>();
+
+    private final AtomicLong idSequence = new AtomicLong(1000);
+
+    /**
+     * 每次 insert/upsert 请求的行数
+     */
+    private final List<Integer> writeRequestRows = new CopyOnWriteArrayList<>();
+
+    /**
+     * 不为 null 时 query 在返回前等待, 用于测试取消
+     */
+    private volatile CountDownLatch queryGate;
+
+    /**
+     * 不为 null 时 query 直接以该状态结束 gRPC 调用
+     */
+    private volatile io.grpc.Status queryFailure;
+
+    /**
+     * 大于 0 时倒数到 0 的那个 insert/upsert 请求以 writeFailure 结束 gRPC 调用, 只失败一次
+     */
+    private final AtomicInteger writeFailureCountdown = new AtomicInteger();
+
+    private volatile io.grpc.Status writeFailure;
+
+    /**
+     * 客户端取消的 query 请求数
+     */
+    private final AtomicInteger cancelledQueries = new AtomicInteger();
+
+    /**
+     * 收到的 query 请求数
+     */
+    private final AtomicInteger queryRequests = new AtomicInteger();
+
+    /**
+     * 删除所有 collection
+     */
+    public void reset() {
+        collections.clear();
+        writeRequestRows.clear();
+    }
+
+    /**
+     * @return 每次 insert/upsert 请求的行数, 按请求顺序
+     */
+    public List<Integer> getWriteRequestRows() {
+        return writeRequestRows;
+    }
+
+    public void setQueryGate(CountDownLatch queryGate) {
+        this.queryGate = queryGate;
+    }
+
+    /**
+     * @param successes 失败前成功的 insert/upsert 请求数
+     * @param failure   失败的 gRPC 状态
+     */
+    public void failWriteAfter(int successes, io.grpc.Status failure) {
+        this.writeFailure = failure;
+        this.writeFailureCountdown.set(successes + 1);
+    }
+
+    private boolean writeFails(StreamObserver<?> responseObserver) {
+        if (writeFailureCountdown.get() > 0 && writeFailureCountdown.decrementAndGet() == 0) {
+            responseObserver.onError(writeFailure.asRuntimeException());
+            return true;
+        }
+        return false;
+    }
+
+    public void setQueryFailure(io.grpc.Status queryFailure) {
+        this.queryFailure = queryFailure;
+    }
+
+    public int getCancelledQueries() {
+        return cancelledQueries.get();
+    }
+
+    public int getQueryRequests() {
+        return queryRequests.get();
+    }
+
+    /**
+     * @param collectionName collection 名称
+     * @return 当前的行数, collection 不存在时为 -1
+     */
+    public int rowCount(String collectionName) {
+        FakeCollection collection = collections.get(collectionName);
+        return collection == null ? -1 : collection.size();
+    }
+
+    @Override
+    public void connect(ConnectRequest request, StreamObserver<ConnectResponse> responseObserver) {
+        respond(responseObserver, () -> ConnectResponse.newBuilder().setStatus(SUCCESS).setIdentifier(1L).build(),
+                status -> ConnectResponse.newBuilder().setStatus(status).build());
+    }
+
+    @Override
+    public void createCollection(CreateCollectionRequest request, StreamObserver<Status> responseObserver) {
+        respond(responseObserver, () -> {
+            CollectionSchema schema;
+            try {
+                schema = CollectionSchema.parseFrom(request.getSchema());
+            } catch (InvalidProtocolBufferException e) {
+                throw new IllegalArgumentException("invalid collection schema", e);
+            }
+            schema = schema.toBuilder().setName(request.getCollectionName()).build();
+            FakeCollection collection = new FakeCollection(idSequence.incrementAndGet(), schema);
+            if (collections.putIfAbsent(request.getCollectionName(), collection) != null) {
+                throw new IllegalArgumentException("collection " + request.getCollectionName() + " already exists");
+            }
+            return SUCCESS;
+        }, status -> status);
+    }
+
+    @Override
+    public void hasCollection(HasCollectionRequest request, StreamObserver<BoolResponse> responseObserver) {
+        respond(responseObserver, () -> BoolResponse.newBuilder().setStatus(SUCCESS)
+                        .setValue(collections.containsKey(request.getCollectionName())).build(),
+                status -> BoolResponse.newBuilder().setStatus(status).build());
+    }
+
+    @Override
+    public void describeCollection(DescribeCollectionRequest request, StreamObserver<DescribeCollectionResponse> responseObserver) {
+        respond(responseObserver, () -> {
+            FakeCollection collection = collection(request.getCollectionName());
+            return DescribeCollectionResponse.newBuilder()
+                    .setStatus(SUCCESS)
+                    .setSchema(collection.getSchema())
+                    .setCollectionID(collection.getId())
+                    .setCollectionName(collection.getName())
+                    .setShardsNum(1)
+                    .setNumPartitions(1)
+                    .setCreatedTimestamp(collection.getCreatedTimestamp())
+                    .setCreatedUtcTimestamp(collection.getCreatedTimestamp())
+                    .build();
+        }, status -> DescribeCollectionResponse.newBuilder().setStatus(status).build());
+    }
+
+    @Override
+    public void dropCollection(DropCollectionRequest request, StreamObserver<Status> responseObserver) {
+        respond(responseObserver, () -> {
+            if (collections.remove(request.getCollectionName()) == null) {
+                throw new CollectionNotExistsException(request.getCollectionName());
+            }
+            return SUCCESS;
+        }, status -> status);
+    }
+
+    @Override
+    public void loadCollection(LoadCollectionRequest request, StreamObserver<Status> responseObserver) {
+        respond(responseObserver, () -> {
+            collection(request.getCollectionName()).setLoaded(true);
+            return SUCCESS;
+        }, status -> status);
+    }
+
+    @Override
+    public void releaseCollection(ReleaseCollectionRequest request, StreamObserver<Status> responseObserver) {
+        respond(responseObserver, () -> {
+            collection(request.getCollectionName()).setLoaded(false);
+            return SUCCESS;
+        }, status -> status);
+    }
+
+    @Override
+    public void getLoadState(GetLoadStateRequest request, StreamObserver<GetLoadStateResponse> responseObserver) {
+        respond(responseObserver, () -> {
+            FakeCollection collection = collections.get(request.getCollectionName());
+            LoadState state = collection == null ? LoadState.LoadStateNotExist
+                    : collection.isLoaded() ? LoadState.LoadStateLoaded : LoadState.LoadStateNotLoad;
+            return GetLoadStateResponse.newBuilder().setStatus(SUCCESS).setState(state).build();
+        }, status -> GetLoadStateResponse.newBuilder().setStatus(status).build());
+    }
+
+    @Override
+    public void getLoadingProgress(GetLoadingProgressRequest request, StreamObserver<GetLoadingProgressResponse> responseObserver) {
+        respond(responseObserver, () -> {
+            long progress = collection(request.getCollectionName()).isLoaded() ? 100 : 0;
+            return GetLoadingProgressResponse.newBuilder().setStatus(SUCCESS).setProgress(progress).setRefreshProgress(progress).build();
+        }, status -> GetLoadingProgressResponse.newBuilder().setStatus(status).build());
+    }
+
+    @Override
+    public void showCollections(ShowCollectionsRequest request, StreamObserver<ShowCollectionsResponse> responseObserver) {
+        respond(responseObserver, () -> {
+            Collection<String> names = request.getCollectionNamesCount() > 0 ? request.getCollectionNamesList() : collections.keySet();
+            ShowCollectionsResponse.Builder builder = ShowCollectionsResponse.newBuilder().setStatus(SUCCESS);
+            for (String name : names) {
+                FakeCollection collection = collection(name);
+                builder.addCollectionNames(name)
+                        .addCollectionIds(collection.getId())
+                        .addCreatedTimestamps(collection.getCreatedTimestamp())
+                        .addCreatedUtcTimestamps(collection.getCreatedTimestamp())
+                        .addInMemoryPercentages(collection.isLoaded() ? 100 : 0)
+                        .addQueryServiceAvailable(collection.isLoaded());
+            }
+            return builder.build();
+        }, status -> ShowCollectionsResponse.newBuilder().setStatus(status).build());
+    }
+
+    @Override
+    public void showPartitions(ShowPartitionsRequest request, StreamObserver<ShowPartitionsResponse> responseObserver) {
+        respond(responseObserver, () -> {
+            FakeCollection collection = collection(request.getCollectionName());
+            return ShowPartitionsResponse.newBuilder()
+                    .setStatus(SUCCESS)
+                    .addPartitionNames("_default")
+                    .addPartitionIDs(collection.getId())
+                    .addCreatedTimestamps(collection.getCreatedTimestamp())
+                    .addCreatedUtcTimestamps(collection.getCreatedTimestamp())
+                    .addInMemoryPercentages(collection.isLoaded() ? 100 : 0)
+                    .build();
+        }, status -> ShowPartitionsResponse.newBuilder().setStatus(status).build());
+    }
+
+    @Override
+    public void getCollectionStatistics(GetCollectionStatisticsRequest request, StreamObserver<GetCollectionStatisticsResponse> responseObserver) {
+        respond(responseObserver, () -> GetCollectionStatisticsResponse.newBuilder()
+                        .setStatus(SUCCESS)
+                        .addStats(KeyValuePair.newBuilder().setKey("row_count").setValue(String.valueOf(collection(request.getCollectionName()).size())))
+                        .build(),
+                status -> GetCollectionStatisticsResponse.newBuilder().setStatus(status).build());
+    }
+
+    @Override
+    public void flush(FlushRequest request, StreamObserver<FlushResponse> responseObserver) {
+        respond(responseObserver, () -> {
+            FlushResponse.Builder builder = FlushResponse.newBuilder().setStatus(SUCCESS).setDbName(request.getDbName());
+            for (String name : request.getCollectionNamesList()) {
+                collection(name);
+                builder.putCollSegIDs(name, LongArray.getDefaultInstance());
+                builder.putFlushCollSegIDs(name, LongArray.getDefaultInstance());
+            }
+            return builder.build();
+        }, status -> FlushResponse.newBuilder().setStatus(status).build());
+    }
+
+    @Override
+    public void getFlushState(GetFlushStateRequest request, StreamObserver<GetFlushStateResponse> responseObserver) {
+        respond(responseObserver, () -> GetFlushStateResponse.newBuilder().setStatus(SUCCESS).setFlushed(true).build(),
+                status -> GetFlushStateResponse.newBuilder().setStatus(status).build());
+    }
+
+    @Override
+    public void createIndex(CreateIndexRequest request, StreamObserver<Status> responseObserver) {
+        respond(responseObserver, () -> {
+            FakeCollection collection = collection(request.getCollectionName());
+            collection.getField(request.getFieldName());
+            String indexName = request.getIndexName().isEmpty() ? request.getFieldName() : request.getIndexName();
+            collection.getIndexes().put(indexName, IndexDescription.newBuilder()
+                    .setIndexName(indexName)
+                    .setIndexID(idSequence.incrementAndGet())
+                    .setFieldName(request.getFieldName())
+                    .addAllParams(request.getExtraParamsList())
+                    .setState(IndexState.Finished)
+                    .build());
+            return SUCCESS;
+        }, status -> status);
+    }
+
+    @Override
+    public void describeIndex(DescribeIndexRequest request, StreamObserver<DescribeIndexResponse> responseObserver) {
+        respond(responseObserver, () -> {
+            FakeCollection collection = collection(request.getCollectionName());
+            DescribeIndexResponse.Builder builder = DescribeIndexResponse.newBuilder().setStatus(SUCCESS);
+            int total = collection.size();
+            for (IndexDescription index : collection.getIndexes().values()) {
+                boolean matchName = request.getIndexName().isEmpty() || request.getIndexName().equals(index.getIndexName());
+                boolean matchField = request.getFieldName().isEmpty() || request.getFieldName().equals(index.getFieldName());
+                if (matchName && matchField) {
+                    builder.addIndexDescriptions(index.toBuilder().setIndexedRows(total).setTotalRows(total));
+                }
+            }
+            if (builder.getIndexDescriptionsCount() == 0) {
+                return builder.setStatus(failure(ErrorCode.IndexNotExist, 700, "index not found")).build();
+            }
+            return builder.build();
+        }, status -> DescribeIndexResponse.newBuilder().setStatus(status).build());
+    }
+
+    @Override
+    public void dropIndex(DropIndexRequest request, StreamObserver<Status> responseObserver) {
+        respond(responseObserver, () -> {
+            FakeCollection collection = collection(request.getCollectionName());
+            collection.getIndexes().values().removeIf(index -> index.getIndexName().equals(request.getIndexName())
+                    || (request.getIndexName().isEmpty() && index.getFieldName().equals(request.getFieldName())));
+            return SUCCESS;
+        }, status -> status);
+    }
+
+    @Override
+    public void insert(InsertRequest request, StreamObserver<MutationResult> responseObserver) {
+        if (writeFails(responseObserver)) {
+            return;
+        }
+        writeRequestRows.add(request.getNumRows());
+        respond(responseObserver, () -> {
+            FakeCollection collection = collection(request.getCollectionName());
+            List<Object> ids = collection.insert(request.getFieldsDataList(), request.getNumRows(), false);
+            return MutationResult.newBuilder()
+                    .setStatus(SUCCESS)
+                    .setIDs(ids(collection, ids))
+                    .setInsertCnt(ids.size())
+                    .setTimestamp(System.currentTimeMillis())
+                    .build();
+        }, status -> MutationResult.newBuilder().setStatus(status).build());
+    }
+
+    @Override
+    public void upsert(UpsertRequest request, StreamObserver<MutationResult> responseObserver) {
+        if (writeFails(responseObserver)) {
+            return;
+        }
+        writeRequestRows.add(request.getNumRows());
+        respond(responseObserver, () -> {
+            FakeCollection collection = collection(request.getCollectionName());
+            List<Object> ids = collection.insert(request.getFieldsDataList(), request.getNumRows(), true);
+            return MutationResult.newBuilder()
+                    .setStatus(SUCCESS)
+                    .setIDs(ids(collection, ids))
+                    .setUpsertCnt(ids.size())
+                    .setTimestamp(System.currentTimeMillis())
+                    .build();
+        }, status -> MutationResult.newBuilder().setStatus(status).build());
+    }
+
+    @Override
+    public void delete(DeleteRequest request, StreamObserver<MutationResult> responseObserver) {
+        respond(responseObserver, () -> {
+            FakeCollection collection = collection(request.getCollectionName());
+            List<Object> ids = collection.delete(Expressions.parse(request.getExpr()));
+            return MutationResult.newBuilder()
+                    .setStatus(SUCCESS)
+                    .setIDs(ids(collection, ids))
+                    .setDeleteCnt(ids.size())
+                    .setTimestamp(System.currentTimeMillis())
+                    .build();
+        }, status -> MutationResult.newBuilder().setStatus(status).build());
+    }
+
+    @Override
+    public void query(QueryRequest request, StreamObserver<QueryResults> responseObserver) {
+        queryRequests.incrementAndGet();
+        io.grpc.Status failure = queryFailure;
+        if (failure != null) {
+            responseObserver.onError(failure.asRuntimeException());
+            return;
+        }
+        CountDownLatch gate = queryGate;
+        if (gate != null) {
+            Context.current().addListener(context -> cancelledQueries.incrementAndGet(), Runnable::run);
+            try {
+                gate.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        respond(responseObserver, () -> {
+            FakeCollection collection = loadedCollection(request.getCollectionName());
+            Map<String, String> params = params(request.getQueryParamsList());
+            List<Map<String, Object>> rows = collection.select(Expressions.parse(request.getExpr()));
+            if (params.containsKey("limit")) {
+                // 与 milvus 相同, 指定 limit 时各分片的结果按主键从小到大归并后再截取
+                String primaryName = collection.getPrimaryField().getName();
+                rows.sort((left, right) -> compare(left.get(primaryName), right.get(primaryName)));
+            }
+            int offset = Integer.parseInt(params.getOrDefault("offset", "0"));
+            int limit = Integer.parseInt(params.getOrDefault("limit", String.valueOf(rows.size())));
+            rows = rows.subList(Math.min(offset, rows.size()), Math.min(offset + limit, rows.size()));
+            List<FieldSchema> outputFields = outputFields(collection, request.getOutputFieldsList());
+            QueryResults.Builder builder = QueryResults.newBuilder().setStatus(SUCCESS).setCollectionName(collection.getName());
+            for (FieldSchema field : outputFields) {
+                builder.addFieldsData(column(field, rows));
+                builder.addOutputFields(field.getName());
+            }
+            return builder.build();
+        }, status -> QueryResults.newBuilder().setStatus(status).build());
+    }
+
+    @Override
+    public void search(SearchRequest request, StreamObserver<SearchResults> responseObserver) {
+        respond(responseObserver, () -> {
+            FakeCollection collection = loadedCollection(request.getCollectionName());
+            Map<String, String> params = params(request.getSearchParamsList());
+            FieldSchema vectorField = collection.getField(params.get("anns_field"));
+            int topK = Integer.parseInt(params.getOrDefault("topk", "10"));
+            int offset = Integer.parseInt(params.getOrDefault("offset", "0"));
+            String metricType = params.getOrDefault("metric_type", vectorField.getDataType() == DataType.BinaryVector ? "HAMMING" : "L2");
+            List<Map<String, Object>> candidates = collection.select(Expressions.parse(request.getDsl()));
+            List<FieldSchema> outputFields = outputFields(collection, request.getOutputFieldsList());
+
+            List<Map<String, Object>> hits = new ArrayList<>();
+            SearchResultData.Builder results = SearchResultData.newBuilder();
+            for (ByteString target : targets(request.getPlaceholderGroup())) {
+                List<ScoredRow> scored = new ArrayList<>(candidates.size());
+                for (Map<String, Object> row : candidates) {
+                    scored.add(new ScoredRow(row, score(metricType, row.get(vectorField.getName()), target)));
+                }
+                Comparator<ScoredRow> order = Comparator.comparingDouble(scoredRow -> scoredRow.score);
+                scored.sort(Metrics.higherIsCloser(metricType) ? order.reversed() : order);
+                List<ScoredRow> top = scored.subList(Math.min(offset, scored.size()), Math.min(offset + topK, scored.size()));
+                for (ScoredRow scoredRow : top) {
+                    hits.add(scoredRow.row);
+                    results.addScores(scoredRow.score);
+                }
+                results.addTopks(top.size());
+            }
+            List<Object> ids = new ArrayList<>(hits.size());
+            for (Map<String, Object> hit : hits) {
+                ids.add(hit.get(collection.getPrimaryField().getName()));
+            }
+            results.setNumQueries(results.getTopksCount()).setTopK(topK).setIds(ids(collection, ids));
+            for (FieldSchema field : outputFields) {
+                results.addFieldsData(column(field, hits));
+                results.addOutputFields(field.getName());
+            }
+            return SearchResults.newBuilder().setStatus(SUCCESS).setCollectionName(collection.getName()).setResults(results).build();
+        }, status -> SearchResults.newBuilder().setStatus(status).build());
+    }
+
+    private FakeCollection collection(String name) {
+        FakeCollection collection = collections.get(name);
+        if (collection == null) {
+            throw new CollectionNotExistsException(name);
+        }
+        return collection;
+    }
+
+    private FakeCollection loadedCollection(String name) {
+        FakeCollection collection = collection(name);
+        if (!collection.isLoaded()) {
+            throw new IllegalArgumentException("collection " + name + " is not loaded");
+        }
+        return collection;
+    }
+
+    /**
+     * 主键总是返回, 未指定输出字段时只返回主键, {@code *} 表示所有标量字段
+     */
+    private static List<FieldSchema> outputFields(FakeCollection collection, List<String> names) {
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add(collection.getPrimaryField().getName());
+        for (String name : names) {
+            if ("*".equals(name)) {
+                for (FieldSchema field : collection.getSchema().getFieldsList()) {
+                    if (!FieldValues.isVector(field.getDataType())) {
+                        selected.add(field.getName());
+                    }
+                }
+            } else {
+                selected.add(name);
+            }
+        }
+        List<FieldSchema> fields = new ArrayList<>(selected.size());
+        for (String name : selected) {
+            fields.add(collection.getField(name));
+        }
+        return fields;
+    }
+
+    private static FieldData column(FieldSchema field, List<Map<String, Object>> rows) {
+        List<Object> values = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            values.add(row.get(field.getName()));
+        }
+        return FieldValues.write(field, values);
+    }
+
+    private static IDs ids(FakeCollection collection, List<Object> ids) {
+        if (collection.getPrimaryField().getDataType() == DataType.Int64) {
+            LongArray.Builder longIds = LongArray.newBuilder();
+            for (Object id : ids) {
+                longIds.addData((Long) id);
+            }
+            return IDs.newBuilder().setIntId(longIds).build();
+        }
+        StringArray.Builder strIds = StringArray.newBuilder();
+        for (Object id : ids) {
+            strIds.addData((String) id);
+        }
+        return IDs.newBuilder().setStrId(strIds).build();
+    }
+
+    private static List<ByteString> targets(ByteString placeholderGroup) {
+        try {
+            List<ByteString> targets = new ArrayList<>();
+            for (PlaceholderValue value : PlaceholderGroup.parseFrom(placeholderGroup).getPlaceholdersList()) {
+                targets.addAll(value.getValuesList());
+            }
+            return targets;
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalArgumentException("invalid placeholder group", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static float score(String metricType, Object vector, ByteString target) {
+        if (vector instanceof ByteString) {
+            return Metrics.binary(metricType, ((ByteString) vector).toByteArray(), target.toByteArray());
+        }
+        List<Float> values = (List<Float>) vector;
+        ByteBuffer buffer = target.asReadOnlyByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+        float[] query = new float[buffer.remaining() / Float.BYTES];
+        buffer.asFloatBuffer().get(query);
+        if (query.length != values.size()) {
+            throw new IllegalArgumentException(String.format("vector dimension mismatch, expect %d but got %d", values.size(), query.length));
+        }
+        return Metrics.floating(metricType, values, query);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Object left, Object right) {
+        return ((Comparable<Object>) left).compareTo(right);
+    }
+
+    private static Map<String, String> params(List<KeyValuePair> pairs) {
+        Map<String, String> params = new HashMap<>();
+        for (KeyValuePair pair : pairs) {
+            params.put(pair.getKey(), pair.getValue());
+        }
+        return params;
+    }
+
+    /**
+     * 与 milvus 2.3 一致, 同时返回旧的错误码和新的状态码
+     */
+    private static Status failure(ErrorCode errorCode, int code, String reason) {
+        return Status.newBuilder().setErrorCode(errorCode).setCode(code).setReason(reason).build();
+    }
+
+    /**
+     * 业务异常转换为失败状态, 与真实服务端一致, gRPC 调用本身总是成功
+     */
+    private static <V> void respond(StreamObserver<V> responseObserver, Supplier<V> handler, Function<Status, V> onFailure) {
+        V response;
+        try {
+            response = handler.get();
+        } catch (CollectionNotExistsException e) {
+            response = onFailure.apply(failure(ErrorCode.CollectionNotExists, 100, e.getMessage()));
+        } catch (RuntimeException e) {
+            response = onFailure.apply(failure(ErrorCode.UnexpectedError, 5, String.valueOf(e.getMessage())));
+        }
+        responseObserver.onNext(response);
+        responseObserver.onCompleted();
+    }
+
+    private static final class ScoredRow {
+
+        private final Map<String, Object> row;
+
+        private final float score;
+
+        private ScoredRow(Map<String, Object> row, float score) {
+            this.row = row;
+            this.score = score;
+        }
+    }
+
+    private static final class CollectionNotExistsException extends RuntimeException {
+
+        private CollectionNotExistsException(String collectionName) {
+            super("can't find collection: " + collectionName);
+        }
+    }
+
+    /**
+     * 距离计算, L2 为欧氏距离的平方, 与 milvus 一致
+     */
+    private static final class Metrics {
+
+        private static boolean higherIsCloser(String metricType) {
+            return "IP".equalsIgnoreCase(metricType) || "COSINE".equalsIgnoreCase(metricType);
+        }
+
+        private static float floating(String metricType, List<Float> vector, float[] query) {
+            double dot = 0;
+            double norm = 0;
+            double queryNorm = 0;
+            double l2 = 0;
+            for (int i = 0; i < query.length; i++) {
+                float value = vector.get(i);
+                dot += value * query[i];
+                norm += value * value;
+                queryNorm += query[i] * query[i];
+                l2 += (value - query[i]) * (value - query[i]);
+            }
+            switch (metricType.toUpperCase(Locale.ENGLISH)) {
+                case "IP":
+                    return (float) dot;
+                case "COSINE":
+                    return norm == 0 || queryNorm == 0 ? 0 : (float) (dot / Math.sqrt(norm * queryNorm));
+                case "L2":
+                    return (float) l2;
+                default:
+                    throw new IllegalArgumentException("unsupported metric type " + metricType + " for float vector");
+            }
+        }
+
+        private static float binary(String metricType, byte[] vector, byte[] query) {
+            int different = 0;
+            int union = 0;
+            int intersection = 0;
+            for (int i = 0; i < query.length; i++) {
+                different += Integer.bitCount((vector[i] ^ query[i]) & 0xff);
+                union += Integer.bitCount((vector[i] | query[i]) & 0xff);
+                intersection += Integer.bitCount((vector[i] & query[i]) & 0xff);
+            }
+            switch (metricType.toUpperCase(Locale.ENGLISH)) {
+                case "HAMMING":
+                    return different;
+                case "JACCARD":
+                    return union == 0 ? 0 : 1 - (float) intersection / union;
+                default:
+                    throw new IllegalArgumentException("unsupported metric type " + metricType + " for binary vector");
+            }
+        }
+    }
+}
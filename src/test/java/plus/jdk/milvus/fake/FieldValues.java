@@ -0,0 +1,172 @@
+package plus.jdk.milvus.fake;
+
+import com.google.protobuf.ByteString;
+import io.milvus.grpc.*;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link FieldData} 与按行存储的值之间的转换
+ * <p>每一行中的值: Bool 为 Boolean, Int8/Int16/Int32 为 Integer, Int64 为 Long, Float、Double、VarChar 为对应的包装类型,
+ * JSON 为 {@link ByteString}, Array 为 {@link ScalarField}, FloatVector 为 {@code List<Float>}, BinaryVector 为 {@link ByteString}</p>
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class FieldValues {
+
+    /**
+     * 按行拆分一列数据
+     *
+     * @param fieldData 列数据
+     * @return 每一行的值
+     */
+    static List<Object> read(FieldData fieldData) {
+        ScalarField scalars = fieldData.getScalars();
+        VectorField vectors = fieldData.getVectors();
+        switch (fieldData.getType()) {
+            case Bool:
+                return new ArrayList<>(scalars.getBoolData().getDataList());
+            case Int8:
+            case Int16:
+            case Int32:
+                return new ArrayList<>(scalars.getIntData().getDataList());
+            case Int64:
+                return new ArrayList<>(scalars.getLongData().getDataList());
+            case Float:
+                return new ArrayList<>(scalars.getFloatData().getDataList());
+            case Double:
+                return new ArrayList<>(scalars.getDoubleData().getDataList());
+            case String:
+            case VarChar:
+                return new ArrayList<>(scalars.getStringData().getDataList());
+            case JSON:
+                return new ArrayList<>(scalars.getJsonData().getDataList());
+            case Array:
+                return new ArrayList<>(scalars.getArrayData().getDataList());
+            case FloatVector: {
+                int dim = (int) vectors.getDim();
+                List<Float> data = vectors.getFloatVector().getDataList();
+                List<Object> rows = new ArrayList<>(data.size() / dim);
+                for (int from = 0; from < data.size(); from += dim) {
+                    rows.add(new ArrayList<>(data.subList(from, from + dim)));
+                }
+                return rows;
+            }
+            case BinaryVector: {
+                int bytes = (int) vectors.getDim() / 8;
+                ByteString data = vectors.getBinaryVector();
+                List<Object> rows = new ArrayList<>(data.size() / bytes);
+                for (int from = 0; from < data.size(); from += bytes) {
+                    rows.add(data.substring(from, from + bytes));
+                }
+                return rows;
+            }
+            default:
+                throw new IllegalArgumentException(String.format("unsupported data type %s of field '%s'", fieldData.getType(), fieldData.getFieldName()));
+        }
+    }
+
+    /**
+     * 将若干行的值组装为一列数据
+     *
+     * @param field  字段定义
+     * @param values 每一行的值
+     * @return 列数据
+     */
+    @SuppressWarnings("unchecked")
+    static FieldData write(FieldSchema field, List<Object> values) {
+        FieldData.Builder builder = FieldData.newBuilder()
+                .setFieldName(field.getName())
+                .setFieldId(field.getFieldID())
+                .setType(field.getDataType());
+        ScalarField.Builder scalars = ScalarField.newBuilder();
+        switch (field.getDataType()) {
+            case Bool:
+                scalars.setBoolData(BoolArray.newBuilder().addAllData((List<Boolean>) (List<?>) values));
+                break;
+            case Int8:
+            case Int16:
+            case Int32:
+                scalars.setIntData(IntArray.newBuilder().addAllData((List<Integer>) (List<?>) values));
+                break;
+            case Int64:
+                scalars.setLongData(LongArray.newBuilder().addAllData((List<Long>) (List<?>) values));
+                break;
+            case Float:
+                scalars.setFloatData(FloatArray.newBuilder().addAllData((List<Float>) (List<?>) values));
+                break;
+            case Double:
+                scalars.setDoubleData(DoubleArray.newBuilder().addAllData((List<Double>) (List<?>) values));
+                break;
+            case String:
+            case VarChar:
+                scalars.setStringData(StringArray.newBuilder().addAllData((List<String>) (List<?>) values));
+                break;
+            case JSON:
+                scalars.setJsonData(JSONArray.newBuilder().addAllData((List<ByteString>) (List<?>) values));
+                break;
+            case Array:
+                scalars.setArrayData(ArrayArray.newBuilder().setElementType(field.getElementType())
+                        .addAllData((List<ScalarField>) (List<?>) values));
+                break;
+            case FloatVector: {
+                FloatArray.Builder data = FloatArray.newBuilder();
+                for (Object value : values) {
+                    data.addAllData((List<Float>) value);
+                }
+                return builder.setVectors(VectorField.newBuilder().setDim(dimension(field)).setFloatVector(data)).build();
+            }
+            case BinaryVector: {
+                ByteString data = ByteString.EMPTY;
+                for (Object value : values) {
+                    data = data.concat((ByteString) value);
+                }
+                return builder.setVectors(VectorField.newBuilder().setDim(dimension(field)).setBinaryVector(data)).build();
+            }
+            default:
+                throw new IllegalArgumentException(String.format("unsupported data type %s of field '%s'", field.getDataType(), field.getName()));
+        }
+        return builder.setScalars(scalars).build();
+    }
+
+    /**
+     * Array 字段中的元素
+     *
+     * @param array Array 字段的值
+     * @return 元素列表
+     */
+    static List<?> elements(ScalarField array) {
+        switch (array.getDataCase()) {
+            case BOOL_DATA:
+                return array.getBoolData().getDataList();
+            case INT_DATA:
+                return array.getIntData().getDataList();
+            case LONG_DATA:
+                return array.getLongData().getDataList();
+            case FLOAT_DATA:
+                return array.getFloatData().getDataList();
+            case DOUBLE_DATA:
+                return array.getDoubleData().getDataList();
+            case STRING_DATA:
+                return array.getStringData().getDataList();
+            default:
+                return Collections.emptyList();
+        }
+    }
+
+    static int dimension(FieldSchema field) {
+        for (KeyValuePair typeParam : field.getTypeParamsList()) {
+            if ("dim".equals(typeParam.getKey())) {
+                return Integer.parseInt(typeParam.getValue());
+            }
+        }
+        throw new IllegalArgumentException(String.format("dimension of field '%s' is not set", field.getName()));
+    }
+
+    static boolean isVector(DataType dataType) {
+        return dataType == DataType.FloatVector || dataType == DataType.BinaryVector;
+    }
+}
@@ -0,0 +1,105 @@
+package plus.jdk.milvus.global;
+
+import io.grpc.Status;
+import io.milvus.exception.ServerException;
+import io.milvus.param.R;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import plus.jdk.milvus.autoconfigure.MilvusPlusProperties;
+import plus.jdk.milvus.common.MilvusException;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+class AdaptiveBatchControllerTest {
+
+    private static AdaptiveBatchController controller(long targetLatency) {
+        return controller(targetLatency, 60000L);
+    }
+
+    private static AdaptiveBatchController controller(long targetLatency, long sizeLimitRecovery) {
+        MilvusPlusProperties.AdaptiveBatch config = new MilvusPlusProperties.AdaptiveBatch();
+        config.setEnabled(true);
+        config.setTargetLatency(targetLatency);
+        config.setSizeLimitRecovery(sizeLimitRecovery);
+        config.setInitialSize(100);
+        config.setIncrement(10);
+        return new AdaptiveBatchController("insert", "user_blog", config, 200, 4);
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Test
+    void test_increase_under_target_latency() {
+        AdaptiveBatchController controller = controller(500);
+        controller.onSuccess(100, millis(10));
+        Assertions.assertEquals(110, controller.getBatchSize());
+        // 批次没有用满或耗时超过目标时不增加
+        controller.onSuccess(50, millis(10));
+        controller.onSuccess(110, millis(800));
+        Assertions.assertEquals(110, controller.getBatchSize());
+        for (int i = 0; i < 100; i++) {
+            controller.onSuccess(controller.getBatchSize(), millis(10));
+        }
+        Assertions.assertEquals(200, controller.getBatchSize());
+        Assertions.assertEquals(4, controller.getConcurrency());
+    }
+
+    @Test
+    void test_decrease_when_rate_limited() {
+        AdaptiveBatchController controller = controller(0);
+        for (int i = 0; i < 10; i++) {
+            controller.onSuccess(controller.getBatchSize(), 0);
+        }
+        Assertions.assertEquals(4, controller.getConcurrency());
+        MilvusException rateLimited = MilvusException.of(R.failed(new ServerException("rate limit exceeded", 8, null)));
+        Assertions.assertTrue(rateLimited.isRateLimited());
+        Assertions.assertFalse(rateLimited.isRequestTooLarge());
+        Assertions.assertTrue(controller.onRejected(200, new CompletionException(rateLimited)));
+        Assertions.assertEquals(100, controller.getBatchSize());
+        Assertions.assertEquals(2, controller.getConcurrency());
+        Assertions.assertEquals(1, controller.getDecreaseCount());
+        Assertions.assertFalse(controller.onRejected(100, new MilvusException("collection not found")));
+        Assertions.assertFalse(controller.onRejected(100, new IllegalStateException("closed")));
+        Assertions.assertEquals(1, controller.getDecreaseCount());
+    }
+
+    private static MilvusException tooLarge() {
+        return MilvusException.of(R.failed(Status.RESOURCE_EXHAUSTED
+                .withDescription("gRPC message exceeds maximum size 67108864").asRuntimeException()));
+    }
+
+    @Test
+    void test_limit_size_when_request_too_large() {
+        AdaptiveBatchController controller = controller(0);
+        MilvusException tooLarge = tooLarge();
+        Assertions.assertTrue(tooLarge.isRequestTooLarge());
+        Assertions.assertTrue(MilvusException.of(R.failed(new ServerException("request is larger than limit", 4, null)))
+                .isRequestTooLarge());
+        // 只按状态码判断, 不匹配异常信息
+        Assertions.assertFalse(new MilvusException("RESOURCE_EXHAUSTED: gRPC message exceeds maximum size 67108864").isRequestTooLarge());
+        Assertions.assertFalse(tooLarge.isRateLimited());
+        Assertions.assertTrue(controller.onRejected(100, tooLarge));
+        Assertions.assertEquals(50, controller.getBatchSize());
+        Assertions.assertEquals(1, controller.getConcurrency());
+        for (int i = 0; i < 20; i++) {
+            controller.onSuccess(controller.getBatchSize(), 0);
+        }
+        // 之后不再超过失败时的大小
+        Assertions.assertEquals(99, controller.getBatchSize());
+    }
+
+    @Test
+    void test_size_limit_recovers() {
+        AdaptiveBatchController controller = controller(0, 0);
+        Assertions.assertTrue(controller.onRejected(100, tooLarge()));
+        Assertions.assertEquals(50, controller.getBatchSize());
+        for (int i = 0; i < 20; i++) {
+            controller.onSuccess(controller.getBatchSize(), 0);
+        }
+        // 上限恢复后仍然按 increment 增大
+        Assertions.assertEquals(200, controller.getBatchSize());
+    }
+}
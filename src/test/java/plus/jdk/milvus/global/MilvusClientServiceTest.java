@@ -0,0 +1,30 @@
+package plus.jdk.milvus.global;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import plus.jdk.milvus.autoconfigure.MilvusPlusProperties;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+class MilvusClientServiceTest {
+
+    @Test
+    void test_destroy_shuts_down_owned_executors_only() {
+        ExecutorService supplied = Executors.newSingleThreadExecutor();
+        try {
+            MilvusClientService milvusClientService = new MilvusClientService(null, new MilvusPlusProperties());
+            milvusClientService.setBlockingExecutor(supplied);
+            ExecutorService async = (ExecutorService) milvusClientService.getAsyncExecutor();
+            ExecutorService scheduler = milvusClientService.getScheduler();
+            Assertions.assertSame(supplied, milvusClientService.getBlockingExecutor());
+
+            milvusClientService.destroy();
+            Assertions.assertTrue(async.isShutdown());
+            Assertions.assertTrue(scheduler.isShutdown());
+            Assertions.assertFalse(supplied.isShutdown());
+        } finally {
+            supplied.shutdownNow();
+        }
+    }
+}
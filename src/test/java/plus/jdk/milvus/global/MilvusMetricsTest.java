@@ -0,0 +1,128 @@
+package plus.jdk.milvus.global;
+
+import io.milvus.client.MilvusServiceClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import plus.jdk.milvus.autoconfigure.MilvusPlusProperties;
+import plus.jdk.milvus.collection.UserBlogVector;
+import plus.jdk.milvus.common.MilvusException;
+import plus.jdk.milvus.factory.MilvusPlusFactoryBean;
+import plus.jdk.milvus.fake.FakeMilvusServer;
+import plus.jdk.milvus.global.metrics.OperationSample;
+import plus.jdk.milvus.selector.MilvusSelector;
+import plus.jdk.milvus.toolkit.support.SFunction;
+import plus.jdk.milvus.wrapper.LambdaQueryWrapper;
+import plus.jdk.milvus.wrapper.LambdaSearchWrapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+class MilvusMetricsTest {
+
+    private static final int DIMENSION = 768;
+
+    private static final List<OperationSample> samples = new CopyOnWriteArrayList<>();
+
+    private static FakeMilvusServer server;
+
+    private static AnnotationConfigApplicationContext applicationContext;
+
+    private static MilvusServiceClient milvusClient;
+
+    private static MilvusClientService milvusClientService;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        server = FakeMilvusServer.start();
+        applicationContext = new AnnotationConfigApplicationContext(MilvusSelector.class);
+        MilvusPlusProperties properties = server.applyTo(new MilvusPlusProperties());
+        properties.getGlobalConfig().setBanner(false);
+        MilvusPlusFactoryBean factoryBean = new MilvusPlusFactoryBean();
+        factoryBean.setProperties(properties);
+        factoryBean.setGlobalConfig(properties.getGlobalConfig());
+        milvusClient = factoryBean.getObject();
+        milvusClientService = new MilvusClientService(milvusClient, properties);
+        milvusClientService.setMetrics(samples::add);
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        milvusClientService.destroy();
+        milvusClient.close();
+        applicationContext.close();
+        server.close();
+    }
+
+    private static UserBlogVector blog(long userId) {
+        List<Float> vector = new ArrayList<>(Collections.nCopies(DIMENSION, 0.01f));
+        vector.set(0, (float) userId);
+        UserBlogVector blog = new UserBlogVector();
+        blog.setUid(userId);
+        blog.setUserId(userId);
+        blog.setBlogText("blog " + userId);
+        blog.setBlogType(Collections.singletonList("tech"));
+        blog.setBlogTextVector(vector);
+        return blog;
+    }
+
+    private static OperationSample last(String operation) {
+        for (int i = samples.size() - 1; i >= 0; i--) {
+            if (operation.equals(samples.get(i).getOperation())) {
+                return samples.get(i);
+            }
+        }
+        return Assertions.fail("no sample for " + operation);
+    }
+
+    @Test
+    void test_records_operations() {
+        if (milvusClientService.hasCollection(UserBlogVector.class)) {
+            milvusClientService.dropCollection(UserBlogVector.class);
+        }
+        milvusClientService.createCollection(UserBlogVector.class);
+        SFunction<UserBlogVector, ?> vectorColumn = UserBlogVector::getBlogTextVector;
+        milvusClientService.createIndex(UserBlogVector.class, "idx_blog_text", vectorColumn, null);
+        milvusClientService.loadCollection(UserBlogVector.class);
+        Assertions.assertTrue(last(OperationSample.CREATE_INDEX).isSuccess());
+        Assertions.assertTrue(last(OperationSample.LOAD).isSuccess());
+
+        List<UserBlogVector> blogs = Arrays.asList(blog(1L), blog(2L), blog(3L));
+        milvusClientService.insertBatch(blogs);
+        OperationSample insert = last(OperationSample.INSERT);
+        Assertions.assertEquals("user_blog2", insert.getCollection());
+        Assertions.assertEquals(3, insert.getRows());
+        Assertions.assertTrue(insert.getPayloadBytes() >= 3L * DIMENSION * 4);
+        Assertions.assertTrue(insert.getRpcNanos() > 0);
+        Assertions.assertTrue(insert.getTotalNanos() >= insert.getRpcNanos());
+
+        LambdaSearchWrapper<UserBlogVector> search = new LambdaSearchWrapper<>();
+        search.setEntityClass(UserBlogVector.class);
+        search.vector(UserBlogVector::getBlogTextVector, blog(2L).getBlogTextVector()).setTopK(2);
+        milvusClientService.search(search);
+        OperationSample searchSample = last(OperationSample.SEARCH);
+        Assertions.assertEquals(1, searchSample.getNq());
+        Assertions.assertEquals(2, searchSample.getTopK());
+        Assertions.assertEquals(2, searchSample.getResultSize());
+
+        LambdaQueryWrapper<UserBlogVector> query = new LambdaQueryWrapper<>();
+        query.setEntityClass(UserBlogVector.class);
+        query.gt(UserBlogVector::getUserId, 1L);
+        milvusClientService.queryAsync(query).join();
+        Assertions.assertEquals(2, last(OperationSample.QUERY).getResultSize());
+
+        milvusClientService.remove(blogs.get(0).getId(), UserBlogVector.class);
+        Assertions.assertEquals(1, last(OperationSample.DELETE).getRows());
+
+        milvusClientService.dropCollection(UserBlogVector.class);
+        Assertions.assertThrows(MilvusException.class, () -> milvusClientService.query(query));
+        OperationSample failed = last(OperationSample.QUERY);
+        Assertions.assertFalse(failed.isSuccess());
+        Assertions.assertEquals(-1, failed.getResultSize());
+    }
+}
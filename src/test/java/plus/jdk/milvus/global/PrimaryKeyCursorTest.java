@@ -0,0 +1,33 @@
+package plus.jdk.milvus.global;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+class PrimaryKeyCursorTest {
+
+    @Test
+    void test_iterate_by_primary_key() {
+        List<Object> cursors = new ArrayList<>();
+        PrimaryKeyCursor<Long> cursor = new PrimaryKeyCursor<>(lastSeen -> {
+            cursors.add(lastSeen);
+            long from = lastSeen == null ? 0L : (Long) lastSeen + 1;
+            List<Long> batch = new ArrayList<>();
+            for (long pk = from; pk < Math.min(from + 3, 8); pk++) {
+                batch.add(pk);
+            }
+            return CompletableFuture.completedFuture(batch);
+        }, pk -> pk, 3);
+        List<Long> rows = new ArrayList<>();
+        cursor.forEachRemaining(rows::add);
+        Assertions.assertEquals(8, rows.size());
+        Assertions.assertEquals(7L, rows.get(7));
+        Assertions.assertEquals(3, cursors.size());
+        Assertions.assertNull(cursors.get(0));
+        Assertions.assertEquals(2L, cursors.get(1));
+        Assertions.assertEquals(5L, cursors.get(2));
+    }
+}
@@ -0,0 +1,164 @@
+package plus.jdk.milvus.global;
+
+import io.milvus.grpc.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import plus.jdk.milvus.collection.UserBlogVector;
+import plus.jdk.milvus.metadata.ColumnDefinition;
+import plus.jdk.milvus.metadata.EntityMapper;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+class ResultDecoderTest {
+
+    private EntityMapper<UserBlogVector> entityMapper() throws NoSuchFieldException {
+        ColumnDefinition id = new ColumnDefinition();
+        id.setName("id");
+        id.setPrimary(true);
+        id.setField(UserBlogVector.class.getDeclaredField("id"));
+        ColumnDefinition blogText = new ColumnDefinition();
+        blogText.setName("blog_text");
+        blogText.setField(UserBlogVector.class.getDeclaredField("blogText"));
+        return new EntityMapper<>(UserBlogVector.class, Arrays.asList(id, blogText));
+    }
+
+    private List<FieldData> fieldsData() {
+        FieldData id = FieldData.newBuilder().setFieldName("id").setType(DataType.Int64)
+                .setScalars(ScalarField.newBuilder().setLongData(LongArray.newBuilder().addAllData(Arrays.asList(1L, 2L, 3L))))
+                .build();
+        FieldData blogText = FieldData.newBuilder().setFieldName("blog_text").setType(DataType.VarChar)
+                .setScalars(ScalarField.newBuilder().setStringData(StringArray.newBuilder().addAllData(Arrays.asList("a", "b", "c"))))
+                .build();
+        return Arrays.asList(id, blogText);
+    }
+
+    @Test
+    void test_decode_query() throws NoSuchFieldException {
+        QueryResults results = QueryResults.newBuilder().addAllFieldsData(fieldsData()).build();
+        List<UserBlogVector> rows = ResultDecoder.decodeQuery(entityMapper(), results);
+        Assertions.assertEquals(3, rows.size());
+        Assertions.assertEquals(2L, rows.get(1).getId());
+        Assertions.assertEquals("c", rows.get(2).getBlogText());
+        Assertions.assertNull(rows.get(0).getDistance());
+    }
+
+    @Test
+    void test_decode_search() throws NoSuchFieldException {
+        SearchResultData results = SearchResultData.newBuilder()
+                .setNumQueries(1)
+                .setTopK(3)
+                .addTopks(3)
+                .addAllScores(Arrays.asList(0.1f, 0.2f, 0.3f))
+                .addAllFieldsData(fieldsData())
+                .build();
+        List<UserBlogVector> rows = ResultDecoder.decodeSearch(entityMapper(), results);
+        Assertions.assertEquals(3, rows.size());
+        Assertions.assertEquals(1L, rows.get(0).getId());
+        Assertions.assertEquals(0.3f, rows.get(2).getDistance());
+    }
+
+    @Test
+    void test_decode_search_groups() throws NoSuchFieldException {
+        SearchResultData results = SearchResultData.newBuilder()
+                .setNumQueries(2)
+                .setTopK(2)
+                .addAllTopks(Arrays.asList(2L, 1L))
+                .addAllScores(Arrays.asList(0.1f, 0.2f, 0.3f))
+                .addAllFieldsData(fieldsData())
+                .build();
+        List<List<UserBlogVector>> groups = ResultDecoder.decodeSearchGroups(entityMapper(), results);
+        Assertions.assertEquals(2, groups.size());
+        Assertions.assertEquals(2, groups.get(0).size());
+        Assertions.assertEquals(1, groups.get(1).size());
+        Assertions.assertEquals(3L, groups.get(1).get(0).getId());
+        Assertions.assertEquals(0.3f, groups.get(1).get(0).getDistance());
+    }
+
+    @Test
+    void test_decode_float_array_vector() throws NoSuchFieldException {
+        ColumnDefinition vector = new ColumnDefinition();
+        vector.setName("vector");
+        vector.setField(PrimitiveVector.class.getDeclaredField("vector"));
+        EntityMapper<PrimitiveVector> mapper = new EntityMapper<>(PrimitiveVector.class, Collections.singletonList(vector));
+        FieldData fieldData = FieldData.newBuilder().setFieldName("vector").setType(DataType.FloatVector)
+                .setVectors(VectorField.newBuilder().setDim(2)
+                        .setFloatVector(FloatArray.newBuilder().addAllData(Arrays.asList(1f, 2f, 3f, 4f))))
+                .build();
+        List<PrimitiveVector> rows = ResultDecoder.decodeQuery(mapper, QueryResults.newBuilder().addFieldsData(fieldData).build());
+        Assertions.assertEquals(2, rows.size());
+        Assertions.assertArrayEquals(new float[]{3f, 4f}, rows.get(1).vector);
+    }
+
+    @Test
+    void test_decode_vector_with_type_handler() throws NoSuchFieldException {
+        ColumnDefinition vector = new ColumnDefinition();
+        vector.setName("vector");
+        vector.setField(HandledVector.class.getDeclaredField("vector"));
+        vector.setVectorTypeHandler(new DoubleVectorTypeHandler());
+        EntityMapper<HandledVector> mapper = new EntityMapper<>(HandledVector.class, Collections.singletonList(vector));
+        FieldData fieldData = FieldData.newBuilder().setFieldName("vector").setType(DataType.FloatVector)
+                .setVectors(VectorField.newBuilder().setDim(2)
+                        .setFloatVector(FloatArray.newBuilder().addAllData(Arrays.asList(1f, 2f))))
+                .build();
+        List<HandledVector> rows = ResultDecoder.decodeQuery(mapper, QueryResults.newBuilder().addFieldsData(fieldData).build());
+        Assertions.assertEquals(2.0, rows.get(0).vector[1]);
+    }
+
+    @Test
+    void test_scalar_field_skips_type_handler() throws NoSuchFieldException {
+        ColumnDefinition blogText = new ColumnDefinition();
+        blogText.setName("blog_text");
+        blogText.setField(UserBlogVector.class.getDeclaredField("blogText"));
+        blogText.setVectorTypeHandler(new NullTypeHandler());
+        EntityMapper<UserBlogVector> mapper = new EntityMapper<>(UserBlogVector.class, Collections.singletonList(blogText));
+        List<UserBlogVector> rows = ResultDecoder.decodeQuery(mapper, QueryResults.newBuilder().addAllFieldsData(fieldsData()).build());
+        Assertions.assertEquals("b", rows.get(1).getBlogText());
+    }
+
+    static class HandledVector {
+
+        private double[] vector;
+    }
+
+    static class DoubleVectorTypeHandler implements VectorTypeHandler<Object> {
+
+        @Override
+        public List<Object> serialize(Object data) {
+            return Collections.singletonList(data);
+        }
+
+        @Override
+        public Object deserialize(Collection<Object> data) {
+            float[] floats = (float[]) data.iterator().next();
+            double[] doubles = new double[floats.length];
+            for (int i = 0; i < floats.length; i++) {
+                doubles[i] = floats[i];
+            }
+            return doubles;
+        }
+    }
+
+    /**
+     * 只实现了 serialize 的处理器
+     */
+    static class NullTypeHandler implements VectorTypeHandler<Object> {
+
+        @Override
+        public List<Object> serialize(Object data) {
+            return Collections.singletonList(data);
+        }
+
+        @Override
+        public Object deserialize(Collection<Object> data) {
+            return null;
+        }
+    }
+
+    static class PrimitiveVector {
+
+        private float[] vector;
+    }
+}
@@ -0,0 +1,40 @@
+package plus.jdk.milvus.global;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SearchCoalescerTest {
+
+    @Test
+    void test_coalesce_concurrent_search() throws Exception {
+        SearchCoalescer coalescer = new SearchCoalescer(TimeUnit.MILLISECONDS.toMicros(200), 4);
+        AtomicInteger calls = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                String vector = "v" + i;
+                futures.add(executor.submit(() -> coalescer.<String>search("key", Collections.singletonList(vector), vectors -> {
+                    calls.incrementAndGet();
+                    List<List<String>> groups = new ArrayList<>();
+                    for (Object value : vectors) {
+                        groups.add(Collections.singletonList("r" + value));
+                    }
+                    return groups;
+                })));
+            }
+            for (int i = 0; i < 4; i++) {
+                Assertions.assertEquals(Collections.singletonList("rv" + i), futures.get(i).get(5, TimeUnit.SECONDS));
+            }
+            Assertions.assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
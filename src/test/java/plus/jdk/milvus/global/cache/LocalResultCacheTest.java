@@ -0,0 +1,79 @@
+package plus.jdk.milvus.global.cache;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class LocalResultCacheTest {
+
+    @Test
+    void test_hit_and_invalidate() {
+        LocalResultCache cache = new LocalResultCache(16, 60000L);
+        AtomicInteger loads = new AtomicInteger();
+        Assertions.assertEquals("v1", cache.get("blog", "k", () -> "v" + loads.incrementAndGet()));
+        Assertions.assertEquals("v1", cache.get("blog", "k", () -> "v" + loads.incrementAndGet()));
+        Assertions.assertEquals(1L, cache.getHitCount("blog"));
+        Assertions.assertEquals(1L, cache.getMissCount("blog"));
+        cache.invalidate("blog");
+        Assertions.assertEquals("v2", cache.get("blog", "k", () -> "v" + loads.incrementAndGet()));
+        Assertions.assertEquals(2L, cache.getMissCount("blog"));
+    }
+
+    @Test
+    void test_size_bound_and_ttl() throws InterruptedException {
+        LocalResultCache cache = new LocalResultCache(1, 50L);
+        cache.get("blog", "a", () -> "a");
+        cache.get("blog", "b", () -> "b");
+        Assertions.assertEquals("a2", cache.get("blog", "a", () -> "a2"));
+        Thread.sleep(100L);
+        Assertions.assertEquals("a3", cache.get("blog", "a", () -> "a3"));
+    }
+
+    @Test
+    void test_recently_used_entries_survive_eviction() {
+        LocalResultCache cache = new LocalResultCache(10, 60000L);
+        for (int i = 0; i < 10; i++) {
+            int key = i;
+            cache.get("blog", key, () -> "v" + key);
+        }
+        cache.get("blog", 0, () -> "reloaded");
+        cache.get("blog", 10, () -> "v10");
+        Assertions.assertEquals("v0", cache.get("blog", 0, () -> "reloaded"));
+        Assertions.assertEquals("v1-reloaded", cache.get("blog", 1, () -> "v1-reloaded"));
+    }
+
+    @Test
+    void test_concurrent_access_stays_bounded() throws Exception {
+        LocalResultCache cache = new LocalResultCache(100, 60000L);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int seed = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        int key = (i * 31 + seed) % 500;
+                        Assertions.assertEquals(key, (int) cache.get("blog", key, () -> key));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assertions.assertEquals(80000L, cache.getHitCount("blog") + cache.getMissCount("blog"));
+        AtomicInteger loads = new AtomicInteger();
+        for (int key = 0; key < 500; key++) {
+            cache.get("blog", key, loads::incrementAndGet);
+        }
+        Assertions.assertTrue(loads.get() >= 400);
+    }
+}
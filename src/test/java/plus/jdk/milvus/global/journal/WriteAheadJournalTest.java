@@ -0,0 +1,130 @@
+package plus.jdk.milvus.global.journal;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import plus.jdk.milvus.autoconfigure.MilvusPlusProperties;
+import plus.jdk.milvus.common.MilvusException;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+class WriteAheadJournalTest {
+
+    private static MilvusPlusProperties.Journal config(int segmentSize) throws IOException {
+        MilvusPlusProperties.Journal config = new MilvusPlusProperties.Journal();
+        config.setEnabled(true);
+        config.setDirectory(Files.createTempDirectory("milvus-journal").toString());
+        config.setSegmentSize(segmentSize);
+        return config;
+    }
+
+    private static List<Path> segments(MilvusPlusProperties.Journal config) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get(config.getDirectory()), "*.journal")) {
+            stream.forEach(paths::add);
+        }
+        return paths;
+    }
+
+    private static JournalRecord insert(int i) {
+        return new JournalRecord(JournalRecord.INSERT, "plus.jdk.milvus.collection.UserBlogVector", "[{\"id\":" + i + "}]");
+    }
+
+    @Test
+    void test_rotate_and_delete_acknowledged_segments() throws Exception {
+        MilvusPlusProperties.Journal config = config(256);
+        WriteAheadJournal journal = new WriteAheadJournal(config);
+        List<Long> positions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            positions.add(journal.append(insert(i)));
+        }
+        Assertions.assertTrue(segments(config).size() > 1);
+        for (long position : positions) {
+            journal.ack(position);
+        }
+        Assertions.assertEquals(1, segments(config).size());
+        journal.close();
+        Assertions.assertEquals(0, segments(config).size());
+        Assertions.assertThrows(MilvusException.class, () -> journal.append(insert(0)));
+    }
+
+    @Test
+    void test_recover_unacknowledged_records() throws Exception {
+        MilvusPlusProperties.Journal config = config(256);
+        WriteAheadJournal journal = new WriteAheadJournal(config);
+        List<Long> positions = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            positions.add(journal.append(insert(i)));
+        }
+        journal.append(new JournalRecord(JournalRecord.DELETE, "plus.jdk.milvus.collection.UserBlogVector", "[3]"));
+        journal.ack(positions.get(0));
+        journal.close();
+
+        WriteAheadJournal recovered = new WriteAheadJournal(config);
+        List<JournalRecord> records = recovered.readRecovered();
+        // 同一段中已确认的记录也会重新读出
+        Assertions.assertEquals(11, records.size());
+        Assertions.assertEquals("[{\"id\":0}]", records.get(0).getPayload());
+        Assertions.assertEquals(JournalRecord.DELETE, records.get(10).getType());
+        Assertions.assertEquals("[3]", records.get(10).getPayload());
+        recovered.deleteRecovered();
+        recovered.close();
+        Assertions.assertEquals(0, segments(config).size());
+    }
+
+    @Test
+    void test_resume_recovery_from_checkpoint() throws Exception {
+        MilvusPlusProperties.Journal config = config(256);
+        WriteAheadJournal journal = new WriteAheadJournal(config);
+        for (int i = 0; i < 20; i++) {
+            journal.append(insert(i));
+        }
+        journal.close();
+        int segmentCount = segments(config).size();
+        Assertions.assertTrue(segmentCount > 2);
+
+        WriteAheadJournal first = new WriteAheadJournal(config);
+        Assertions.assertEquals(20, first.readRecovered().size());
+        first.ackRecovered(5);
+        first.ackRecovered(7);
+        // 全部写入的段已经删除
+        Assertions.assertTrue(segments(config).size() < segmentCount);
+        first.close();
+
+        WriteAheadJournal second = new WriteAheadJournal(config);
+        List<JournalRecord> records = second.readRecovered();
+        Assertions.assertEquals(8, records.size());
+        Assertions.assertEquals("[{\"id\":12}]", records.get(0).getPayload());
+        second.ackRecovered(8);
+        second.close();
+        Assertions.assertEquals(0, segments(config).size());
+        Assertions.assertFalse(Files.exists(Paths.get(config.getDirectory(), "recovered.checkpoint")));
+    }
+
+    @Test
+    void test_stop_at_corrupted_record() throws Exception {
+        MilvusPlusProperties.Journal config = config(4096);
+        WriteAheadJournal journal = new WriteAheadJournal(config);
+        journal.append(insert(1));
+        long position = journal.append(insert(2));
+        journal.close();
+        try (RandomAccessFile file = new RandomAccessFile(segments(config).get(0).toFile(), "rw")) {
+            long offset = (position & 0xFFFFFFFFL) + 12;
+            file.seek(offset);
+            int value = file.read();
+            file.seek(offset);
+            file.write(value + 1);
+        }
+        WriteAheadJournal recovered = new WriteAheadJournal(config);
+        List<JournalRecord> records = recovered.readRecovered();
+        Assertions.assertEquals(1, records.size());
+        Assertions.assertEquals("[{\"id\":1}]", records.get(0).getPayload());
+        recovered.close();
+    }
+}
@@ -0,0 +1,31 @@
+package plus.jdk.milvus.global.metrics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import plus.jdk.milvus.autoconfigure.MilvusPlusProperties;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+class SlowOperationLoggerTest {
+
+    private static OperationSample search() {
+        return new OperationSample(OperationSample.SEARCH, "user_blog").topK(10).nq(1).expression("user_id > 1")
+                .vectors(Collections.singletonList(Arrays.asList(0.1f, 0.2f, 0.3f, 0.4f, 0.5f, 0.6f)))
+                .finish(null);
+    }
+
+    @Test
+    void test_threshold_and_rate_limit() {
+        MilvusPlusProperties.SlowLog slowLog = new MilvusPlusProperties.SlowLog();
+        slowLog.setThreshold(0L);
+        slowLog.setMaxPerSecond(2);
+        SlowOperationLogger logger = new SlowOperationLogger(slowLog);
+        Assertions.assertTrue(logger.log(search()));
+        Assertions.assertTrue(logger.log(search()));
+        Assertions.assertFalse(logger.log(search()));
+
+        slowLog.setThreshold(60_000L);
+        Assertions.assertFalse(new SlowOperationLogger(slowLog).log(search()));
+    }
+}
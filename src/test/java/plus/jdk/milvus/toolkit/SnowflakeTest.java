@@ -0,0 +1,68 @@
+package plus.jdk.milvus.toolkit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+class SnowflakeTest {
+
+    private static void assertUniqueAcrossThreads(Snowflake snowflake) throws InterruptedException {
+        int threads = 8;
+        int perThread = 50000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    ids.add(snowflake.nextId());
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        Assertions.assertEquals(threads * perThread, ids.size());
+    }
+
+    @Test
+    void test_unique_and_increasing() throws InterruptedException {
+        Snowflake snowflake = Snowflake.create(1);
+        long last = 0;
+        for (int i = 0; i < 100000; i++) {
+            long id = snowflake.nextId();
+            Assertions.assertTrue(id > last);
+            last = id;
+        }
+        long[] batch = snowflake.nextId(10000);
+        for (long id : batch) {
+            Assertions.assertTrue(id > last);
+            last = id;
+        }
+        assertUniqueAcrossThreads(snowflake);
+    }
+
+    @Test
+    void test_block_allocation() throws InterruptedException {
+        assertUniqueAcrossThreads(Snowflake.create(1, 256));
+    }
+
+    @Test
+    void test_bounded_lead_over_clock() {
+        Snowflake snowflake = Snowflake.create(1);
+        long last = 0;
+        long start = System.currentTimeMillis();
+        for (int round = 0; round < 5; round++) {
+            for (long id : snowflake.nextId(100000)) {
+                Assertions.assertTrue(id > last);
+                last = id;
+            }
+            // 序列号用完后只借用最多 5 毫秒, 不会无限领先系统时间
+            long timestamp = (last >> 22) + 1483200000000L;
+            Assertions.assertTrue(timestamp <= System.currentTimeMillis() + 5, "id timestamp runs ahead of clock");
+        }
+        // 每毫秒最多 4096 个 id, 50 万个 id 至少需要约 120 毫秒
+        Assertions.assertTrue(System.currentTimeMillis() - start >= 500000 / 4096 - 5);
+    }
+}